@@ -1,15 +1,171 @@
 package com.stkent.speedysubs;
 
 import android.app.Application;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.util.Log;
 
 import com.jakewharton.threetenabp.AndroidThreeTen;
+import com.stkent.speedysubs.networking.ordering.OrderQueue;
+import com.stkent.speedysubs.persistence.FavoritesStore;
+import com.stkent.speedysubs.startup.StartupGraph;
+import com.stkent.speedysubs.startup.StartupTask;
+import com.stkent.speedysubs.state.Session;
+
+import org.threeten.bp.ZoneId;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public final class App extends Application {
 
+    private static final String TAG = "Startup";
+
+    /**
+     * The best estimate of process start available before API 24.
+     */
+    private static final long CLASS_LOADED_UPTIME_MS = SystemClock.uptimeMillis();
+
+    private static final String TIMEZONES = "timezones";
+    private static final String TIMEZONE_RULES = "timezoneRules";
+    private static final String FAVORITES = "favorites";
+    private static final String SESSION = "session";
+    private static final String ORDER_QUEUE_REPLAY = "orderQueueReplay";
+
+    @NonNull
+    private final StartupGraph startupGraph = new StartupGraph();
+
+    private boolean hasDrawnFirstFrame;
+
     @Override
     public void onCreate() {
         super.onCreate();
 
-        AndroidThreeTen.init(this);
+        // Only records where session state lives. The session task restores it off the main thread.
+        Session.initialize(this);
+
+        // Screens may submit orders as soon as they exist, so the queue must exist before any task
+        // finishes. This also creates the OrderingApi; only replaying the log waits for the graph.
+        OrderQueue.initialize(this);
+
+        startupGraph.addTask(new StartupTask(TIMEZONES, true) {
+            @Override
+            protected void run() {
+                // Every date API depends on this, and it is cheap because the timezone database
+                // itself is loaded lazily, so it is not worth guarding each use.
+                AndroidThreeTen.init(App.this);
+            }
+        });
+
+        startupGraph.addTask(new StartupTask(TIMEZONE_RULES, false, TIMEZONES) {
+            @Override
+            protected void run() {
+                // Loads the timezone database now, rather than on the first LocalDate.now() call.
+                ZoneId.systemDefault().getRules();
+            }
+        });
+
+        startupGraph.addTask(new StartupTask(FAVORITES, false) {
+            @Override
+            protected void run() {
+                FavoritesStore.getSharedInstance(App.this);
+            }
+        });
+
+        startupGraph.addTask(new StartupTask(SESSION, false) {
+            @Override
+            protected void run() {
+                Session.getSharedInstance().getSnapshot();
+            }
+        });
+
+        startupGraph.addTask(new StartupTask(ORDER_QUEUE_REPLAY, false) {
+            @Override
+            protected void run() {
+                OrderQueue.getSharedInstance().replayPending();
+            }
+        });
+
+        startupGraph.setListener(new StartupGraph.Listener() {
+            @Override
+            public void onTaskFinished(@NonNull final StartupGraph.TaskTiming timing) {
+                Log.i(TAG, timing.toString());
+            }
+
+            @Override
+            public void onTaskFailed(
+                    @NonNull final String taskName,
+                    @NonNull final Throwable error) {
+
+                Log.e(TAG, taskName + " failed", error);
+            }
+        });
+
+        startupGraph.start(createStartupExecutor());
+    }
+
+    /**
+     * Waited on by {@link MainActivity}: for first-frame tasks before showing the first screen, and
+     * for every task before restoring screens after process death.
+     */
+    @NonNull
+    public StartupGraph getStartupGraph() {
+        return startupGraph;
     }
+
+    /**
+     * Records time-to-first-frame. Only the first call per process is recorded.
+     *
+     * @param firstFrameTaskWaitMs how long the main thread waited for first-frame startup tasks.
+     */
+    @MainThread
+    void onFirstFrameDrawn(final long firstFrameTaskWaitMs) {
+        if (hasDrawnFirstFrame) return;
+        hasDrawnFirstFrame = true;
+
+        final long processStartUptimeMs = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? Process.getStartUptimeMillis()
+                : CLASS_LOADED_UPTIME_MS;
+
+        final long timeToFirstFrameMs = SystemClock.uptimeMillis() - processStartUptimeMs;
+
+        Log.i(TAG, "Time to first frame: " + timeToFirstFrameMs + "ms, of which "
+                + firstFrameTaskWaitMs + "ms was spent waiting for startup tasks");
+    }
+
+    /**
+     * A small pool whose threads exit once startup is over.
+     */
+    @NonNull
+    private static Executor createStartupExecutor() {
+        final int threadCount =
+                Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+        final ThreadPoolExecutor result = new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                1,
+                SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger createdCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(@NonNull final Runnable runnable) {
+                        return new Thread(runnable, "startup-" + createdCount.incrementAndGet());
+                    }
+                });
+
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
 }
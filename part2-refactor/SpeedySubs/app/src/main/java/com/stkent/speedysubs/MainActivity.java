@@ -1,10 +1,14 @@
 package com.stkent.speedysubs;
 
+import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 import com.stkent.speedysubs.login.LoginFragment;
+import com.stkent.speedysubs.startup.StartupGraph;
 
 import static android.support.v4.app.FragmentManager.POP_BACK_STACK_INCLUSIVE;
 
@@ -12,15 +16,48 @@ public final class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(@Nullable final Bundle savedInstanceState) {
+        final App app = (App) getApplication();
+        final StartupGraph startupGraph = app.getStartupGraph();
+
+        if (savedInstanceState != null) {
+            // Any screen may be restored, and super.onCreate recreates it.
+            startupGraph.awaitAllTasks();
+        }
+
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        // Waiting after inflating the layout lets inflation overlap with the startup tasks.
+        final long waitStartUptimeMs = SystemClock.uptimeMillis();
+        startupGraph.awaitFirstFrameTasks();
+        final long firstFrameTaskWaitMs = SystemClock.uptimeMillis() - waitStartUptimeMs;
+
         if (savedInstanceState == null) {
             getSupportFragmentManager()
                     .beginTransaction()
                     .replace(R.id.fragment_container, new LoginFragment())
                     .commitAllowingStateLoss();
         }
+
+        final View decorView = getWindow().getDecorView();
+
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+
+                        // Runs once the frame that is about to be drawn has been drawn.
+                        decorView.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                app.onFirstFrameDrawn(firstFrameTaskWaitMs);
+                            }
+                        });
+
+                        return true;
+                    }
+                });
     }
 
     @Override
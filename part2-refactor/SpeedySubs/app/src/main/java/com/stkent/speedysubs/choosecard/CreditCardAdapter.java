@@ -2,60 +2,96 @@ package com.stkent.speedysubs.choosecard;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.TextView;
 
 import com.stkent.speedysubs.R;
+import com.stkent.speedysubs.lists.DiffingAdapter;
 import com.stkent.speedysubs.networking.ordering.models.CreditCard;
 
-import org.threeten.bp.format.DateTimeFormatter;
+final class CreditCardAdapter extends DiffingAdapter<CreditCard, CreditCardAdapter.ViewHolder> {
 
-final class CreditCardAdapter extends ArrayAdapter<CreditCard> {
+    interface OnCreditCardClickListener {
+        void onCreditCardClicked(@NonNull CreditCard creditCard);
+    }
+
+    @NonNull
+    private final ExpirationLabelCache expirationLabelCache;
+
+    @NonNull
+    private final OnCreditCardClickListener clickListener;
 
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy");
+    /**
+     * Adapters are recreated along with their fragment's view, so resolving the label format
+     * here happens once per configuration.
+     */
+    CreditCardAdapter(
+            @NonNull final Context context,
+            @NonNull final OnCreditCardClickListener clickListener) {
 
-    CreditCardAdapter(@NonNull final Context context) {
-        super(context, android.R.layout.simple_list_item_1);
+        super("credit cards");
+
+        this.expirationLabelCache =
+                new ExpirationLabelCache(context.getString(R.string.expires_format_string));
+
+        this.clickListener = clickListener;
     }
 
     @NonNull
     @Override
-    public View getView(
-            final int position,
-            @Nullable View rowView,
-            @NonNull final ViewGroup parent) {
+    public ViewHolder onCreateViewHolder(@NonNull final ViewGroup parent, final int viewType) {
+        final View rowView = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.row_credit_card, parent, false);
 
-        final CreditCard creditCard = getItem(position);
+        final ViewHolder result = new ViewHolder(rowView);
 
-        if (rowView == null) {
-            rowView = LayoutInflater.from(getContext())
-                    .inflate(R.layout.row_credit_card, parent, false);
+        rowView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(final View view) {
+                final int position = result.getAdapterPosition();
 
-            rowView.setTag(new ViewHolder(rowView));
-        }
+                if (position != RecyclerView.NO_POSITION) {
+                    clickListener.onCreditCardClicked(getItem(position));
+                }
+            }
+        });
 
-        final ViewHolder viewHolder = (ViewHolder) rowView.getTag();
-        viewHolder.nameLabel.setText(creditCard.toString());
+        return result;
+    }
 
-        final String formattedDate = formatter.format(creditCard.getExpirationDate());
+    @Override
+    public void onBindViewHolder(@NonNull final ViewHolder viewHolder, final int position) {
+        super.onBindViewHolder(viewHolder, position);
+
+        final CreditCard creditCard = getItem(position);
+        viewHolder.nameLabel.setText(creditCard.getDisplayName());
         viewHolder.expirationLabel.setText(
-                String.format(
-                        getContext().getString(R.string.expires_format_string),
-                        formattedDate));
+                expirationLabelCache.getLabel(creditCard.getExpirationYearMonth()));
+    }
+
+    @Override
+    protected long getItemId(@NonNull final CreditCard creditCard) {
+        return creditCard.getId();
+    }
+
+    @Override
+    protected boolean areContentsTheSame(
+            @NonNull final CreditCard oldCreditCard,
+            @NonNull final CreditCard newCreditCard) {
 
-        return rowView;
+        return oldCreditCard.hasSameContents(newCreditCard);
     }
 
-    private static class ViewHolder {
+    static final class ViewHolder extends RecyclerView.ViewHolder {
 
         private final TextView nameLabel;
         private final TextView expirationLabel;
 
         private ViewHolder(final View rowView) {
+            super(rowView);
             this.nameLabel = rowView.findViewById(R.id.name_label);
             this.expirationLabel = rowView.findViewById(R.id.expiration_label);
         }
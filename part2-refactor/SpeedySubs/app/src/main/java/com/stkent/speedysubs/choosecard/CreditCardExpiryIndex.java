@@ -0,0 +1,135 @@
+package com.stkent.speedysubs.choosecard;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A customer's credit cards, with their expiration dates sorted so that the number of cards that
+ * are no longer usable on a given day can be found with one binary search.
+ *
+ * <p>A card is usable up to, but not including, its expiration date. Usable cards are returned in
+ * the customer's original order. Not thread-safe.
+ */
+final class CreditCardExpiryIndex {
+
+    /**
+     * The customer's cards, in their original order.
+     */
+    @NonNull
+    private final List<CreditCard> creditCards;
+
+    /**
+     * Expiration dates of {@link #creditCards} as epoch days, in the same order.
+     */
+    @NonNull
+    private final long[] expirationDays;
+
+    /**
+     * {@link #expirationDays} sorted ascending, so searches compare primitives.
+     */
+    @NonNull
+    private final long[] sortedExpirationDays;
+
+    /**
+     * The result of the last {@link #getUsableCards} call, and the {@link #findFirstUsable}
+     * result it was computed for. The usable cards only change when a card expires, so repeated
+     * lookups on the same side of an expiration date reuse it.
+     */
+    private int cachedFirstUsable = -1;
+
+    @Nullable
+    private List<CreditCard> cachedUsableCards;
+
+    CreditCardExpiryIndex(@NonNull final List<CreditCard> creditCards) {
+        this.creditCards = Collections.unmodifiableList(new ArrayList<>(creditCards));
+
+        expirationDays = new long[creditCards.size()];
+
+        for (int i = 0; i < expirationDays.length; i++) {
+            expirationDays[i] = this.creditCards.get(i).getExpirationDate().toEpochDay();
+        }
+
+        sortedExpirationDays = expirationDays.clone();
+        Arrays.sort(sortedExpirationDays);
+    }
+
+    /**
+     * @return the cards usable on {@code today}, in the customer's original order.
+     */
+    @NonNull
+    List<CreditCard> getUsableCards(@NonNull final LocalDate today) {
+        final int firstUsable = findFirstUsable(today);
+
+        if (cachedUsableCards == null || firstUsable != cachedFirstUsable) {
+            cachedUsableCards = filterUsableCards(today, firstUsable);
+            cachedFirstUsable = firstUsable;
+        }
+
+        return cachedUsableCards;
+    }
+
+    /**
+     * @return the first day after {@code today} on which a currently usable card stops being
+     * usable, or null if no usable cards remain.
+     */
+    @Nullable
+    LocalDate getNextExpirationDate(@NonNull final LocalDate today) {
+        final int firstUsable = findFirstUsable(today);
+
+        return firstUsable < sortedExpirationDays.length
+                ? LocalDate.ofEpochDay(sortedExpirationDays[firstUsable])
+                : null;
+    }
+
+    @NonNull
+    private List<CreditCard> filterUsableCards(
+            @NonNull final LocalDate today,
+            final int firstUsable) {
+
+        if (firstUsable == 0) return creditCards;
+        if (firstUsable == creditCards.size()) return Collections.emptyList();
+
+        final long todayEpochDay = today.toEpochDay();
+        final List<CreditCard> result = new ArrayList<>(creditCards.size() - firstUsable);
+
+        for (int i = 0; i < expirationDays.length; i++) {
+            if (expirationDays[i] > todayEpochDay) {
+                result.add(creditCards.get(i));
+            }
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return the index in {@link #sortedExpirationDays} of the first date strictly after
+     * {@code today}, which is also the number of cards no longer usable on {@code today}.
+     */
+    private int findFirstUsable(@NonNull final LocalDate today) {
+        final long todayEpochDay = today.toEpochDay();
+        int low = 0;
+        int high = sortedExpirationDays.length;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (sortedExpirationDays[middle] <= todayEpochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+}
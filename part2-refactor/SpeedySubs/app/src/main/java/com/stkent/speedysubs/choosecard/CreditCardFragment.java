@@ -8,12 +8,11 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 import android.support.v4.widget.SwipeRefreshLayout;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
-import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.Toast;
 
@@ -30,9 +29,9 @@ import static android.widget.Toast.LENGTH_SHORT;
 public final class CreditCardFragment extends Fragment {
 
     private ProgressBar progressIndicator;
-    private ListView creditCardListView;
+    private RecyclerView creditCardList;
     private SwipeRefreshLayout creditCardRefresher;
-    private ArrayAdapter<CreditCard> adapter;
+    private CreditCardAdapter adapter;
     private CreditCardViewModel viewModel;
 
     @Override
@@ -62,11 +61,20 @@ public final class CreditCardFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         progressIndicator = view.findViewById(R.id.progress_indicator);
-        creditCardListView = view.findViewById(R.id.credit_card_list_view);
+        creditCardList = view.findViewById(R.id.credit_card_list);
         creditCardRefresher = view.findViewById(R.id.credit_card_refresh_layout);
 
-        adapter = new CreditCardAdapter(getContext());
-        creditCardListView.setAdapter(adapter);
+        adapter = new CreditCardAdapter(
+                getContext(),
+                new CreditCardAdapter.OnCreditCardClickListener() {
+                    @Override
+                    public void onCreditCardClicked(@NonNull final CreditCard creditCard) {
+                        viewModel.onCreditCardSelected(creditCard);
+                    }
+                });
+
+        creditCardList.setLayoutManager(new LinearLayoutManager(getContext()));
+        creditCardList.setAdapter(adapter);
 
         creditCardRefresher.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
             @Override
@@ -103,8 +111,7 @@ public final class CreditCardFragment extends Fragment {
         viewModel.creditCards().observe(this, new Observer<List<CreditCard>>() {
             @Override
             public void onChanged(@Nullable final List<CreditCard> creditCards) {
-                adapter.clear();
-                adapter.addAll(creditCards);
+                adapter.submitList(creditCards);
             }
         });
 
@@ -127,18 +134,6 @@ public final class CreditCardFragment extends Fragment {
                 Toast.makeText(getContext(), errorMessage, LENGTH_SHORT).show();
             }
         });
-
-        creditCardListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
-            @Override
-            public void onItemClick(
-                    final AdapterView<?> parent,
-                    final View view,
-                    final int position,
-                    final long id) {
-
-                viewModel.onCreditCardSelected(adapter.getItem(position));
-            }
-        });
     }
 
 }
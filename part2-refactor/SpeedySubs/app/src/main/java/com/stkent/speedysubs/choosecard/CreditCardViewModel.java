@@ -3,18 +3,30 @@ package com.stkent.speedysubs.choosecard;
 import android.arch.lifecycle.LiveData;
 import android.arch.lifecycle.MutableLiveData;
 import android.arch.lifecycle.ViewModel;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.PendingRequests;
+import com.stkent.speedysubs.networking.ordering.CreditCardPrefetcher;
+import com.stkent.speedysubs.networking.ordering.CreditCardRepository;
+import com.stkent.speedysubs.networking.ordering.OrderQueue;
 import com.stkent.speedysubs.networking.ordering.OrderingApi;
 import com.stkent.speedysubs.networking.ordering.models.CreditCard;
 import com.stkent.speedysubs.networking.ordering.models.Customer;
 import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.OrderResult;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
 import com.stkent.speedysubs.state.Session;
 
 import org.threeten.bp.LocalDate;
+import org.threeten.bp.ZoneId;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @SuppressWarnings("WeakerAccess") // Public access needed to avoid runtime instantiation crash.
@@ -25,12 +37,39 @@ public final class CreditCardViewModel extends ViewModel {
     private final MutableLiveData<Object> _endRefresh = new MutableLiveData<>();
     private final MutableLiveData<List<CreditCard>> _creditCards = new MutableLiveData<>();
     private final MutableLiveData<Integer> _orderConfirmationNumber = new MutableLiveData<>();
+    private final MutableLiveData<List<OrderResult>> _groupOrderResults = new MutableLiveData<>();
     private final MutableLiveData<String> _errors = new MutableLiveData<>();
 
+    private final PendingRequests pendingRequests = new PendingRequests();
+
+    private final CreditCardRepository creditCardRepository =
+            CreditCardRepository.getSharedInstance();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final Runnable expiryRefresh = new Runnable() {
+        @Override
+        public void run() {
+            displayCreditCards();
+        }
+    };
+
+    /**
+     * The customer's card list that {@link #expiryIndex} was built from. A refresh replaces the
+     * list, so the index is rebuilt whenever this no longer matches.
+     */
+    @Nullable
+    private List<CreditCard> indexedCreditCards;
+
+    @Nullable
+    private CreditCardExpiryIndex expiryIndex;
+
     public CreditCardViewModel() {
         _title.setValue("Choose Credit Card");
         _showProgressViews.setValue(false);
         displayCreditCards();
+        subscribeToCreditCards();
+        takePrefetchedCreditCards();
     }
 
     @NonNull
@@ -58,26 +97,46 @@ public final class CreditCardViewModel extends ViewModel {
         return _orderConfirmationNumber;
     }
 
+    @NonNull
+    LiveData<List<OrderResult>> groupOrderResults() {
+        return _groupOrderResults;
+    }
+
     @NonNull
     LiveData<String> errors() {
         return _errors;
     }
 
     void onCreditCardSelected(@NonNull final CreditCard creditCard) {
-        _showProgressViews.setValue(true);
+        final Session.Snapshot snapshot = Session.getSharedInstance().update(new Session.Update() {
+            @NonNull
+            @Override
+            public Session.Snapshot apply(@NonNull final Session.Snapshot current) {
+                final Order currentOrder = current.getOrder();
 
-        final Customer customer = Session.getSharedInstance().getCustomer();
+                return currentOrder != null
+                        ? current.withOrder(currentOrder.withCreditCard(creditCard))
+                        : current;
+            }
+        });
 
-        final Order existingOrder = Session.getSharedInstance().getOrder();
-        existingOrder.setCreditCard(creditCard);
+        final Customer customer = snapshot.getCustomer();
+        final Order order = snapshot.getOrder();
+
+        if (customer == null || order == null) {
+            _errors.setValue("There is no order in progress");
+            return;
+        }
 
-        new OrderingApi().placeOrder(
+        _showProgressViews.setValue(true);
+
+        pendingRequests.add(OrderQueue.getSharedInstance().submit(
                 customer,
-                existingOrder,
+                order,
                 new Callback<Integer>() {
                     @Override
                     public void onSuccess(@NonNull final Integer orderId) {
-                        Session.getSharedInstance().clearOrder();
+                        Session.getSharedInstance().clearOrder(order);
 
                         _showProgressViews.setValue(false);
 
@@ -90,18 +149,61 @@ public final class CreditCardViewModel extends ViewModel {
 
                         _errors.setValue(errorMessage);
                     }
-                });
+                }));
     }
 
+    /**
+     * Places one order per sandwich, all paid for with {@code creditCard}, in as few round trips as
+     * possible. Emits one {@link OrderResult} per sandwich via {@link #groupOrderResults()}.
+     */
+    void onGroupOrderSubmitted(
+            @NonNull final List<Sandwich> sandwiches,
+            @NonNull final CreditCard creditCard) {
+
+        final Customer customer = Session.getSharedInstance().getCustomer();
+
+        if (customer == null) {
+            _errors.setValue("You are not logged in");
+            return;
+        }
+
+        _showProgressViews.setValue(true);
+
+        final List<Order> orders = new ArrayList<>(sandwiches.size());
+
+        for (final Sandwich sandwich : sandwiches) {
+            orders.add(new Order(sandwich, creditCard));
+        }
+
+        pendingRequests.add(OrderingApi.getSharedInstance().placeOrders(
+                customer,
+                orders,
+                new Callback<List<OrderResult>>() {
+                    @Override
+                    public void onSuccess(@NonNull final List<OrderResult> results) {
+                        _showProgressViews.setValue(false);
+
+                        _groupOrderResults.setValue(results);
+                    }
+
+                    @Override
+                    public void onError(@NonNull final String errorMessage) {
+                        _showProgressViews.setValue(false);
+
+                        _errors.setValue(errorMessage);
+                    }
+                }));
+    }
+
+    /**
+     * Any change to the cards reaches the screen through {@link #subscribeToCreditCards()}.
+     */
     void onCreditCardsRefreshed() {
-        new OrderingApi().getCustomerCreditCards(
+        pendingRequests.add(creditCardRepository.refresh(
                 new Callback<List<CreditCard>>() {
                     @Override
                     public void onSuccess(@NonNull final List<CreditCard> creditCards) {
                         _endRefresh.setValue(new Object());
-
-                        Session.getSharedInstance().getCustomer().setCreditCards(creditCards);
-                        displayCreditCards();
                     }
 
                     @Override
@@ -110,22 +212,102 @@ public final class CreditCardViewModel extends ViewModel {
 
                         _errors.setValue(errorMessage);
                     }
+                }));
+    }
+
+    @Override
+    protected void onCleared() {
+        pendingRequests.cancelAll();
+        handler.removeCallbacks(expiryRefresh);
+    }
+
+    /**
+     * Redisplays the cards whenever they change, including when the backend announces a change
+     * while this screen is open.
+     */
+    private void subscribeToCreditCards() {
+        pendingRequests.add(creditCardRepository.subscribe(new Callback<List<CreditCard>>() {
+            @Override
+            public void onSuccess(@NonNull final List<CreditCard> creditCards) {
+                // The repository has already stored the cards in the session.
+                displayCreditCards();
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                // A failed background fetch leaves the current cards on screen.
+            }
+        }));
+    }
+
+    /**
+     * Swaps in the cards fetched right after login, if there are any. Until they arrive, the
+     * cards that came with the login are shown, so the screen never waits on this.
+     */
+    private void takePrefetchedCreditCards() {
+        final Cancellable request = CreditCardPrefetcher.getSharedInstance().take(
+                new Callback<List<CreditCard>>() {
+                    @Override
+                    public void onSuccess(@NonNull final List<CreditCard> creditCards) {
+                        creditCardRepository.publish(creditCards);
+                    }
+
+                    @Override
+                    public void onError(@NonNull final String errorMessage) {
+                        // The cards that came with the login are still shown.
+                    }
                 });
+
+        if (request != null) {
+            pendingRequests.add(request);
+        }
     }
 
+    /**
+     * Shows no cards if nobody is logged in, e.g. because the session could not be restored after
+     * process death.
+     */
     private void displayCreditCards() {
-        final List<CreditCard> allCreditCards =
-                Session.getSharedInstance().getCustomer().getCreditCards();
+        final Customer customer = Session.getSharedInstance().getCustomer();
+
+        if (customer == null) {
+            expiryIndex = null;
+            indexedCreditCards = null;
+            _creditCards.setValue(Collections.<CreditCard>emptyList());
+            scheduleExpiryRefresh(null);
+            return;
+        }
 
-        final List<CreditCard> nonExpiredCreditCards = new ArrayList<>();
+        final List<CreditCard> allCreditCards = customer.getCreditCards();
 
-        for (final CreditCard creditCard : allCreditCards) {
-            if (creditCard.getExpirationDate().isAfter(LocalDate.now())) {
-                nonExpiredCreditCards.add(creditCard);
-            }
+        if (expiryIndex == null || allCreditCards != indexedCreditCards) {
+            expiryIndex = new CreditCardExpiryIndex(allCreditCards);
+            indexedCreditCards = allCreditCards;
         }
 
-        _creditCards.setValue(nonExpiredCreditCards);
+        final LocalDate today = LocalDate.now();
+
+        _creditCards.setValue(expiryIndex.getUsableCards(today));
+
+        scheduleExpiryRefresh(expiryIndex.getNextExpirationDate(today));
+    }
+
+    /**
+     * Arranges for the list to be refiltered at the start of the day the next card expires, so a
+     * card never stays selectable past its expiration while this screen is open. The delay is
+     * measured in uptime, so time spent in deep sleep can make the refresh late.
+     */
+    private void scheduleExpiryRefresh(@Nullable final LocalDate nextExpirationDate) {
+        handler.removeCallbacks(expiryRefresh);
+
+        if (nextExpirationDate == null) return;
+
+        final long expiresAtMs = nextExpirationDate
+                .atStartOfDay(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+
+        handler.postDelayed(expiryRefresh, Math.max(0, expiresAtMs - System.currentTimeMillis()));
     }
 
 }
@@ -0,0 +1,51 @@
+package com.stkent.speedysubs.choosecard;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.util.IntObjectMap;
+
+import org.threeten.bp.YearMonth;
+import org.threeten.bp.format.DateTimeFormatter;
+
+/**
+ * Renders "Expires MM/yy" labels. Each distinct expiry month is formatted once; after that, a
+ * label is a single map lookup that allocates nothing, which keeps row binding garbage-free
+ * while scrolling.
+ */
+final class ExpirationLabelCache {
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy");
+
+    @NonNull
+    private final String formatString;
+
+    @NonNull
+    private final IntObjectMap<String> labelsByYearMonth = new IntObjectMap<>();
+
+    /**
+     * @param formatString the already-resolved {@code expires_format_string} resource. Create a
+     *                     new cache when the configuration (and so possibly the locale) changes.
+     */
+    ExpirationLabelCache(@NonNull final String formatString) {
+        this.formatString = formatString;
+    }
+
+    /**
+     * @param expirationYearMonth as returned by {@code CreditCard.getExpirationYearMonth}.
+     */
+    @NonNull
+    String getLabel(final int expirationYearMonth) {
+        String result = labelsByYearMonth.get(expirationYearMonth);
+
+        if (result == null) {
+            final YearMonth expirationMonth =
+                    YearMonth.of(expirationYearMonth / 12, expirationYearMonth % 12 + 1);
+
+            result = String.format(formatString, formatter.format(expirationMonth));
+            labelsByYearMonth.put(expirationYearMonth, result);
+        }
+
+        return result;
+    }
+
+}
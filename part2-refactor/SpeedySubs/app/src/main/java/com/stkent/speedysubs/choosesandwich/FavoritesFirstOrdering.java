@@ -0,0 +1,89 @@
+package com.stkent.speedysubs.choosesandwich;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.choosesandwich.ISandwichView.DisplaySandwich;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class FavoritesFirstOrdering {
+
+    private FavoritesFirstOrdering() {
+        // This constructor intentionally left blank.
+    }
+
+    /**
+     * Orders {@code menu} with its favorite sandwiches first, in the order given by
+     * {@code favoriteIds}, followed by every other sandwich in menu order. Makes a single pass
+     * over the menu; favorites that are not on the menu are skipped.
+     *
+     * @param favoriteIds        a short list of ids, most favored first.
+     * @param previousSandwiches the last list returned, by sandwich id. Entries for the same
+     *                           sandwich instance with the same favorite status are reused
+     *                           rather than recreated, so re-rendering an unchanged menu
+     *                           allocates no rows.
+     */
+    @NonNull
+    static List<DisplaySandwich> apply(
+            @NonNull final List<Sandwich> menu,
+            @NonNull final int[] favoriteIds,
+            @NonNull final IntObjectMap<DisplaySandwich> previousSandwiches) {
+
+        final DisplaySandwich[] favorites = new DisplaySandwich[favoriteIds.length];
+        final List<DisplaySandwich> others = new ArrayList<>(menu.size());
+
+        for (final Sandwich sandwich : menu) {
+            final int rank = indexOf(favoriteIds, sandwich.getId());
+
+            if (rank == -1) {
+                others.add(reuseOrCreate(previousSandwiches, sandwich, false));
+            } else {
+                favorites[rank] = reuseOrCreate(previousSandwiches, sandwich, true);
+            }
+        }
+
+        final List<DisplaySandwich> result = new ArrayList<>(menu.size());
+
+        for (final DisplaySandwich favorite : favorites) {
+            if (favorite != null) {
+                result.add(favorite);
+            }
+        }
+
+        result.addAll(others);
+        return result;
+    }
+
+    @NonNull
+    private static DisplaySandwich reuseOrCreate(
+            @NonNull final IntObjectMap<DisplaySandwich> previousSandwiches,
+            @NonNull final Sandwich sandwich,
+            final boolean isFavorite) {
+
+        final DisplaySandwich previous = previousSandwiches.get(sandwich.getId());
+
+        if (previous != null
+                && previous.getSandwich() == sandwich
+                && previous.isFavorite() == isFavorite) {
+
+            return previous;
+        }
+
+        return new DisplaySandwich(sandwich, isFavorite);
+    }
+
+    /**
+     * A linear scan beats hashing for the handful of favorites shown.
+     */
+    private static int indexOf(@NonNull final int[] values, final int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) return i;
+        }
+
+        return -1;
+    }
+
+}
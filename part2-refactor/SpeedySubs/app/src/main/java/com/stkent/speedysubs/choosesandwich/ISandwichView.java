@@ -13,7 +13,7 @@ public interface ISandwichView {
         @NonNull
         private final Sandwich sandwich;
 
-        private boolean isFavorite;
+        private final boolean isFavorite;
 
         DisplaySandwich(@NonNull final Sandwich sandwich, final boolean isFavorite) {
             this.sandwich = sandwich;
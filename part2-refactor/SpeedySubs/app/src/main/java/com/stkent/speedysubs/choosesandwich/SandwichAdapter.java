@@ -1,55 +1,87 @@
 package com.stkent.speedysubs.choosesandwich;
 
-import android.content.Context;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.TextView;
 
 import com.stkent.speedysubs.R;
 import com.stkent.speedysubs.choosesandwich.ISandwichView.DisplaySandwich;
+import com.stkent.speedysubs.lists.DiffingAdapter;
 
 import static android.view.View.GONE;
 import static android.view.View.VISIBLE;
 
-final class SandwichAdapter extends ArrayAdapter<DisplaySandwich> {
+final class SandwichAdapter extends DiffingAdapter<DisplaySandwich, SandwichAdapter.ViewHolder> {
 
-    SandwichAdapter(@NonNull final Context context) {
-        super(context, android.R.layout.simple_list_item_1);
+    interface OnSandwichClickListener {
+        void onSandwichClicked(@NonNull DisplaySandwich sandwich);
+    }
+
+    @NonNull
+    private final OnSandwichClickListener clickListener;
+
+    SandwichAdapter(@NonNull final OnSandwichClickListener clickListener) {
+        super("sandwiches");
+        this.clickListener = clickListener;
     }
 
     @NonNull
     @Override
-    public View getView(
-            final int position,
-            @Nullable View rowView,
-            @NonNull final ViewGroup parent) {
+    public ViewHolder onCreateViewHolder(@NonNull final ViewGroup parent, final int viewType) {
+        final View rowView = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.row_sandwich, parent, false);
 
-        final DisplaySandwich sandwich = getItem(position);
+        final ViewHolder result = new ViewHolder(rowView);
 
-        if (rowView == null) {
-            rowView = LayoutInflater.from(getContext())
-                    .inflate(R.layout.row_sandwich, parent, false);
+        rowView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(final View view) {
+                final int position = result.getAdapterPosition();
 
-            rowView.setTag(new ViewHolder(rowView));
-        }
+                if (position != RecyclerView.NO_POSITION) {
+                    clickListener.onSandwichClicked(getItem(position));
+                }
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull final ViewHolder viewHolder, final int position) {
+        super.onBindViewHolder(viewHolder, position);
 
-        final ViewHolder viewHolder = (ViewHolder) rowView.getTag();
+        final DisplaySandwich sandwich = getItem(position);
         viewHolder.nameLabel.setText(sandwich.getName());
         viewHolder.favoriteIndicator.setVisibility(sandwich.isFavorite() ? VISIBLE : GONE);
+    }
+
+    @Override
+    protected long getItemId(@NonNull final DisplaySandwich sandwich) {
+        return sandwich.getId();
+    }
+
+    @Override
+    protected boolean areContentsTheSame(
+            @NonNull final DisplaySandwich oldSandwich,
+            @NonNull final DisplaySandwich newSandwich) {
+
+        if (oldSandwich == newSandwich) return true;
 
-        return rowView;
+        return oldSandwich.getName().equals(newSandwich.getName())
+                && oldSandwich.isFavorite() == newSandwich.isFavorite();
     }
 
-    private static class ViewHolder {
+    static final class ViewHolder extends RecyclerView.ViewHolder {
 
         private final TextView nameLabel;
         private final View favoriteIndicator;
 
         private ViewHolder(final View rowView) {
+            super(rowView);
             this.nameLabel = rowView.findViewById(R.id.name_label);
             this.favoriteIndicator = rowView.findViewById(R.id.favorite_indicator);
         }
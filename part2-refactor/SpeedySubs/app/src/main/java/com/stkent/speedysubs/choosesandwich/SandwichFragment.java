@@ -4,11 +4,14 @@ import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AdapterView;
-import android.widget.ListView;
+import android.widget.EditText;
 import android.widget.ProgressBar;
 import android.widget.Toast;
 
@@ -51,22 +54,57 @@ public final class SandwichFragment extends Fragment implements ISandwichView {
         super.onViewCreated(view, savedInstanceState);
 
         progressIndicator = view.findViewById(R.id.progress_indicator);
-        final ListView sandwichListView = view.findViewById(R.id.sandwich_list_view);
+        final EditText searchField = view.findViewById(R.id.search_field);
+        final RecyclerView sandwichList = view.findViewById(R.id.sandwich_list);
 
-        adapter = new SandwichAdapter(getContext());
-        sandwichListView.setAdapter(adapter);
-        sandwichListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        searchField.addTextChangedListener(new TextWatcher() {
             @Override
-            public void onItemClick(
-                    final AdapterView<?> parent,
-                    final View view,
-                    final int position,
-                    final long id) {
+            public void beforeTextChanged(
+                    final CharSequence s,
+                    final int start,
+                    final int count,
+                    final int after) {
 
-                DisplaySandwich displaySandwich =
-                        (DisplaySandwich) parent.getItemAtPosition(position);
+                // This method intentionally left blank.
+            }
+
+            @Override
+            public void onTextChanged(
+                    final CharSequence s,
+                    final int start,
+                    final int before,
+                    final int count) {
+
+                // This method intentionally left blank.
+            }
 
-                presenter.onSandwichSelected(displaySandwich.getSandwich());
+            @Override
+            public void afterTextChanged(final Editable s) {
+                presenter.onSearchQueryChanged(s.toString());
+            }
+        });
+
+        adapter = new SandwichAdapter(new SandwichAdapter.OnSandwichClickListener() {
+            @Override
+            public void onSandwichClicked(@NonNull final DisplaySandwich sandwich) {
+                presenter.onSandwichSelected(sandwich.getSandwich());
+            }
+        });
+
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        sandwichList.setLayoutManager(layoutManager);
+        sandwichList.setAdapter(adapter);
+
+        sandwichList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(
+                    @NonNull final RecyclerView recyclerView,
+                    final int dx,
+                    final int dy) {
+
+                presenter.onVisibleRangeChanged(
+                        layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
             }
         });
 
@@ -74,15 +112,14 @@ public final class SandwichFragment extends Fragment implements ISandwichView {
     }
 
     @Override
-    public void onStart() {
-        super.onStart();
-        presenter.onStart();
+    public void onDestroyView() {
+        presenter.onDestroyView();
+        super.onDestroyView();
     }
 
     @Override
     public void displaySandwiches(@NonNull final List<DisplaySandwich> sandwiches) {
-        adapter.clear();
-        adapter.addAll(sandwiches);
+        adapter.submitList(sandwiches);
     }
 
     @Override
@@ -1,88 +1,214 @@
 package com.stkent.speedysubs.choosesandwich;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.stkent.speedysubs.choosesandwich.ISandwichView.DisplaySandwich;
 import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
 import com.stkent.speedysubs.networking.ordering.OrderingApi;
+import com.stkent.speedysubs.networking.ordering.SandwichMenuCache;
+import com.stkent.speedysubs.networking.ordering.SandwichPagingSource;
+import com.stkent.speedysubs.networking.ordering.SandwichSearchIndex;
 import com.stkent.speedysubs.networking.ordering.models.Order;
 import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.persistence.FavoritesStore;
 import com.stkent.speedysubs.state.Session;
+import com.stkent.speedysubs.util.IntObjectMap;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-import static android.content.Context.MODE_PRIVATE;
-
 final class SandwichPresenter {
 
-    private static final String PREFS_NAME = "FAVE_STORAGE";
-    private static final String FAVE_ID_KEY = "FAVE_ID";
+    private static final int FAVORITE_COUNT = 3;
+    private static final int MAX_PAGE_COUNT = 10;
+    private static final int MAX_SEARCH_RESULT_COUNT = 50;
 
     @NonNull
     private final ISandwichView view;
 
     @NonNull
-    private final SharedPreferences sharedPreferences;
+    private final OrderingApi orderingApi;
+
+    @NonNull
+    private final FavoritesStore favoritesStore;
+
+    @NonNull
+    private final SandwichPagingSource pagingSource;
+
+    @NonNull
+    private List<Sandwich> loadedSandwiches = Collections.emptyList();
+
+    /**
+     * Built each time the loaded sandwiches change, and only once there is a query to search for.
+     */
+    @Nullable
+    private SandwichSearchIndex searchIndex;
+
+    @Nullable
+    private SandwichSearchIndex.Result lastSearchResult;
+
+    @NonNull
+    private String searchQuery = "";
+
+    /**
+     * The backend's matches for {@link #searchQuery} from the whole menu, once they arrive.
+     */
+    @Nullable
+    private List<Sandwich> catalogSearchResults;
+
+    @Nullable
+    private Cancellable searchRequest;
+
+    @NonNull
+    private IntObjectMap<DisplaySandwich> displayedSandwiches = new IntObjectMap<>();
 
     SandwichPresenter(@NonNull final ISandwichView view, @NonNull final Context context) {
         this.view = view;
-        this.sharedPreferences = context.getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        this.orderingApi = OrderingApi.getSharedInstance();
+        this.favoritesStore = FavoritesStore.getSharedInstance(context);
+
+        this.pagingSource = new SandwichPagingSource(
+                SandwichMenuCache.getSharedInstance(context),
+                orderingApi,
+                MAX_PAGE_COUNT,
+                new SandwichPagingSource.Listener() {
+                    @Override
+                    public void onSandwichesLoaded(@NonNull final List<Sandwich> sandwiches) {
+                        view.hideProgressViews();
+
+                        loadedSandwiches = sandwiches;
+                        searchIndex = null;
+                        lastSearchResult = null;
+
+                        displaySandwiches();
+                    }
+
+                    @Override
+                    public void onError(@NonNull final String errorMessage) {
+                        view.hideProgressViews();
+                        view.showError(errorMessage);
+                    }
+                });
     }
 
+    /**
+     * The menu stays subscribed to until the view is destroyed, so returning to this screen from
+     * the background shows any changes that were pushed meanwhile without fetching it again.
+     */
     void onViewCreated() {
         view.setScreenTitle("Choose Sandwich");
+        view.showProgressViews();
+        pagingSource.start();
     }
 
-    void onStart() {
-        view.showProgressViews();
+    void onVisibleRangeChanged(final int firstVisiblePosition, final int lastVisiblePosition) {
+        // Positions in a filtered list do not correspond to positions in the menu.
+        if (isSearching()) return;
 
-        new OrderingApi().getSandwiches(new Callback<List<Sandwich>>() {
-            @Override
-            public void onSuccess(@NonNull final List<Sandwich> sandwiches) {
-                view.hideProgressViews();
-
-                final List<DisplaySandwich> displaySandwiches = processSandwiches(sandwiches);
-                view.displaySandwiches(displaySandwiches);
-            }
-
-            @Override
-            public void onError(@NonNull final String errorMessage) {
-                view.hideProgressViews();
-                view.showError(errorMessage);
-            }
-        });
+        pagingSource.onVisibleRangeChanged(firstVisiblePosition, lastVisiblePosition);
+    }
+
+    void onSearchQueryChanged(@NonNull final String query) {
+        searchQuery = query;
+        catalogSearchResults = null;
+        cancelSearch();
+
+        if (isSearching()) {
+            searchCatalog();
+        }
+
+        displaySandwiches();
+    }
+
+    void onDestroyView() {
+        pagingSource.stop();
+        cancelSearch();
     }
 
     void onSandwichSelected(@NonNull final Sandwich sandwich) {
-        sharedPreferences
-                .edit()
-                .putInt(FAVE_ID_KEY, sandwich.getId())
-                .apply();
+        favoritesStore.recordOrder(sandwich.getId());
 
-        final Order newOrder = new Order();
-        newOrder.setSandwich(sandwich);
-        Session.getSharedInstance().setOrder(newOrder);
+        Session.getSharedInstance().setOrder(new Order(sandwich, null));
 
         view.goToChooseCreditCardScreen();
     }
 
+    private boolean isSearching() {
+        return searchQuery.trim().length() > 0;
+    }
+
+    /**
+     * Loaded pages are a small part of a large menu, so the backend searches all of it.
+     */
+    private void searchCatalog() {
+        searchRequest = orderingApi.searchSandwiches(
+                searchQuery,
+                MAX_SEARCH_RESULT_COUNT,
+                new Callback<List<Sandwich>>() {
+                    @Override
+                    public void onSuccess(@NonNull final List<Sandwich> sandwiches) {
+                        searchRequest = null;
+                        catalogSearchResults = sandwiches;
+                        displaySandwiches();
+                    }
+
+                    @Override
+                    public void onError(@NonNull final String errorMessage) {
+                        searchRequest = null;
+                        view.showError(errorMessage);
+                    }
+                });
+    }
+
+    private void cancelSearch() {
+        if (searchRequest != null) {
+            searchRequest.cancel();
+            searchRequest = null;
+        }
+    }
+
+    /**
+     * While searching, the loaded sandwiches that match are shown until the backend's matches
+     * from the whole menu arrive, and instead of them if the backend search fails.
+     */
+    private void displaySandwiches() {
+        if (!isSearching()) {
+            lastSearchResult = null;
+            view.displaySandwiches(processSandwiches(loadedSandwiches));
+            return;
+        }
+
+        if (catalogSearchResults != null) {
+            view.displaySandwiches(processSandwiches(catalogSearchResults));
+            return;
+        }
+
+        if (searchIndex == null) {
+            searchIndex = new SandwichSearchIndex(loadedSandwiches);
+        }
+
+        lastSearchResult = searchIndex.search(searchQuery, lastSearchResult);
+        view.displaySandwiches(processSandwiches(searchIndex.getSandwiches(lastSearchResult)));
+    }
+
+    /**
+     * Favorites are only moved to the top once the page they are on has loaded.
+     */
     @NonNull
     private List<DisplaySandwich> processSandwiches(@NonNull final List<Sandwich> sandwiches) {
-        final int favoriteId = sharedPreferences.getInt(FAVE_ID_KEY, -1);
-
-        final List<DisplaySandwich> result = new ArrayList<>();
-
-        for (final Sandwich sandwich : sandwiches) {
-            if (sandwich.getId() == favoriteId) {
-                // Insert favorite at the front of the list.
-                result.add(0, new DisplaySandwich(sandwich, true));
-            } else {
-                // Insert non-favorite at the end of the list.
-                result.add(new DisplaySandwich(sandwich, false));
-            }
+        final List<DisplaySandwich> result = FavoritesFirstOrdering.apply(
+                sandwiches,
+                favoritesStore.getFavoriteSandwichIds(FAVORITE_COUNT),
+                displayedSandwiches);
+
+        // Only the rows just displayed are kept for reuse, so this never outgrows the list.
+        displayedSandwiches = new IntObjectMap<>(result.size());
+
+        for (final DisplaySandwich displaySandwich : result) {
+            displayedSandwiches.put(displaySandwich.getId(), displaySandwich);
         }
 
         return result;
@@ -0,0 +1,218 @@
+package com.stkent.speedysubs.lists;
+
+import android.os.SystemClock;
+import android.support.annotation.CallSuper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+
+import com.stkent.speedysubs.networking.MainThreadExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * A {@link RecyclerView.Adapter} for lists of model objects that are replaced wholesale. Each new
+ * list is diffed against the current one on a background thread, and only rows that were
+ * inserted, removed, moved or changed are rebound. Items are identified by a stable id.
+ *
+ * <p>Every update logs how long its diff took and how many rows were bound for it. The log is
+ * written when the next list is submitted or the adapter is detached, so that the count includes
+ * the layout pass that follows the update.
+ */
+@MainThread
+public abstract class DiffingAdapter<T, VH extends RecyclerView.ViewHolder>
+        extends RecyclerView.Adapter<VH> {
+
+    private static final String TAG = "DiffingAdapter";
+
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    @NonNull
+    private final String listName;
+
+    @NonNull
+    private final Executor mainThreadExecutor = new MainThreadExecutor();
+
+    @NonNull
+    private List<T> items = Collections.emptyList();
+
+    /**
+     * Incremented by every {@link #submitList} call so that results of superseded diffs can be
+     * dropped.
+     */
+    private int generation;
+
+    private long totalBindCount;
+
+    private long bindCountSinceUpdate;
+
+    private long lastDiffDurationMs;
+
+    /**
+     * The number of items shown by the last update, or -1 once that update has been logged.
+     */
+    private int updatedItemCount = -1;
+
+    /**
+     * @param listName identifies this list in logged statistics.
+     */
+    protected DiffingAdapter(@NonNull final String listName) {
+        this.listName = listName;
+        setHasStableIds(true);
+    }
+
+    /**
+     * @return an id that identifies {@code item} across lists.
+     */
+    protected abstract long getItemId(@NonNull T item);
+
+    /**
+     * @return whether the row for {@code oldItem} would look the same for {@code newItem}.
+     * Only called for items with equal ids.
+     */
+    protected abstract boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem);
+
+    /**
+     * Displays {@code newItems} once they have been diffed against the current list.
+     */
+    public void submitList(@NonNull final List<T> newItems) {
+        logLastUpdate();
+
+        final int submittedGeneration = ++generation;
+        final List<T> oldItems = items;
+        final List<T> newItemsCopy = new ArrayList<>(newItems);
+
+        if (oldItems.isEmpty() || newItemsCopy.isEmpty()) {
+            // Nothing to diff; every row is inserted or removed anyway.
+            items = newItemsCopy;
+            notifyDataSetChanged();
+            onUpdated(0);
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long startMs = SystemClock.elapsedRealtime();
+                final DiffUtil.DiffResult diffResult =
+                        DiffUtil.calculateDiff(new ItemDiffCallback(oldItems, newItemsCopy));
+                final long diffDurationMs = SystemClock.elapsedRealtime() - startMs;
+
+                mainThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (submittedGeneration != generation) return;
+
+                        items = newItemsCopy;
+                        diffResult.dispatchUpdatesTo(DiffingAdapter.this);
+                        onUpdated(diffDurationMs);
+                    }
+                });
+            }
+        });
+    }
+
+    @NonNull
+    public T getItem(final int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public final long getItemId(final int position) {
+        return getItemId(items.get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    @CallSuper
+    @Override
+    public void onBindViewHolder(@NonNull final VH holder, final int position) {
+        totalBindCount++;
+        bindCountSinceUpdate++;
+    }
+
+    /**
+     * Logs the last update, since no later list will be submitted to log it.
+     */
+    @CallSuper
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull final RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        logLastUpdate();
+    }
+
+    public long getTotalBindCount() {
+        return totalBindCount;
+    }
+
+    public long getLastDiffDurationMs() {
+        return lastDiffDurationMs;
+    }
+
+    /**
+     * Rows bound before an update is applied show the old list, so counting starts afresh here.
+     */
+    private void onUpdated(final long diffDurationMs) {
+        lastDiffDurationMs = diffDurationMs;
+        updatedItemCount = items.size();
+        bindCountSinceUpdate = 0;
+    }
+
+    private void logLastUpdate() {
+        if (updatedItemCount < 0) return;
+
+        Log.d(TAG, listName + ": showed " + updatedItemCount + " items"
+                + ", diff took " + lastDiffDurationMs + "ms"
+                + ", " + bindCountSinceUpdate + " rows bound for the update"
+                + ", " + totalBindCount + " rows bound in total");
+
+        updatedItemCount = -1;
+    }
+
+    private final class ItemDiffCallback extends DiffUtil.Callback {
+
+        @NonNull
+        private final List<T> oldItems;
+
+        @NonNull
+        private final List<T> newItems;
+
+        private ItemDiffCallback(@NonNull final List<T> oldItems, @NonNull final List<T> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(final int oldPosition, final int newPosition) {
+            return getItemId(oldItems.get(oldPosition)) == getItemId(newItems.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(final int oldPosition, final int newPosition) {
+            return DiffingAdapter.this.areContentsTheSame(
+                    oldItems.get(oldPosition),
+                    newItems.get(newPosition));
+        }
+
+    }
+
+}
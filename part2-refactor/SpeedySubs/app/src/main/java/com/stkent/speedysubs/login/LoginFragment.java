@@ -15,7 +15,11 @@ import android.widget.Toast;
 import com.stkent.speedysubs.R;
 import com.stkent.speedysubs.choosesandwich.SandwichFragment;
 import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.PendingRequests;
+import com.stkent.speedysubs.networking.ordering.CreditCardPrefetcher;
+import com.stkent.speedysubs.networking.ordering.CreditCardRepository;
 import com.stkent.speedysubs.networking.ordering.OrderingApi;
+import com.stkent.speedysubs.networking.ordering.SandwichMenuCache;
 import com.stkent.speedysubs.networking.ordering.models.Customer;
 import com.stkent.speedysubs.state.Session;
 
@@ -27,6 +31,7 @@ public final class LoginFragment extends Fragment {
 
     private ProgressBar progressIndicator;
     private EditText usernameField, passwordField;
+    private final PendingRequests pendingRequests = new PendingRequests();
 
     @Nullable
     @Override
@@ -71,13 +76,18 @@ public final class LoginFragment extends Fragment {
 
                 progressIndicator.setVisibility(VISIBLE);
 
-                new OrderingApi().logIn(
+                // The menu is the same for every customer, so it can load alongside the login.
+                SandwichMenuCache.getSharedInstance(getContext()).prefetch();
+
+                pendingRequests.add(OrderingApi.getSharedInstance().logIn(
                         username,
                         password,
                         new Callback<Customer>() {
                             @Override
                             public void onSuccess(@NonNull final Customer customer) {
                                 Session.getSharedInstance().setCustomer(customer);
+                                CreditCardRepository.getSharedInstance().clear();
+                                CreditCardPrefetcher.getSharedInstance().prefetch();
 
                                 progressIndicator.setVisibility(GONE);
                                 getFragmentManager()
@@ -90,13 +100,20 @@ public final class LoginFragment extends Fragment {
                             @Override
                             public void onError(@NonNull final String errorMessage) {
                                 Session.getSharedInstance().clearCustomer();
+                                CreditCardPrefetcher.getSharedInstance().clear();
 
                                 progressIndicator.setVisibility(GONE);
                                 Toast.makeText(getContext(), errorMessage, LENGTH_SHORT).show();
                             }
-                        });
+                        }));
             }
         });
     }
 
+    @Override
+    public void onDestroyView() {
+        pendingRequests.cancelAll();
+        super.onDestroyView();
+    }
+
 }
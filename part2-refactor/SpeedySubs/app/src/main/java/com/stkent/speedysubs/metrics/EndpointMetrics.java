@@ -0,0 +1,139 @@
+package com.stkent.speedysubs.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and outcome counts for one API endpoint. Safe to update from any thread without
+ * locking.
+ */
+public final class EndpointMetrics {
+
+    public static final class Snapshot {
+
+        @NonNull
+        private final String name;
+
+        private final long successCount;
+        private final long notModifiedCount;
+        private final long errorCount;
+        private final long cancellationCount;
+
+        @NonNull
+        private final LatencyHistogram.Snapshot latency;
+
+        private Snapshot(
+                @NonNull final String name,
+                final long successCount,
+                final long notModifiedCount,
+                final long errorCount,
+                final long cancellationCount,
+                @NonNull final LatencyHistogram.Snapshot latency) {
+
+            this.name = name;
+            this.successCount = successCount;
+            this.notModifiedCount = notModifiedCount;
+            this.errorCount = errorCount;
+            this.cancellationCount = cancellationCount;
+            this.latency = latency;
+        }
+
+        @NonNull
+        public String getName() {
+            return name;
+        }
+
+        public long getSuccessCount() {
+            return successCount;
+        }
+
+        /**
+         * @return the number of successful conditional calls whose reply was "not modified",
+         * i.e. refreshes that turned out to be no-ops. Included in {@link #getSuccessCount()}.
+         */
+        public long getNotModifiedCount() {
+            return notModifiedCount;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getCancellationCount() {
+            return cancellationCount;
+        }
+
+        /**
+         * @return the latencies of completed (succeeded or failed) calls, in nanoseconds.
+         */
+        @NonNull
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+    }
+
+    @NonNull
+    private final String name;
+
+    @NonNull
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    @NonNull
+    private final AtomicLong successCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong notModifiedCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong errorCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong cancellationCount = new AtomicLong();
+
+    public EndpointMetrics(@NonNull final String name) {
+        this.name = name;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void recordSuccess(final long latencyNanos) {
+        latency.record(latencyNanos);
+        successCount.incrementAndGet();
+    }
+
+    /**
+     * Records that a call's reply was "not modified". The call is also recorded as a success.
+     */
+    public void recordNotModified() {
+        notModifiedCount.incrementAndGet();
+    }
+
+    public void recordError(final long latencyNanos) {
+        latency.record(latencyNanos);
+        errorCount.incrementAndGet();
+    }
+
+    /**
+     * Records a call that was abandoned before it completed. Its latency is not recorded.
+     */
+    public void recordCancellation() {
+        cancellationCount.incrementAndGet();
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        return new Snapshot(
+                name,
+                successCount.get(),
+                notModifiedCount.get(),
+                errorCount.get(),
+                cancellationCount.get(),
+                latency.snapshot());
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.stkent.speedysubs.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative durations in nanoseconds, for percentile queries.
+ *
+ * <p>Buckets are log-linear: each power-of-two range is split into {@value #SUB_BUCKET_COUNT}
+ * equal sub-buckets, so any recorded value is reported within 1/{@value #SUB_BUCKET_COUNT}
+ * (6.25%) of its true value, across the whole {@code long} range, in a fixed ~8KB of counters.
+ * Recording is a few bit operations and one atomic increment, and never allocates or blocks.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    /**
+     * An immutable copy of a histogram's counts.
+     */
+    public static final class Snapshot {
+
+        @NonNull
+        private final long[] counts;
+
+        private final long totalCount;
+
+        private Snapshot(@NonNull final long[] counts) {
+            this.counts = counts;
+
+            long totalCount = 0;
+
+            for (final long count : counts) {
+                totalCount += count;
+            }
+
+            this.totalCount = totalCount;
+        }
+
+        public long getCount() {
+            return totalCount;
+        }
+
+        /**
+         * @param percentile between 0 and 100, e.g. 99.9.
+         * @return the smallest value that at least {@code percentile}% of recorded values are
+         * less than or equal to, rounded up to the top of its bucket; or 0 if nothing has been
+         * recorded.
+         */
+        public long getValueAtPercentile(final double percentile) {
+            if (totalCount == 0) return 0;
+
+            final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+            long cumulativeCount = 0;
+
+            for (int index = 0; index < counts.length; index++) {
+                cumulativeCount += counts[index];
+
+                if (cumulativeCount >= rank) {
+                    return getBucketUpperBound(index);
+                }
+            }
+
+            return getBucketUpperBound(counts.length - 1);
+        }
+
+    }
+
+    @NonNull
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * @param valueNanos a duration; negative values (from a clock going backwards) count as 0.
+     */
+    public void record(final long valueNanos) {
+        counts.incrementAndGet(getBucketIndex(Math.max(0, valueNanos)));
+    }
+
+    /**
+     * Concurrent recordings may or may not be included, but each bucket is read atomically, so
+     * the snapshot never contains partial updates.
+     */
+    @NonNull
+    public Snapshot snapshot() {
+        final long[] result = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result[i] = counts.get(i);
+        }
+
+        return new Snapshot(result);
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKET_COUNT} get a bucket each. Above that, a value's bucket is
+     * given by the position of its highest set bit and the {@link #SUB_BUCKET_BITS} bits after it.
+     */
+    static int getBucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getBucketUpperBound(final int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long subBucket = index % SUB_BUCKET_COUNT;
+
+        // For the top bucket this wraps around to exactly Long.MAX_VALUE.
+        return ((SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.stkent.speedysubs.metrics;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.List;
+import java.util.Locale;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Logs one line per endpoint, with cumulative counts and latency percentiles in milliseconds.
+ */
+public final class LogcatMetricsExporter implements MetricsExporter {
+
+    private static final String TAG = "Metrics";
+    private static final double NANOS_PER_MILLI = MILLISECONDS.toNanos(1);
+
+    @Override
+    public void export(@NonNull final List<EndpointMetrics.Snapshot> snapshots) {
+        for (final EndpointMetrics.Snapshot snapshot : snapshots) {
+            final LatencyHistogram.Snapshot latency = snapshot.getLatency();
+
+            Log.i(TAG, String.format(
+                    Locale.US,
+                    "%s: %d succeeded (%d not modified), %d failed, %d cancelled; "
+                            + "p50 %.1fms, p99 %.1fms, p99.9 %.1fms",
+                    snapshot.getName(),
+                    snapshot.getSuccessCount(),
+                    snapshot.getNotModifiedCount(),
+                    snapshot.getErrorCount(),
+                    snapshot.getCancellationCount(),
+                    latency.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(99.9) / NANOS_PER_MILLI));
+        }
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.stkent.speedysubs.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * Publishes endpoint metrics somewhere they can be inspected. Called on a background thread.
+ */
+public interface MetricsExporter {
+    void export(@NonNull List<EndpointMetrics.Snapshot> snapshots);
+}
@@ -0,0 +1,14 @@
+package com.stkent.speedysubs.networking;
+
+/**
+ * A handle to a pending request.
+ */
+public interface Cancellable {
+
+    /**
+     * Stops the request's callback from being invoked and releases the reference to it. Calling
+     * this after the callback has run has no effect.
+     */
+    void cancel();
+
+}
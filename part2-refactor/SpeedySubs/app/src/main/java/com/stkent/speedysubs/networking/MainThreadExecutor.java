@@ -0,0 +1,22 @@
+package com.stkent.speedysubs.networking;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs submitted tasks on the main thread using a single shared {@link Handler}.
+ */
+public final class MainThreadExecutor implements Executor {
+
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void execute(@NonNull final Runnable command) {
+        handler.post(command);
+    }
+
+}
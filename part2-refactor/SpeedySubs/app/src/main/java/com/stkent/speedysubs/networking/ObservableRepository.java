@@ -0,0 +1,217 @@
+package com.stkent.speedysubs.networking;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the latest copy of some backend data and pushes every change to its subscribers, so that
+ * screens stay up to date without asking again.
+ *
+ * <ul>
+ * <li>A new subscriber is sent the current value straight away, if there is one.</li>
+ * <li>While there is at least one subscriber, one subscription to the backend's change
+ * notifications is shared by all of them; it is dropped when the last subscriber leaves.</li>
+ * <li>Each notification starts a fetch. Notifications that arrive while a fetch is running are
+ * coalesced into a single follow-up fetch, so a burst of changes costs at most two fetches and
+ * subscribers only see the latest value.</li>
+ * <li>Subscribers are only notified when the fetched value differs from the current one.</li>
+ * </ul>
+ */
+@MainThread
+public abstract class ObservableRepository<T> {
+
+    @NonNull
+    private final List<Callback<T>> subscribers = new ArrayList<>();
+
+    @NonNull
+    private final List<Callback<T>> refreshCallbacks = new ArrayList<>();
+
+    @Nullable
+    private T value;
+
+    @Nullable
+    private Cancellable changeSubscription;
+
+    private boolean isFetching;
+
+    private boolean isFetchPending;
+
+    /**
+     * Starts listening for the backend's notifications that this data has changed.
+     *
+     * @return a handle that stops the notifications.
+     */
+    @NonNull
+    protected abstract Cancellable subscribeToChanges(@NonNull Runnable onChanged);
+
+    @NonNull
+    protected abstract Cancellable fetch(@NonNull Callback<T> callback);
+
+    /**
+     * @return whether a new subscriber should trigger a fetch, e.g. because there is no value
+     * yet or because changes may have been missed while nobody was subscribed.
+     */
+    protected boolean isFetchNeededOnSubscribe() {
+        return value == null;
+    }
+
+    /**
+     * @return whether {@code first} and {@code second} would look the same to subscribers. If
+     * so, a fetched value does not replace the current one.
+     */
+    protected boolean isSameValue(@NonNull final T first, @NonNull final T second) {
+        return first.equals(second);
+    }
+
+    /**
+     * Called whenever the value changes, before subscribers are notified.
+     */
+    protected void onValueChanged(@NonNull final T newValue) {
+        // This method intentionally left blank.
+    }
+
+    /**
+     * Sends the current value, if any, to {@code subscriber}, then every change until the
+     * returned handle is cancelled. Fetch errors are reported only while there is no value.
+     */
+    @NonNull
+    public Cancellable subscribe(@NonNull final Callback<T> subscriber) {
+        subscribers.add(subscriber);
+
+        if (changeSubscription == null) {
+            changeSubscription = subscribeToChanges(new Runnable() {
+                @Override
+                public void run() {
+                    requestFetch();
+                }
+            });
+        }
+
+        if (value != null) {
+            subscriber.onSuccess(value);
+        }
+
+        if (isFetchNeededOnSubscribe()) {
+            requestFetch();
+        }
+
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                if (!subscribers.remove(subscriber) || !subscribers.isEmpty()) return;
+
+                if (changeSubscription != null) {
+                    changeSubscription.cancel();
+                    changeSubscription = null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Fetches the data again, e.g. on pull-to-refresh. Subscribers are notified of any change as
+     * usual.
+     *
+     * @param callback receives the outcome of the fetch, whether or not the value changed.
+     * @return a handle that stops {@code callback} from being invoked.
+     */
+    @NonNull
+    public Cancellable refresh(@NonNull final Callback<T> callback) {
+        refreshCallbacks.add(callback);
+        requestFetch();
+
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                refreshCallbacks.remove(callback);
+            }
+        };
+    }
+
+    /**
+     * Replaces the current value with one obtained some other way, notifying subscribers if it
+     * changed. Passing the current value itself is a no-op.
+     */
+    public void publish(@NonNull final T newValue) {
+        if (newValue == value || (value != null && isSameValue(value, newValue))) return;
+
+        value = newValue;
+        onValueChanged(newValue);
+
+        for (final Callback<T> subscriber : new ArrayList<>(subscribers)) {
+            subscriber.onSuccess(newValue);
+        }
+    }
+
+    @Nullable
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Forgets the current value, e.g. when a different customer logs in. Subscribers are not
+     * notified.
+     */
+    public void clear() {
+        value = null;
+    }
+
+    protected final void requestFetch() {
+        if (isFetching) {
+            isFetchPending = true;
+            return;
+        }
+
+        isFetching = true;
+
+        fetch(new Callback<T>() {
+            @Override
+            public void onSuccess(@NonNull final T fetchedValue) {
+                isFetching = false;
+                publish(fetchedValue);
+
+                for (final Callback<T> callback : drainRefreshCallbacks()) {
+                    callback.onSuccess(fetchedValue);
+                }
+
+                fetchAgainIfPending();
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                isFetching = false;
+
+                if (value == null) {
+                    for (final Callback<T> subscriber : new ArrayList<>(subscribers)) {
+                        subscriber.onError(errorMessage);
+                    }
+                }
+
+                for (final Callback<T> callback : drainRefreshCallbacks()) {
+                    callback.onError(errorMessage);
+                }
+
+                fetchAgainIfPending();
+            }
+        });
+    }
+
+    private void fetchAgainIfPending() {
+        if (isFetchPending && !isFetching) {
+            isFetchPending = false;
+            requestFetch();
+        }
+    }
+
+    @NonNull
+    private List<Callback<T>> drainRefreshCallbacks() {
+        final List<Callback<T>> result = new ArrayList<>(refreshCallbacks);
+        refreshCallbacks.clear();
+        return result;
+    }
+
+}
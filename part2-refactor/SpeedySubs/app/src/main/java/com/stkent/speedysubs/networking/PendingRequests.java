@@ -0,0 +1,32 @@
+package com.stkent.speedysubs.networking;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the requests started by a single screen so they can all be cancelled when that screen
+ * goes away (in {@code onDestroyView} for fragments and presenters, and in {@code onCleared} for
+ * view models).
+ */
+@MainThread
+public final class PendingRequests {
+
+    @NonNull
+    private final List<Cancellable> requests = new ArrayList<>();
+
+    public void add(@NonNull final Cancellable request) {
+        requests.add(request);
+    }
+
+    public void cancelAll() {
+        for (final Cancellable request : requests) {
+            request.cancel();
+        }
+
+        requests.clear();
+    }
+
+}
@@ -0,0 +1,593 @@
+package com.stkent.speedysubs.networking;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * The eventual result of an asynchronous operation: a value, or an error message like the one
+ * passed to {@link Callback#onError}. Promises can be transformed, chained and combined, so that
+ * a sequence of requests reads top to bottom instead of as nested callbacks.
+ *
+ * <p>Continuations run on whichever thread completes the promise they depend on, unless an
+ * {@link Executor} is given for them. A chain built from {@code OrderingApi} results therefore
+ * runs entirely on its callback executor, with no more thread hops than the equivalent nested
+ * callbacks.
+ *
+ * <p>Cancelling a promise cancels the operation behind it and means no further callbacks are
+ * invoked for it. A promise that others were derived from is only cancelled along with them once
+ * all of them have been, so several promises can share one source. Thread-safe.
+ */
+public final class Promise<T> implements Cancellable {
+
+    public interface Operation<T> {
+
+        /**
+         * Starts the operation, which reports its outcome to {@code callback} exactly once.
+         *
+         * @return a handle that stops the operation.
+         */
+        @NonNull
+        Cancellable start(@NonNull Callback<T> callback);
+
+    }
+
+    public interface Function<T, R> {
+
+        @NonNull
+        R apply(@NonNull T value);
+
+    }
+
+    public interface AsyncFunction<T, R> {
+
+        @NonNull
+        Promise<R> apply(@NonNull T value);
+
+    }
+
+    public interface Combiner<A, B, R> {
+
+        @NonNull
+        R combine(@NonNull A first, @NonNull B second);
+
+    }
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    /**
+     * Adapts a {@link Callback}-based call, e.g. one of {@code OrderingApi}'s, which is started
+     * immediately.
+     */
+    @NonNull
+    public static <T> Promise<T> from(@NonNull final Operation<T> operation) {
+        final Promise<T> result = new Promise<>();
+        result.setUpstream(operation.start(result.completer()));
+        return result;
+    }
+
+    @NonNull
+    public static <T> Promise<T> succeeded(@NonNull final T value) {
+        final Promise<T> result = new Promise<>();
+        result.complete(SUCCEEDED, value, null);
+        return result;
+    }
+
+    @NonNull
+    public static <T> Promise<T> failed(@NonNull final String errorMessage) {
+        final Promise<T> result = new Promise<>();
+        result.complete(FAILED, null, errorMessage);
+        return result;
+    }
+
+    /**
+     * @return a promise of every value of {@code promises}, in the same order, which fails as
+     * soon as any of them fails. The others are then cancelled, unless other promises still
+     * depend on them.
+     */
+    @NonNull
+    public static <T> Promise<List<T>> allOf(@NonNull final List<Promise<T>> promises) {
+        final Promise<List<T>> result = new Promise<>();
+
+        if (promises.isEmpty()) {
+            result.complete(SUCCEEDED, new ArrayList<T>(), null);
+            return result;
+        }
+
+        final Object[] values = new Object[promises.size()];
+        final AtomicInteger remainingCount = new AtomicInteger(promises.size());
+        final List<Cancellable> dependents = new ArrayList<>(promises.size());
+
+        for (int i = 0; i < promises.size(); i++) {
+            final int index = i;
+
+            dependents.add(promises.get(i).addDependent(new Callback<T>() {
+                @Override
+                public void onSuccess(@NonNull final T value) {
+                    values[index] = value;
+
+                    // The atomic decrement publishes this write to the thread that sees zero.
+                    if (remainingCount.decrementAndGet() == 0) {
+                        @SuppressWarnings("unchecked")
+                        final List<T> allValues = (List<T>) Arrays.asList(values);
+                        result.complete(SUCCEEDED, allValues, null);
+                    }
+                }
+
+                @Override
+                public void onError(@NonNull final String errorMessage) {
+                    result.failAndCancelUpstream(errorMessage);
+                }
+            }, null));
+        }
+
+        final Cancellable releaseAll = new Cancellable() {
+            @Override
+            public void cancel() {
+                for (final Cancellable dependent : dependents) {
+                    dependent.cancel();
+                }
+            }
+        };
+
+        result.setUpstream(releaseAll);
+
+        // A promise that failed while the others were being attached found no upstream to
+        // cancel.
+        if (!result.isPending()) {
+            releaseAll.cancel();
+        }
+
+        return result;
+    }
+
+    private final Object lock = new Object();
+
+    private int state = PENDING;
+
+    @Nullable
+    private T value;
+
+    @Nullable
+    private String errorMessage;
+
+    /**
+     * Null once this promise has completed or been cancelled.
+     */
+    @Nullable
+    private List<Listener<T>> listeners = new ArrayList<>(1);
+
+    @Nullable
+    private Cancellable upstream;
+
+    /**
+     * How many promises derived from this one have not been cancelled.
+     */
+    private int dependentCount;
+
+    private Promise() {
+        // Created only through the factory methods and operators.
+    }
+
+    /**
+     * Delivers the outcome to {@code callback} on the thread that completes this promise, or on
+     * the calling thread if it has already completed.
+     *
+     * @return a handle that detaches {@code callback} without cancelling this promise.
+     */
+    @NonNull
+    public Cancellable then(@NonNull final Callback<T> callback) {
+        return addListener(callback, null);
+    }
+
+    /**
+     * Delivers the outcome to {@code callback} via {@code executor}.
+     *
+     * @return a handle that detaches {@code callback} without cancelling this promise.
+     */
+    @NonNull
+    public Cancellable then(@NonNull final Callback<T> callback, @NonNull final Executor executor) {
+        return addListener(callback, executor);
+    }
+
+    @NonNull
+    public <R> Promise<R> map(@NonNull final Function<T, R> function) {
+        return map(function, null);
+    }
+
+    /**
+     * @param executor runs {@code function}, or null to run it on the thread that completes
+     *                 this promise.
+     */
+    @NonNull
+    public <R> Promise<R> map(
+            @NonNull final Function<T, R> function,
+            @Nullable final Executor executor) {
+
+        final Promise<R> result = new Promise<>();
+
+        result.setUpstream(addDependent(new Callback<T>() {
+            @Override
+            public void onSuccess(@NonNull final T value) {
+                final R mappedValue;
+
+                try {
+                    mappedValue = function.apply(value);
+                } catch (final RuntimeException e) {
+                    result.complete(FAILED, null, getErrorMessage(e));
+                    return;
+                }
+
+                result.complete(SUCCEEDED, mappedValue, null);
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                result.complete(FAILED, null, errorMessage);
+            }
+        }, executor));
+
+        return result;
+    }
+
+    @NonNull
+    public <R> Promise<R> flatMap(@NonNull final AsyncFunction<T, R> function) {
+        return flatMap(function, null);
+    }
+
+    /**
+     * Chains a dependent operation, e.g. placing an order once logged in.
+     *
+     * @param executor runs {@code function}, or null to run it on the thread that completes
+     *                 this promise.
+     */
+    @NonNull
+    public <R> Promise<R> flatMap(
+            @NonNull final AsyncFunction<T, R> function,
+            @Nullable final Executor executor) {
+
+        final Promise<R> result = new Promise<>();
+
+        result.setUpstream(addDependent(new Callback<T>() {
+            @Override
+            public void onSuccess(@NonNull final T value) {
+                final Promise<R> next;
+
+                try {
+                    next = function.apply(value);
+                } catch (final RuntimeException e) {
+                    result.complete(FAILED, null, getErrorMessage(e));
+                    return;
+                }
+
+                result.setUpstream(next.addDependent(result.completer(), null));
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                result.complete(FAILED, null, errorMessage);
+            }
+        }, executor));
+
+        return result;
+    }
+
+    /**
+     * Combines this promise with {@code other}, which runs at the same time. Fails as soon as
+     * either fails, and then cancels the other.
+     */
+    @NonNull
+    public <U, R> Promise<R> zip(
+            @NonNull final Promise<U> other,
+            @NonNull final Combiner<T, U, R> combiner) {
+
+        @SuppressWarnings("unchecked")
+        final List<Promise<Object>> both =
+                (List<Promise<Object>>) (List<?>) Arrays.<Promise<?>>asList(this, other);
+
+        return allOf(both).map(new Function<List<Object>, R>() {
+            @NonNull
+            @Override
+            public R apply(@NonNull final List<Object> values) {
+                @SuppressWarnings("unchecked")
+                final T first = (T) values.get(0);
+
+                @SuppressWarnings("unchecked")
+                final U second = (U) values.get(1);
+
+                return combiner.combine(first, second);
+            }
+        });
+    }
+
+    /**
+     * Fails with a timeout error if this promise has not completed within {@code timeoutMs}, and
+     * then cancels this promise unless other promises still depend on it. The timeout error is
+     * delivered on a {@code scheduler} thread.
+     */
+    @NonNull
+    public Promise<T> withTimeout(
+            final long timeoutMs,
+            @NonNull final ScheduledExecutorService scheduler) {
+
+        final Promise<T> result = new Promise<>();
+
+        final ScheduledFuture<?> timeout = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                result.failAndCancelUpstream("Timed out after " + timeoutMs + "ms");
+            }
+        }, timeoutMs, MILLISECONDS);
+
+        final Cancellable dependent = addDependent(new Callback<T>() {
+            @Override
+            public void onSuccess(@NonNull final T value) {
+                timeout.cancel(false);
+                result.complete(SUCCEEDED, value, null);
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                timeout.cancel(false);
+                result.complete(FAILED, null, errorMessage);
+            }
+        }, null);
+
+        result.setUpstream(dependent);
+
+        // A timeout that fired before this promise was attached found no upstream to cancel.
+        if (!result.isPending()) {
+            dependent.cancel();
+        }
+
+        return result;
+    }
+
+    @Override
+    public void cancel() {
+        final Cancellable upstreamToCancel;
+
+        synchronized (lock) {
+            if (state != PENDING) return;
+
+            state = CANCELLED;
+            listeners = null;
+            upstreamToCancel = upstream;
+            upstream = null;
+        }
+
+        if (upstreamToCancel != null) {
+            upstreamToCancel.cancel();
+        }
+    }
+
+    @NonNull
+    private Callback<T> completer() {
+        return new Callback<T>() {
+            @Override
+            public void onSuccess(@NonNull final T value) {
+                complete(SUCCEEDED, value, null);
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                complete(FAILED, null, errorMessage);
+            }
+        };
+    }
+
+    /**
+     * Attaches {@code callback} on behalf of a promise derived from this one. Cancelling the
+     * returned handle detaches it, and also cancels this promise once no other derived promise is
+     * left, so cancelling one of several siblings leaves the rest running.
+     */
+    @NonNull
+    private Cancellable addDependent(
+            @NonNull final Callback<T> callback,
+            @Nullable final Executor executor) {
+
+        synchronized (lock) {
+            dependentCount++;
+        }
+
+        final Cancellable listener = addListener(callback, executor);
+        final AtomicBoolean isReleased = new AtomicBoolean();
+
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                if (!isReleased.compareAndSet(false, true)) return;
+
+                listener.cancel();
+
+                final boolean wasLastDependent;
+
+                synchronized (lock) {
+                    wasLastDependent = --dependentCount == 0;
+                }
+
+                if (wasLastDependent) {
+                    Promise.this.cancel();
+                }
+            }
+        };
+    }
+
+    private boolean isPending() {
+        synchronized (lock) {
+            return state == PENDING;
+        }
+    }
+
+    /**
+     * Cancels {@code newUpstream} straight away if this promise has already been cancelled.
+     */
+    private void setUpstream(@NonNull final Cancellable newUpstream) {
+        synchronized (lock) {
+            if (state == PENDING) {
+                upstream = newUpstream;
+                return;
+            } else if (state != CANCELLED) {
+                return;
+            }
+        }
+
+        newUpstream.cancel();
+    }
+
+    /**
+     * Cancels the upstream before failing, so that by the time listeners hear of the failure the
+     * work behind this promise has been told to stop.
+     */
+    private void failAndCancelUpstream(@NonNull final String errorMessage) {
+        final Cancellable upstreamToCancel;
+
+        synchronized (lock) {
+            if (state != PENDING) return;
+
+            upstreamToCancel = upstream;
+        }
+
+        if (upstreamToCancel != null) {
+            upstreamToCancel.cancel();
+        }
+
+        complete(FAILED, null, errorMessage);
+    }
+
+    /**
+     * @return false if this promise had already completed or been cancelled.
+     */
+    private boolean complete(
+            final int newState,
+            @Nullable final T newValue,
+            @Nullable final String newErrorMessage) {
+
+        final List<Listener<T>> listenersToNotify;
+
+        synchronized (lock) {
+            if (state != PENDING) return false;
+
+            state = newState;
+            value = newValue;
+            errorMessage = newErrorMessage;
+            listenersToNotify = listeners;
+            listeners = null;
+            upstream = null;
+        }
+
+        //noinspection ConstantConditions
+        for (final Listener<T> listener : listenersToNotify) {
+            listener.deliver(newState, newValue, newErrorMessage);
+        }
+
+        return true;
+    }
+
+    @NonNull
+    private static String getErrorMessage(@NonNull final RuntimeException exception) {
+        return exception.getMessage() != null ? exception.getMessage() : exception.toString();
+    }
+
+    @NonNull
+    private Cancellable addListener(
+            @NonNull final Callback<T> callback,
+            @Nullable final Executor executor) {
+
+        final Listener<T> listener = new Listener<>(callback, executor);
+        final int currentState;
+        final T currentValue;
+        final String currentErrorMessage;
+
+        synchronized (lock) {
+            currentState = state;
+            currentValue = value;
+            currentErrorMessage = errorMessage;
+
+            if (currentState == PENDING) {
+                //noinspection ConstantConditions
+                listeners.add(listener);
+            }
+        }
+
+        if (currentState == SUCCEEDED || currentState == FAILED) {
+            listener.deliver(currentState, currentValue, currentErrorMessage);
+        }
+
+        return listener;
+    }
+
+    /**
+     * A callback attached to a promise. Cancelling it only detaches the callback.
+     */
+    private static final class Listener<T> implements Cancellable {
+
+        @Nullable
+        private volatile Callback<T> callback;
+
+        @Nullable
+        private final Executor executor;
+
+        private Listener(@NonNull final Callback<T> callback, @Nullable final Executor executor) {
+            this.callback = callback;
+            this.executor = executor;
+        }
+
+        @Override
+        public void cancel() {
+            callback = null;
+        }
+
+        private void deliver(
+                final int state,
+                @Nullable final T value,
+                @Nullable final String errorMessage) {
+
+            if (executor == null) {
+                run(state, value, errorMessage);
+                return;
+            }
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Listener.this.run(state, value, errorMessage);
+                }
+            });
+        }
+
+        private void run(
+                final int state,
+                @Nullable final T value,
+                @Nullable final String errorMessage) {
+
+            final Callback<T> target = callback;
+            callback = null;
+
+            if (target == null) return;
+
+            if (state == SUCCEEDED) {
+                //noinspection ConstantConditions
+                target.onSuccess(value);
+            } else {
+                //noinspection ConstantConditions
+                target.onError(errorMessage);
+            }
+        }
+
+    }
+
+}
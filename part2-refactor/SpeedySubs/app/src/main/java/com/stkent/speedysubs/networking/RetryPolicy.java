@@ -0,0 +1,60 @@
+package com.stkent.speedysubs.networking;
+
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Decides whether and when to resend a request that failed with a {@link RetryableException}.
+ *
+ * <p>Delays grow exponentially from {@code baseDelayMs} up to {@code maxDelayMs}, and each one
+ * is drawn uniformly from zero to that bound ("full jitter") so that clients which failed
+ * together do not all retry together.
+ */
+public final class RetryPolicy {
+
+    /**
+     * Up to four attempts, waiting at most 250ms, 500ms and 1s between them.
+     */
+    @NonNull
+    public static final RetryPolicy DEFAULT = new RetryPolicy(4, 250, SECONDS.toMillis(2));
+
+    @NonNull
+    public static final RetryPolicy NEVER = new RetryPolicy(1, 0, 0);
+
+    private final int maxAttempts;
+
+    private final long baseDelayMs;
+
+    private final long maxDelayMs;
+
+    public RetryPolicy(final int maxAttempts, final long baseDelayMs, final long maxDelayMs) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * @param attempt the number of attempts made so far, starting at 1.
+     */
+    public boolean shouldRetry(final int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * @param attempt the number of attempts made so far, starting at 1.
+     * @return how long to wait before the next attempt.
+     */
+    public long getDelayMs(final int attempt, @NonNull final Random random) {
+        final int doublings = Math.min(attempt - 1, 30);
+        final long bound = Math.min(maxDelayMs, baseDelayMs << doublings);
+        return (long) (random.nextDouble() * bound);
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.stkent.speedysubs.networking;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Signals a failure that is expected to be temporary (a dropped connection, an overloaded
+ * server), so the same request may succeed if it is sent again.
+ */
+public final class RetryableException extends Exception {
+
+    public RetryableException(@NonNull final String message) {
+        super(message);
+    }
+
+}
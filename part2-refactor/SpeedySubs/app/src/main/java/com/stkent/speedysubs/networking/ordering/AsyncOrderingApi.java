@@ -0,0 +1,165 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.Promise;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.OrderResult;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.networking.ordering.models.Versioned;
+
+import java.util.List;
+
+/**
+ * Every {@link OrderingApi} operation as a {@link Promise}, for flows that combine several
+ * requests. Each call starts its request immediately and behaves exactly like the
+ * {@link Callback} version, including coalescing and retries; results arrive on the same
+ * callback executor.
+ */
+public final class AsyncOrderingApi {
+
+    @Nullable
+    private static AsyncOrderingApi sharedInstance;
+
+    private static final Object SYNC_LOCK = new Object();
+
+    @NonNull
+    public static AsyncOrderingApi getSharedInstance() {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                sharedInstance = new AsyncOrderingApi(OrderingApi.getSharedInstance());
+            }
+
+            return sharedInstance;
+        }
+    }
+
+    @NonNull
+    private final OrderingApi orderingApi;
+
+    public AsyncOrderingApi(@NonNull final OrderingApi orderingApi) {
+        this.orderingApi = orderingApi;
+    }
+
+    @NonNull
+    public Promise<Customer> logIn(@NonNull final String username, @NonNull final String password) {
+        return Promise.from(new Promise.Operation<Customer>() {
+            @NonNull
+            @Override
+            public Cancellable start(@NonNull final Callback<Customer> callback) {
+                return orderingApi.logIn(username, password, callback);
+            }
+        });
+    }
+
+    @NonNull
+    public Promise<List<CreditCard>> getCustomerCreditCards() {
+        return Promise.from(new Promise.Operation<List<CreditCard>>() {
+            @NonNull
+            @Override
+            public Cancellable start(@NonNull final Callback<List<CreditCard>> callback) {
+                return orderingApi.getCustomerCreditCards(callback);
+            }
+        });
+    }
+
+    /**
+     * @see OrderingApi#getCustomerCreditCardsIfModified
+     */
+    @NonNull
+    public Promise<Versioned<List<CreditCard>>> getCustomerCreditCardsIfModified(
+            @Nullable final String knownVersion) {
+
+        return Promise.from(new Promise.Operation<Versioned<List<CreditCard>>>() {
+            @NonNull
+            @Override
+            public Cancellable start(
+                    @NonNull final Callback<Versioned<List<CreditCard>>> callback) {
+
+                return orderingApi.getCustomerCreditCardsIfModified(knownVersion, callback);
+            }
+        });
+    }
+
+    @NonNull
+    public Promise<List<Sandwich>> getSandwiches() {
+        return Promise.from(new Promise.Operation<List<Sandwich>>() {
+            @NonNull
+            @Override
+            public Cancellable start(@NonNull final Callback<List<Sandwich>> callback) {
+                return orderingApi.getSandwiches(callback);
+            }
+        });
+    }
+
+    /**
+     * @see OrderingApi#getSandwichPage
+     */
+    @NonNull
+    public Promise<List<Sandwich>> getSandwichPage(final int offset, final int limit) {
+        return Promise.from(new Promise.Operation<List<Sandwich>>() {
+            @NonNull
+            @Override
+            public Cancellable start(@NonNull final Callback<List<Sandwich>> callback) {
+                return orderingApi.getSandwichPage(offset, limit, callback);
+            }
+        });
+    }
+
+    /**
+     * @see OrderingApi#searchSandwiches
+     */
+    @NonNull
+    public Promise<List<Sandwich>> searchSandwiches(
+            @NonNull final String query,
+            final int limit) {
+
+        return Promise.from(new Promise.Operation<List<Sandwich>>() {
+            @NonNull
+            @Override
+            public Cancellable start(@NonNull final Callback<List<Sandwich>> callback) {
+                return orderingApi.searchSandwiches(query, limit, callback);
+            }
+        });
+    }
+
+    /**
+     * @see OrderingApi#placeOrder
+     */
+    @NonNull
+    public Promise<Integer> placeOrder(
+            @NonNull final Customer customer,
+            @NonNull final Order order) {
+
+        return Promise.from(new Promise.Operation<Integer>() {
+            @NonNull
+            @Override
+            public Cancellable start(@NonNull final Callback<Integer> callback) {
+                return orderingApi.placeOrder(customer, order, callback);
+            }
+        });
+    }
+
+    /**
+     * @see OrderingApi#placeOrders
+     */
+    @NonNull
+    public Promise<List<OrderResult>> placeOrders(
+            @NonNull final Customer customer,
+            @NonNull final List<Order> orders) {
+
+        return Promise.from(new Promise.Operation<List<OrderResult>>() {
+            @NonNull
+            @Override
+            public Cancellable start(@NonNull final Callback<List<OrderResult>> callback) {
+                return orderingApi.placeOrders(customer, orders, callback);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Fetches the customer's credit cards as soon as they log in, while they are still choosing a
+ * sandwich, so that the card screen usually has an up-to-date list by the time it opens.
+ *
+ * <p>Prefetched cards are only kept for {@value #DEFAULT_TTL_MS}ms and are handed out once;
+ * after that, screens fall back to the cards they already have or fetch their own.
+ */
+@MainThread
+public final class CreditCardPrefetcher {
+
+    private static final long DEFAULT_TTL_MS = SECONDS.toMillis(30);
+
+    @Nullable
+    private static CreditCardPrefetcher sharedInstance;
+
+    private static final Object SYNC_LOCK = new Object();
+
+    @NonNull
+    public static CreditCardPrefetcher getSharedInstance() {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                sharedInstance =
+                        new CreditCardPrefetcher(OrderingApi.getSharedInstance(), DEFAULT_TTL_MS);
+            }
+
+            return sharedInstance;
+        }
+    }
+
+    @NonNull
+    private final OrderingApi orderingApi;
+
+    private final long ttlMs;
+
+    @Nullable
+    private Cancellable request;
+
+    @Nullable
+    private Callback<List<CreditCard>> waitingCallback;
+
+    @Nullable
+    private List<CreditCard> prefetchedCreditCards;
+
+    private long prefetchedAtMs;
+
+    public CreditCardPrefetcher(@NonNull final OrderingApi orderingApi, final long ttlMs) {
+        this.orderingApi = orderingApi;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Starts fetching the logged-in customer's cards, discarding anything fetched for a previous
+     * login.
+     */
+    public void prefetch() {
+        clear();
+
+        request = orderingApi.getCustomerCreditCards(new Callback<List<CreditCard>>() {
+            @Override
+            public void onSuccess(@NonNull final List<CreditCard> creditCards) {
+                request = null;
+
+                final Callback<List<CreditCard>> callback = takeWaitingCallback();
+
+                if (callback != null) {
+                    callback.onSuccess(creditCards);
+                } else {
+                    prefetchedCreditCards = creditCards;
+                    prefetchedAtMs = SystemClock.elapsedRealtime();
+                }
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                request = null;
+
+                final Callback<List<CreditCard>> callback = takeWaitingCallback();
+
+                if (callback != null) {
+                    callback.onError(errorMessage);
+                }
+            }
+        });
+    }
+
+    /**
+     * Hands the prefetched cards to {@code callback}: immediately if they have arrived and are
+     * still fresh, or as soon as they arrive if the prefetch is still in flight. Only one caller
+     * can take each prefetch.
+     *
+     * @return a handle that stops {@code callback} from receiving the result, or null if there is
+     * no prefetch to take, in which case {@code callback} is never invoked.
+     */
+    @Nullable
+    public Cancellable take(@NonNull final Callback<List<CreditCard>> callback) {
+        final List<CreditCard> creditCards = prefetchedCreditCards;
+
+        if (creditCards != null) {
+            final boolean isFresh = SystemClock.elapsedRealtime() - prefetchedAtMs < ttlMs;
+            prefetchedCreditCards = null;
+
+            if (!isFresh) return null;
+
+            callback.onSuccess(creditCards);
+
+            return new Cancellable() {
+                @Override
+                public void cancel() {
+                    // The result has already been delivered.
+                }
+            };
+        }
+
+        if (request == null || waitingCallback != null) return null;
+
+        waitingCallback = callback;
+
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                if (waitingCallback == callback) {
+                    waitingCallback = null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Cancels any prefetch in flight and discards any prefetched cards, e.g. when the customer
+     * logs out or fails to log in.
+     */
+    public void clear() {
+        if (request != null) {
+            request.cancel();
+            request = null;
+        }
+
+        waitingCallback = null;
+        prefetchedCreditCards = null;
+    }
+
+    @Nullable
+    private Callback<List<CreditCard>> takeWaitingCallback() {
+        final Callback<List<CreditCard>> result = waitingCallback;
+        waitingCallback = null;
+        return result;
+    }
+
+}
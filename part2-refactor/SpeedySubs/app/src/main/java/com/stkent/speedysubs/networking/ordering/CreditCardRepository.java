@@ -0,0 +1,167 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.ObservableRepository;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Versioned;
+import com.stkent.speedysubs.state.Session;
+
+import java.util.List;
+
+/**
+ * The logged-in customer's credit cards, kept up to date by fetching them again whenever the
+ * backend announces a change while a screen is subscribed. Every change is also stored in the
+ * {@link Session}.
+ *
+ * <p>The cards that come with the login are current, so subscribing never fetches by itself;
+ * {@link #refresh} does, e.g. on pull-to-refresh.
+ *
+ * <p>Fetches are conditional on the version of the last cards fetched, so a refresh that finds
+ * nothing new leaves the current cards, the session and subscribers untouched.
+ */
+@MainThread
+public final class CreditCardRepository extends ObservableRepository<List<CreditCard>> {
+
+    @Nullable
+    private static CreditCardRepository sharedInstance;
+
+    private static final Object SYNC_LOCK = new Object();
+
+    @NonNull
+    public static CreditCardRepository getSharedInstance() {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                sharedInstance = new CreditCardRepository(
+                        OrderingApi.getSharedInstance(),
+                        Session.getSharedInstance());
+            }
+
+            return sharedInstance;
+        }
+    }
+
+    @NonNull
+    private final OrderingApi orderingApi;
+
+    @NonNull
+    private final Session session;
+
+    /**
+     * The version of {@link #versionedCreditCards}. Only sent while those are still the current
+     * cards; cards published from elsewhere, e.g. a prefetch, have no known version.
+     */
+    @Nullable
+    private String knownVersion;
+
+    @Nullable
+    private List<CreditCard> versionedCreditCards;
+
+    public CreditCardRepository(
+            @NonNull final OrderingApi orderingApi,
+            @NonNull final Session session) {
+
+        this.orderingApi = orderingApi;
+        this.session = session;
+    }
+
+    @NonNull
+    @Override
+    protected Cancellable subscribeToChanges(@NonNull final Runnable onChanged) {
+        return orderingApi.subscribeToChanges(OrderingApi.Topic.CREDIT_CARDS, onChanged);
+    }
+
+    @NonNull
+    @Override
+    protected Cancellable fetch(@NonNull final Callback<List<CreditCard>> callback) {
+        final List<CreditCard> currentCreditCards = getValue();
+
+        final String versionToSend =
+                currentCreditCards != null && currentCreditCards == versionedCreditCards
+                        ? knownVersion
+                        : null;
+
+        return orderingApi.getCustomerCreditCardsIfModified(
+                versionToSend,
+                new Callback<Versioned<List<CreditCard>>>() {
+                    @Override
+                    public void onSuccess(@NonNull final Versioned<List<CreditCard>> response) {
+                        final List<CreditCard> creditCards = response.getValue();
+
+                        if (creditCards == null) {
+                            // Cards published while this fetch was in flight are newer still.
+                            // Publishing the current cards again is a no-op.
+                            final List<CreditCard> latestCreditCards = getValue();
+
+                            //noinspection ConstantConditions
+                            callback.onSuccess(latestCreditCards != null
+                                    ? latestCreditCards
+                                    : currentCreditCards);
+
+                            return;
+                        }
+
+                        callback.onSuccess(creditCards);
+
+                        // Unchanged contents under a new version leave the old list in place.
+                        knownVersion = response.getVersion();
+                        versionedCreditCards = getValue();
+                    }
+
+                    @Override
+                    public void onError(@NonNull final String errorMessage) {
+                        callback.onError(errorMessage);
+                    }
+                });
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        knownVersion = null;
+        versionedCreditCards = null;
+    }
+
+    @Override
+    protected boolean isFetchNeededOnSubscribe() {
+        return false;
+    }
+
+    /**
+     * {@link CreditCard#equals} compares ids only, so contents are compared explicitly here.
+     */
+    @Override
+    protected boolean isSameValue(
+            @NonNull final List<CreditCard> first,
+            @NonNull final List<CreditCard> second) {
+
+        if (first.size() != second.size()) return false;
+
+        for (int i = 0; i < first.size(); i++) {
+            if (!first.get(i).hasSameContents(second.get(i))) return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected void onValueChanged(@NonNull final List<CreditCard> creditCards) {
+        session.update(new Session.Update() {
+            @NonNull
+            @Override
+            public Session.Snapshot apply(@NonNull final Session.Snapshot current) {
+                final Customer customer = current.getCustomer();
+
+                return customer != null
+                        ? current.withCustomer(customer.withCreditCards(creditCards))
+                        : current;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * How {@link FakeOrderingBackend} behaves as a server: how long each endpoint takes, how often it
+ * fails, how many requests it can work on at once, and how big its menu is.
+ */
+public final class FakeBackendConfig {
+
+    public enum Endpoint {
+        LOG_IN,
+        GET_CUSTOMER_CREDIT_CARDS,
+        GET_SANDWICHES,
+        GET_SANDWICH_PAGE,
+        SEARCH_SANDWICHES,
+        PLACE_ORDER,
+        PLACE_ORDERS
+    }
+
+    static final int STANDARD_CATALOG_SIZE = 5;
+
+    /**
+     * What the app runs against: every call takes two seconds and nothing fails.
+     */
+    public static final FakeBackendConfig DEFAULT = new Builder()
+            .setLatency(LatencyModel.fixed(SECONDS.toMillis(2)))
+            .build();
+
+    @NonNull
+    private final Map<Endpoint, LatencyModel> latencies;
+
+    @NonNull
+    private final Map<Endpoint, Double> errorRates;
+
+    private final int maxConcurrentRequests;
+
+    private final int catalogSize;
+
+    private FakeBackendConfig(@NonNull final Builder builder) {
+        this.latencies = new EnumMap<>(builder.latencies);
+        this.errorRates = new EnumMap<>(builder.errorRates);
+        this.maxConcurrentRequests = builder.maxConcurrentRequests;
+        this.catalogSize = builder.catalogSize;
+    }
+
+    @NonNull
+    public LatencyModel getLatency(@NonNull final Endpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+
+    public double getErrorRate(@NonNull final Endpoint endpoint) {
+        return errorRates.get(endpoint);
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    /**
+     * Starts from a server that responds instantly, never fails, has no concurrency limit, and
+     * sells the standard {@value #STANDARD_CATALOG_SIZE}-sandwich menu.
+     */
+    public static final class Builder {
+
+        @NonNull
+        private final Map<Endpoint, LatencyModel> latencies = new EnumMap<>(Endpoint.class);
+
+        @NonNull
+        private final Map<Endpoint, Double> errorRates = new EnumMap<>(Endpoint.class);
+
+        private int maxConcurrentRequests = Integer.MAX_VALUE;
+
+        private int catalogSize = STANDARD_CATALOG_SIZE;
+
+        public Builder() {
+            setLatency(LatencyModel.fixed(0));
+            setErrorRate(0);
+        }
+
+        /**
+         * Sets the latency of every endpoint.
+         */
+        @NonNull
+        public Builder setLatency(@NonNull final LatencyModel latency) {
+            for (final Endpoint endpoint : Endpoint.values()) {
+                latencies.put(endpoint, latency);
+            }
+
+            return this;
+        }
+
+        @NonNull
+        public Builder setLatency(
+                @NonNull final Endpoint endpoint,
+                @NonNull final LatencyModel latency) {
+
+            latencies.put(endpoint, latency);
+            return this;
+        }
+
+        /**
+         * Sets the error rate of every endpoint.
+         */
+        @NonNull
+        public Builder setErrorRate(final double errorRate) {
+            for (final Endpoint endpoint : Endpoint.values()) {
+                setErrorRate(endpoint, errorRate);
+            }
+
+            return this;
+        }
+
+        /**
+         * @param errorRate the fraction of requests to {@code endpoint} that fail with a
+         *                  retryable error, between 0 and 1.
+         */
+        @NonNull
+        public Builder setErrorRate(@NonNull final Endpoint endpoint, final double errorRate) {
+            if (errorRate < 0 || errorRate > 1) {
+                throw new IllegalArgumentException("errorRate must be between 0 and 1");
+            }
+
+            errorRates.put(endpoint, errorRate);
+            return this;
+        }
+
+        /**
+         * Requests that arrive while the server is already working on this many wait for one to
+         * finish, so under load their latency includes time spent queueing.
+         */
+        @NonNull
+        public Builder setMaxConcurrentRequests(final int maxConcurrentRequests) {
+            if (maxConcurrentRequests < 1) {
+                throw new IllegalArgumentException("maxConcurrentRequests must be positive");
+            }
+
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * @param catalogSize how many sandwiches are on the menu. Sandwiches beyond the standard
+         *                    menu are generated daily specials, like a large franchise catalog.
+         */
+        @NonNull
+        public Builder setCatalogSize(final int catalogSize) {
+            if (catalogSize < 0) {
+                throw new IllegalArgumentException("catalogSize must not be negative");
+            }
+
+            this.catalogSize = catalogSize;
+            return this;
+        }
+
+        @NonNull
+        public FakeBackendConfig build() {
+            return new FakeBackendConfig(this);
+        }
+
+    }
+
+}
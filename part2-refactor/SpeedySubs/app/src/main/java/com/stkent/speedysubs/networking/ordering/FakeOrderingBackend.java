@@ -0,0 +1,396 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.RetryableException;
+import com.stkent.speedysubs.networking.ordering.FakeBackendConfig.Endpoint;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.OrderResult;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.networking.ordering.models.Versioned;
+
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The in-process stand-in for the ordering server. It decides what each request returns and, per
+ * its {@link FakeBackendConfig}, how long the server takes to answer; {@link OrderingApi} adds
+ * the network around it (waiting out that latency, threading, retries).
+ *
+ * <p>Like a real payments backend, it remembers the idempotency key of every order it has
+ * accepted and answers a repeat of that key with the original confirmation number instead of
+ * placing a second order.
+ *
+ * <p>It also pushes a notification to its change listeners whenever the menu or the customer's
+ * credit cards change, as a server would over a long-lived connection.
+ */
+final class FakeOrderingBackend {
+
+    private static final String[] STANDARD_SANDWICH_NAMES =
+            {"BLT", "Italian", "Veggie", "Philly Cheesesteak", "Everything"};
+
+    @NonNull
+    private final Random random;
+
+    @NonNull
+    private final FakeBackendConfig config;
+
+    /**
+     * When each of the server's request slots next becomes free, in {@link System#nanoTime()}
+     * milliseconds; null if concurrency is unlimited. Guarded by itself.
+     */
+    @Nullable
+    private final PriorityQueue<Long> serverSlotFreeTimesMs;
+
+    /**
+     * Guarded by itself.
+     */
+    @NonNull
+    private final Map<String, Integer> confirmationNumbersByKey = new HashMap<>();
+
+    @NonNull
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The customer's cards and their version, replaced together so that readers never see one
+     * without the other.
+     */
+    @NonNull
+    private volatile Versioned<List<CreditCard>> customerCreditCards =
+            Versioned.<List<CreditCard>>modified("cards-1", new ArrayList<CreditCard>() {{
+                add(new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31)));
+                add(new CreditCard(2, "Visa 2222", LocalDate.of(2018, 7, 31)));
+                add(new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
+                add(new CreditCard(4, "Visa 4444", LocalDate.of(2019, 5, 31)));
+            }});
+
+    /**
+     * Guarded by this backend's lock.
+     */
+    private int creditCardsVersionNumber = 1;
+
+    /**
+     * Built on the first search, since the catalog never changes. Guarded by this backend's lock.
+     */
+    @Nullable
+    private SandwichSearchIndex catalogSearchIndex;
+
+    /**
+     * The last search, which the next one narrows down if its query extends this one's, as it
+     * does while a customer types. Guarded by this backend's lock.
+     */
+    @Nullable
+    private SandwichSearchIndex.Result lastSearchResult;
+
+    /**
+     * Creates a backend that responds instantly.
+     *
+     * @param transientFailureRate the fraction of requests that fail with a
+     *                             {@link RetryableException}.
+     */
+    FakeOrderingBackend(@NonNull final Random random, final double transientFailureRate) {
+        this(random, new FakeBackendConfig.Builder().setErrorRate(transientFailureRate).build());
+    }
+
+    /**
+     * Requests fail with a {@link RetryableException} at each endpoint's configured error rate.
+     * Half of the failed orders are placed anyway, as if only the response had been lost.
+     *
+     * @param random shared by every request thread.
+     */
+    FakeOrderingBackend(@NonNull final Random random, @NonNull final FakeBackendConfig config) {
+        this.random = random;
+        this.config = config;
+
+        final int maxConcurrentRequests = config.getMaxConcurrentRequests();
+
+        if (maxConcurrentRequests == Integer.MAX_VALUE) {
+            serverSlotFreeTimesMs = null;
+        } else {
+            serverSlotFreeTimesMs = new PriorityQueue<>(maxConcurrentRequests);
+
+            for (int i = 0; i < maxConcurrentRequests; i++) {
+                serverSlotFreeTimesMs.add(Long.MIN_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Books the server for a request to {@code endpoint} that will arrive after
+     * {@code sendDelayMs}. The request takes a sample of the endpoint's latency once it starts,
+     * and starts as soon as a request slot is free, so a saturated server adds queueing time.
+     *
+     * @return how long from now until the response is ready.
+     */
+    long getResponseDelayMs(@NonNull final Endpoint endpoint, final long sendDelayMs) {
+        final long processingMs = Math.max(0, config.getLatency(endpoint).sampleDelayMs(random));
+
+        if (serverSlotFreeTimesMs == null) {
+            return sendDelayMs + processingMs;
+        }
+
+        final long nowMs = NANOSECONDS.toMillis(System.nanoTime());
+        final long arrivalMs = nowMs + sendDelayMs;
+
+        synchronized (serverSlotFreeTimesMs) {
+            final long startMs = Math.max(arrivalMs, serverSlotFreeTimesMs.remove());
+            serverSlotFreeTimesMs.add(startMs + processingMs);
+            return startMs + processingMs - nowMs;
+        }
+    }
+
+    @NonNull
+    Customer logIn(
+            @NonNull final String username,
+            @NonNull final String password) throws RetryableException {
+
+        maybeFail(Endpoint.LOG_IN);
+
+        final List<CreditCard> creditCards = new ArrayList<CreditCard>() {{
+            add(new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31)));
+            add(new CreditCard(2, "Visa 2222", LocalDate.of(2018, 7, 31)));
+            add(new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
+        }};
+
+        return new Customer(UUID.randomUUID().toString(), creditCards);
+    }
+
+    @NonNull
+    List<CreditCard> getCustomerCreditCards() throws RetryableException {
+        maybeFail(Endpoint.GET_CUSTOMER_CREDIT_CARDS);
+
+        //noinspection ConstantConditions
+        return new ArrayList<>(customerCreditCards.getValue());
+    }
+
+    /**
+     * Answers like an HTTP conditional GET: if {@code knownVersion} is the current version, the
+     * cards are not sent again.
+     */
+    @NonNull
+    Versioned<List<CreditCard>> getCustomerCreditCards(
+            @Nullable final String knownVersion) throws RetryableException {
+
+        maybeFail(Endpoint.GET_CUSTOMER_CREDIT_CARDS);
+
+        final Versioned<List<CreditCard>> current = customerCreditCards;
+
+        if (current.getVersion().equals(knownVersion)) {
+            return Versioned.notModified(current.getVersion());
+        }
+
+        //noinspection ConstantConditions
+        return Versioned.<List<CreditCard>>modified(
+                current.getVersion(),
+                new ArrayList<>(current.getValue()));
+    }
+
+    /**
+     * Replaces the customer's cards under a new version, e.g. as if one had been added on another
+     * device, and notifies listeners of {@link OrderingApi.Topic#CREDIT_CARDS}.
+     */
+    void setCustomerCreditCards(@NonNull final List<CreditCard> creditCards) {
+        synchronized (this) {
+            creditCardsVersionNumber++;
+
+            customerCreditCards = Versioned.<List<CreditCard>>modified(
+                    "cards-" + creditCardsVersionNumber,
+                    new ArrayList<>(creditCards));
+        }
+
+        publishChange(OrderingApi.Topic.CREDIT_CARDS);
+    }
+
+    @NonNull
+    List<Sandwich> getSandwiches() throws RetryableException {
+        maybeFail(Endpoint.GET_SANDWICHES);
+
+        return getCatalogRange(0, config.getCatalogSize());
+    }
+
+    /**
+     * @return up to {@code limit} sandwiches starting at position {@code offset} in the menu. A
+     * page shorter than {@code limit} is the last one.
+     */
+    @NonNull
+    List<Sandwich> getSandwichPage(final int offset, final int limit) throws RetryableException {
+        maybeFail(Endpoint.GET_SANDWICH_PAGE);
+
+        final long end = Math.min((long) offset + limit, config.getCatalogSize());
+        return getCatalogRange(offset, (int) end);
+    }
+
+    /**
+     * Searches the whole menu, as a server would with its own index. A name matches if every word
+     * of {@code query} is the start of some word of the name, ignoring case.
+     *
+     * @return up to {@code limit} matching sandwiches, in menu order.
+     */
+    @NonNull
+    List<Sandwich> searchSandwiches(@NonNull final String query, final int limit)
+            throws RetryableException {
+
+        maybeFail(Endpoint.SEARCH_SANDWICHES);
+
+        synchronized (this) {
+            if (catalogSearchIndex == null) {
+                catalogSearchIndex =
+                        new SandwichSearchIndex(getCatalogRange(0, config.getCatalogSize()));
+            }
+
+            lastSearchResult = catalogSearchIndex.search(query, lastSearchResult);
+            return catalogSearchIndex.getSandwiches(lastSearchResult, limit);
+        }
+    }
+
+    /**
+     * @return the confirmation number of the order with {@code order}'s idempotency key, placing
+     * it first if this is the first time the key has been seen.
+     */
+    int placeOrder(
+            @NonNull final Customer customer,
+            @NonNull final Order order) throws RetryableException {
+
+        final boolean willFail =
+                random.nextDouble() < config.getErrorRate(Endpoint.PLACE_ORDER);
+
+        if (willFail && random.nextBoolean()) {
+            throw new RetryableException("Could not reach the server");
+        }
+
+        final int result = recordOrder(order);
+
+        if (willFail) {
+            throw new RetryableException("Connection lost before the server replied");
+        }
+
+        return result;
+    }
+
+    /**
+     * Places each of {@code orders} that is valid. Orders are deduplicated individually, so
+     * resending a batch only places the orders that were not already placed.
+     */
+    @NonNull
+    List<OrderResult> placeOrders(
+            @NonNull final Customer customer,
+            @NonNull final List<Order> orders) throws RetryableException {
+
+        maybeFail(Endpoint.PLACE_ORDERS);
+
+        final LocalDate today = LocalDate.now();
+        final List<OrderResult> result = new ArrayList<>(orders.size());
+
+        for (final Order order : orders) {
+            result.add(placeBatchedOrder(order, today));
+        }
+
+        return result;
+    }
+
+    /**
+     * Starts calling {@code listener}, on the publishing thread, whenever a topic changes.
+     */
+    void addChangeListener(@NonNull final ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    void removeChangeListener(@NonNull final ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Notifies every listener of {@code topic} that it has changed.
+     */
+    void publishChange(@NonNull final OrderingApi.Topic topic) {
+        for (final ChangeListener listener : changeListeners) {
+            listener.onChanged(topic);
+        }
+    }
+
+    /**
+     * @return the number of distinct orders placed so far.
+     */
+    int getPlacedOrderCount() {
+        synchronized (confirmationNumbersByKey) {
+            return confirmationNumbersByKey.size();
+        }
+    }
+
+    @NonNull
+    private OrderResult placeBatchedOrder(
+            @NonNull final Order order,
+            @NonNull final LocalDate today) {
+
+        final CreditCard creditCard = order.getCreditCard();
+
+        if (order.getSandwich() == null) {
+            return OrderResult.failure(order, "No sandwich selected");
+        } else if (creditCard == null) {
+            return OrderResult.failure(order, "No credit card selected");
+        } else if (!creditCard.getExpirationDate().isAfter(today)) {
+            return OrderResult.failure(order, "Credit card has expired");
+        }
+
+        return OrderResult.success(order, recordOrder(order));
+    }
+
+    /**
+     * Sandwiches are generated on demand, so even a huge catalog costs nothing until it is read.
+     */
+    @NonNull
+    private static List<Sandwich> getCatalogRange(final int start, final int end) {
+        final List<Sandwich> result = new ArrayList<>(Math.max(0, end - start));
+
+        for (int index = start; index < end; index++) {
+            final String name = index < STANDARD_SANDWICH_NAMES.length
+                    ? STANDARD_SANDWICH_NAMES[index]
+                    : "Daily Special #" + (index - STANDARD_SANDWICH_NAMES.length + 1);
+
+            result.add(new Sandwich((index + 1) * 10, name));
+        }
+
+        return result;
+    }
+
+    private int recordOrder(@NonNull final Order order) {
+        synchronized (confirmationNumbersByKey) {
+            final Integer existingConfirmationNumber =
+                    confirmationNumbersByKey.get(order.getIdempotencyKey());
+
+            if (existingConfirmationNumber != null) {
+                return existingConfirmationNumber;
+            }
+
+            final int result = random.nextInt() & Integer.MAX_VALUE;
+            confirmationNumbersByKey.put(order.getIdempotencyKey(), result);
+            return result;
+        }
+    }
+
+    private void maybeFail(@NonNull final Endpoint endpoint) throws RetryableException {
+        if (random.nextDouble() < config.getErrorRate(endpoint)) {
+            throw new RetryableException("Could not reach the server");
+        }
+    }
+
+    interface ChangeListener {
+
+        void onChanged(@NonNull OrderingApi.Topic topic);
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+
+/**
+ * A distribution of server processing times, used by {@link FakeOrderingBackend} to decide how
+ * long each request takes.
+ */
+public abstract class LatencyModel {
+
+    @NonNull
+    public static LatencyModel fixed(final long delayMs) {
+        return new Fixed(delayMs);
+    }
+
+    /**
+     * @return a model whose delays are drawn uniformly between {@code minDelayMs} and
+     * {@code maxDelayMs}, inclusive.
+     */
+    @NonNull
+    public static LatencyModel uniform(final long minDelayMs, final long maxDelayMs) {
+        if (maxDelayMs < minDelayMs) {
+            throw new IllegalArgumentException("maxDelayMs must be at least minDelayMs");
+        }
+
+        return new Uniform(minDelayMs, maxDelayMs);
+    }
+
+    /**
+     * A right-skewed distribution like real network latency: most requests are close to
+     * {@code medianDelayMs}, with a long tail of slow ones. The tail grows quickly with
+     * {@code sigma}; p99 is about {@code medianDelayMs * e^(2.33 * sigma)}, so a sigma of 1 gives
+     * a p99 around ten times the median.
+     */
+    @NonNull
+    public static LatencyModel logNormal(final long medianDelayMs, final double sigma) {
+        if (medianDelayMs <= 0) {
+            throw new IllegalArgumentException("medianDelayMs must be positive");
+        }
+
+        return new LogNormal(medianDelayMs, sigma);
+    }
+
+    private LatencyModel() {
+        // Only the nested models may extend this class.
+    }
+
+    /**
+     * @param random must be safe to share between threads if this model is.
+     */
+    public abstract long sampleDelayMs(@NonNull Random random);
+
+    private static final class Fixed extends LatencyModel {
+
+        private final long delayMs;
+
+        private Fixed(final long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public long sampleDelayMs(@NonNull final Random random) {
+            return delayMs;
+        }
+
+    }
+
+    private static final class Uniform extends LatencyModel {
+
+        private final long minDelayMs;
+        private final long maxDelayMs;
+
+        private Uniform(final long minDelayMs, final long maxDelayMs) {
+            this.minDelayMs = minDelayMs;
+            this.maxDelayMs = maxDelayMs;
+        }
+
+        @Override
+        public long sampleDelayMs(@NonNull final Random random) {
+            return minDelayMs + (long) (random.nextDouble() * (maxDelayMs - minDelayMs + 1));
+        }
+
+    }
+
+    private static final class LogNormal extends LatencyModel {
+
+        private final double mu;
+        private final double sigma;
+
+        private LogNormal(final long medianDelayMs, final double sigma) {
+            this.mu = Math.log(medianDelayMs);
+            this.sigma = sigma;
+        }
+
+        @Override
+        public long sampleDelayMs(@NonNull final Random random) {
+            return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+        }
+
+    }
+
+}
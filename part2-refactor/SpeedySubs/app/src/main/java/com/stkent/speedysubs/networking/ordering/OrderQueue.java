@@ -0,0 +1,369 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.MainThreadExecutor;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.persistence.OrderLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Places orders durably. Every order is written to an {@link OrderLog} before it is sent and
+ * stays there until the backend confirms it, so orders that fail, or that are in flight when the
+ * process dies, are replayed in the background later.
+ *
+ * <p>All log access happens on a single disk thread. Appends made within
+ * {@value #SYNC_BATCH_WINDOW_MS}ms of each other share one fsync, and orders are only sent once
+ * their append has been synced. If the sync fails, the orders waiting on it are not sent: they
+ * are removed from the log and reported as failed, so that nothing is placed without a durable
+ * copy or replayed after the customer was told it failed.
+ */
+public final class OrderQueue {
+
+    private static final String TAG = "OrderQueue";
+    private static final String LOG_FILE_NAME = "order_queue.log";
+    private static final long SYNC_BATCH_WINDOW_MS = 20;
+    private static final long REPLAY_DELAY_MS = SECONDS.toMillis(30);
+
+    @Nullable
+    private static OrderQueue sharedInstance;
+
+    private static final Object SYNC_LOCK = new Object();
+
+    /**
+     * Creates the shared instance. Must be called from {@code Application.onCreate}, before
+     * {@link #getSharedInstance()} is used.
+     */
+    public static void initialize(@NonNull final Context context) {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                sharedInstance = new OrderQueue(
+                        OrderingApi.getSharedInstance(),
+                        new File(context.getFilesDir(), LOG_FILE_NAME),
+                        Executors.newSingleThreadScheduledExecutor(),
+                        new MainThreadExecutor());
+            }
+        }
+    }
+
+    @NonNull
+    public static OrderQueue getSharedInstance() {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                throw new IllegalStateException("OrderQueue.initialize has not been called");
+            }
+
+            return sharedInstance;
+        }
+    }
+
+    @NonNull
+    private final OrderingApi orderingApi;
+
+    @NonNull
+    private final File logFile;
+
+    @NonNull
+    private final ScheduledExecutorService diskExecutor;
+
+    @NonNull
+    private final Executor callbackExecutor;
+
+    // All fields below are only accessed on the disk thread.
+
+    @NonNull
+    private final List<Submission> unsyncedSubmissions = new ArrayList<>();
+
+    @NonNull
+    private final Set<Long> inFlightEntryIds = new HashSet<>();
+
+    @Nullable
+    private OrderLog log;
+
+    private boolean isSyncScheduled;
+
+    private boolean isReplayScheduled;
+
+    /**
+     * @param callbackExecutor reports orders that could not be recorded durably. The outcome of
+     *                         placing an order is reported on {@code orderingApi}'s callback
+     *                         executor, so this should normally be the same.
+     */
+    public OrderQueue(
+            @NonNull final OrderingApi orderingApi,
+            @NonNull final File logFile,
+            @NonNull final ScheduledExecutorService diskExecutor,
+            @NonNull final Executor callbackExecutor) {
+
+        this.orderingApi = orderingApi;
+        this.logFile = logFile;
+        this.diskExecutor = diskExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Durably records {@code order} and then places it. If placing fails, {@code callback} is told
+     * so, but the order stays queued and will be retried in the background.
+     *
+     * @return a handle that detaches {@code callback}. The order itself cannot be cancelled.
+     */
+    @NonNull
+    public Cancellable submit(
+            @NonNull final Customer customer,
+            @NonNull final Order order,
+            @NonNull final Callback<Integer> callback) {
+
+        final Submission submission = new Submission(customer.getId(), order, callback);
+
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    submission.entry = getLog().append(submission.customerId, submission.order);
+                    inFlightEntryIds.add(submission.entry.getId());
+                } catch (final IOException e) {
+                    Log.e(TAG, "Could not record order; placing it without a durable copy", e);
+                    send(submission);
+                    return;
+                }
+
+                unsyncedSubmissions.add(submission);
+                scheduleSync();
+            }
+        });
+
+        return submission;
+    }
+
+    /**
+     * Places every recorded order that the backend has not yet confirmed. Call on app start.
+     */
+    public void replayPending() {
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                isReplayScheduled = false;
+
+                final List<OrderLog.Entry> pendingEntries;
+
+                try {
+                    pendingEntries = getLog().getPendingEntries();
+                } catch (final IOException e) {
+                    Log.e(TAG, "Could not open order log", e);
+                    return;
+                }
+
+                for (final OrderLog.Entry entry : pendingEntries) {
+                    if (inFlightEntryIds.contains(entry.getId())) continue;
+
+                    final Submission submission =
+                            new Submission(entry.getCustomerId(), entry.getOrder(), null);
+
+                    submission.entry = entry;
+                    send(submission);
+                }
+            }
+        });
+    }
+
+    @NonNull
+    private OrderLog getLog() throws IOException {
+        if (log == null) {
+            log = new OrderLog(logFile);
+        }
+
+        return log;
+    }
+
+    private void scheduleSync() {
+        if (isSyncScheduled) return;
+
+        isSyncScheduled = true;
+
+        diskExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                isSyncScheduled = false;
+
+                final List<Submission> submissions = new ArrayList<>(unsyncedSubmissions);
+                unsyncedSubmissions.clear();
+
+                try {
+                    getLog().sync();
+                } catch (final IOException e) {
+                    Log.e(TAG, "Could not sync order log; failing the orders waiting on it", e);
+
+                    for (final Submission submission : submissions) {
+                        discard(submission);
+                    }
+
+                    return;
+                }
+
+                for (final Submission submission : submissions) {
+                    send(submission);
+                }
+            }
+        }, SYNC_BATCH_WINDOW_MS, MILLISECONDS);
+    }
+
+    private void scheduleReplay() {
+        if (isReplayScheduled) return;
+
+        isReplayScheduled = true;
+
+        diskExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                replayPending();
+            }
+        }, REPLAY_DELAY_MS, MILLISECONDS);
+    }
+
+    /**
+     * Must be called on the disk thread.
+     */
+    private void send(@NonNull final Submission submission) {
+        if (submission.entry != null) {
+            inFlightEntryIds.add(submission.entry.getId());
+        }
+
+        orderingApi.placeOrder(
+                new Customer(submission.customerId, new ArrayList<CreditCard>()),
+                submission.order,
+                new Callback<Integer>() {
+                    @Override
+                    public void onSuccess(@NonNull final Integer confirmationNumber) {
+                        onSendComplete(submission, true);
+
+                        final Callback<Integer> callback = submission.release();
+
+                        if (callback != null) {
+                            callback.onSuccess(confirmationNumber);
+                        }
+                    }
+
+                    @Override
+                    public void onError(@NonNull final String errorMessage) {
+                        onSendComplete(submission, false);
+
+                        final Callback<Integer> callback = submission.release();
+
+                        if (callback != null) {
+                            callback.onError(errorMessage);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Must be called on the disk thread.
+     */
+    private void discard(@NonNull final Submission submission) {
+        if (submission.entry != null) {
+            inFlightEntryIds.remove(submission.entry.getId());
+
+            try {
+                getLog().acknowledge(submission.entry.getId());
+            } catch (final IOException e) {
+                Log.e(TAG, "Could not remove unsynced order", e);
+            }
+        }
+
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Callback<Integer> callback = submission.release();
+
+                if (callback != null) {
+                    callback.onError("Could not save order");
+                }
+            }
+        });
+    }
+
+    private void onSendComplete(@NonNull final Submission submission, final boolean succeeded) {
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (submission.entry != null) {
+                    inFlightEntryIds.remove(submission.entry.getId());
+                }
+
+                if (!succeeded) {
+                    scheduleReplay();
+                    return;
+                }
+
+                if (submission.entry != null) {
+                    try {
+                        getLog().acknowledge(submission.entry.getId());
+                    } catch (final IOException e) {
+                        Log.e(TAG, "Could not acknowledge order", e);
+                    }
+                }
+
+                // The backend is reachable again, so flush anything left over from earlier.
+                replayPending();
+            }
+        });
+    }
+
+    private static final class Submission implements Cancellable {
+
+        @NonNull
+        private final String customerId;
+
+        @NonNull
+        private final Order order;
+
+        @Nullable
+        private volatile Callback<Integer> callback;
+
+        @Nullable
+        private OrderLog.Entry entry;
+
+        private Submission(
+                @NonNull final String customerId,
+                @NonNull final Order order,
+                @Nullable final Callback<Integer> callback) {
+
+            this.customerId = customerId;
+            this.order = order;
+            this.callback = callback;
+        }
+
+        @Override
+        public void cancel() {
+            callback = null;
+        }
+
+        @Nullable
+        private Callback<Integer> release() {
+            final Callback<Integer> result = callback;
+            callback = null;
+            return result;
+        }
+
+    }
+
+}
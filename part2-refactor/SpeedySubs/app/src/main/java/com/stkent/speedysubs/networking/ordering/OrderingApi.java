@@ -1,89 +1,837 @@
 package com.stkent.speedysubs.networking.ordering;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 
+import com.stkent.speedysubs.metrics.EndpointMetrics;
+import com.stkent.speedysubs.metrics.LogcatMetricsExporter;
+import com.stkent.speedysubs.metrics.MetricsExporter;
 import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.MainThreadExecutor;
+import com.stkent.speedysubs.networking.RetryPolicy;
+import com.stkent.speedysubs.networking.RetryableException;
+import com.stkent.speedysubs.networking.ordering.FakeBackendConfig.Endpoint;
 import com.stkent.speedysubs.networking.ordering.models.CreditCard;
 import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.ModelRegistry;
 import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.OrderResult;
 import com.stkent.speedysubs.networking.ordering.models.Sandwich;
-
-import org.threeten.bp.LocalDate;
+import com.stkent.speedysubs.networking.ordering.models.Versioned;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 public final class OrderingApi {
 
-    public void logIn(
+    /**
+     * Data that the backend announces changes to, so that clients can fetch it again only when
+     * it has actually changed.
+     */
+    public enum Topic {
+        MENU,
+        CREDIT_CARDS
+    }
+
+    private static final long METRICS_EXPORT_PERIOD_MS = MINUTES.toMillis(1);
+    private static final int WORKER_THREAD_COUNT = 4;
+    private static final int MAX_ORDERS_PER_BATCH = 100;
+
+    @Nullable
+    private static OrderingApi sharedInstance;
+
+    private static final Object SYNC_LOCK = new Object();
+
+    @NonNull
+    public static OrderingApi getSharedInstance() {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                sharedInstance = new OrderingApi(
+                        Executors.newScheduledThreadPool(
+                                WORKER_THREAD_COUNT,
+                                new WorkerThreadFactory()),
+                        new MainThreadExecutor());
+
+                sharedInstance.startMetricsExport(
+                        new LogcatMetricsExporter(),
+                        METRICS_EXPORT_PERIOD_MS);
+            }
+
+            return sharedInstance;
+        }
+    }
+
+    @NonNull
+    private final ScheduledExecutorService workExecutor;
+
+    @NonNull
+    private final Executor callbackExecutor;
+
+    @NonNull
+    private final FakeOrderingBackend backend;
+
+    @NonNull
+    private final RetryPolicy retryPolicy;
+
+    @NonNull
+    private final ModelRegistry modelRegistry = ModelRegistry.getSharedInstance();
+
+    @NonNull
+    private final Random random = new Random();
+
+    @NonNull
+    private final Map<String, InFlightRequest<?>> inFlightRequests = new HashMap<>();
+
+    @NonNull
+    private final AtomicLong requestCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong coalescedRequestCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong retryCount = new AtomicLong();
+
+    @NonNull
+    private final EndpointMetrics logInMetrics = new EndpointMetrics("logIn");
+
+    @NonNull
+    private final EndpointMetrics getCustomerCreditCardsMetrics =
+            new EndpointMetrics("getCustomerCreditCards");
+
+    @NonNull
+    private final EndpointMetrics getSandwichesMetrics = new EndpointMetrics("getSandwiches");
+
+    @NonNull
+    private final EndpointMetrics getSandwichPageMetrics = new EndpointMetrics("getSandwichPage");
+
+    @NonNull
+    private final EndpointMetrics searchSandwichesMetrics =
+            new EndpointMetrics("searchSandwiches");
+
+    @NonNull
+    private final EndpointMetrics placeOrderMetrics = new EndpointMetrics("placeOrder");
+
+    /**
+     * Counts each batch of a {@link #placeOrders} call separately.
+     */
+    @NonNull
+    private final EndpointMetrics placeOrdersMetrics = new EndpointMetrics("placeOrders");
+
+    @NonNull
+    private final List<EndpointMetrics> allEndpointMetrics = Arrays.asList(
+            logInMetrics,
+            getCustomerCreditCardsMetrics,
+            getSandwichesMetrics,
+            getSandwichPageMetrics,
+            searchSandwichesMetrics,
+            placeOrderMetrics,
+            placeOrdersMetrics);
+
+    /**
+     * @param workExecutor     runs all request work, off the main thread.
+     * @param callbackExecutor delivers results to {@link Callback}s; the shared instance uses the
+     *                         main thread.
+     */
+    public OrderingApi(
+            @NonNull final ScheduledExecutorService workExecutor,
+            @NonNull final Executor callbackExecutor) {
+
+        this(
+                workExecutor,
+                callbackExecutor,
+                new FakeOrderingBackend(new Random(), FakeBackendConfig.DEFAULT),
+                RetryPolicy.DEFAULT);
+    }
+
+    @VisibleForTesting
+    OrderingApi(
+            @NonNull final ScheduledExecutorService workExecutor,
+            @NonNull final Executor callbackExecutor,
+            @NonNull final FakeOrderingBackend backend,
+            @NonNull final RetryPolicy retryPolicy) {
+
+        this.workExecutor = workExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.backend = backend;
+        this.retryPolicy = retryPolicy;
+    }
+
+    @NonNull
+    public Cancellable logIn(
             @NonNull final String username,
             @NonNull final String password,
             @NonNull final Callback<Customer> callback) {
 
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+        // Not coalesced: a key built from the credentials would copy the password into the shared
+        // in-flight map, and logins are too rare for sharing them to save much.
+        return enqueue(logInMetrics, Endpoint.LOG_IN, null, new Callable<Customer>() {
+            @Override
+            public Customer call() throws RetryableException {
+                return modelRegistry.intern(backend.logIn(username, password));
+            }
+        }, callback);
+    }
+
+    @NonNull
+    public Cancellable getCustomerCreditCards(@NonNull final Callback<List<CreditCard>> callback) {
+        final String key = "getCustomerCreditCards";
+
+        return enqueue(
+                getCustomerCreditCardsMetrics,
+                Endpoint.GET_CUSTOMER_CREDIT_CARDS,
+                key,
+                new Callable<List<CreditCard>>() {
+                    @Override
+                    public List<CreditCard> call() throws RetryableException {
+                        return modelRegistry.internCreditCards(
+                                backend.getCustomerCreditCards());
+                    }
+                },
+                callback);
+    }
+
+    /**
+     * Fetches the customer's cards only if they have changed since {@code knownVersion}, so that
+     * a refresh that finds nothing new costs no card decoding. Replies that were not modified are
+     * counted in {@link EndpointMetrics.Snapshot#getNotModifiedCount()}.
+     *
+     * @param knownVersion the version of the cards the caller already has, or null to fetch them
+     *                     unconditionally.
+     */
+    @NonNull
+    public Cancellable getCustomerCreditCardsIfModified(
+            @Nullable final String knownVersion,
+            @NonNull final Callback<Versioned<List<CreditCard>>> callback) {
+
+        final String key = "getCustomerCreditCardsIfModified/" + knownVersion;
+
+        return enqueue(
+                getCustomerCreditCardsMetrics,
+                Endpoint.GET_CUSTOMER_CREDIT_CARDS,
+                key,
+                new Callable<Versioned<List<CreditCard>>>() {
+                    @Override
+                    public Versioned<List<CreditCard>> call() throws RetryableException {
+                        final Versioned<List<CreditCard>> response =
+                                backend.getCustomerCreditCards(knownVersion);
+
+                        if (response.isNotModified()) {
+                            getCustomerCreditCardsMetrics.recordNotModified();
+                            return response;
+                        }
+
+                        //noinspection ConstantConditions
+                        return Versioned.modified(
+                                response.getVersion(),
+                                modelRegistry.internCreditCards(response.getValue()));
+                    }
+                },
+                callback);
+    }
+
+    @NonNull
+    public Cancellable getSandwiches(@NonNull final Callback<List<Sandwich>> callback) {
+        return enqueue(
+                getSandwichesMetrics,
+                Endpoint.GET_SANDWICHES,
+                "getSandwiches",
+                new Callable<List<Sandwich>>() {
+                    @Override
+                    public List<Sandwich> call() throws RetryableException {
+                        return modelRegistry.internSandwiches(backend.getSandwiches());
+                    }
+                },
+                callback);
+    }
+
+    /**
+     * Fetches one page of the menu, so that a large catalog can be shown before all of it has
+     * arrived, without ever holding all of it.
+     *
+     * @param callback receives up to {@code limit} sandwiches starting at position
+     *                 {@code offset}; a page shorter than {@code limit} is the last one.
+     */
+    @NonNull
+    public Cancellable getSandwichPage(
+            final int offset,
+            final int limit,
+            @NonNull final Callback<List<Sandwich>> callback) {
+
+        final String key = "getSandwichPage/" + offset + "/" + limit;
+
+        return enqueue(
+                getSandwichPageMetrics,
+                Endpoint.GET_SANDWICH_PAGE,
+                key,
+                new Callable<List<Sandwich>>() {
+                    @Override
+                    public List<Sandwich> call() throws RetryableException {
+                        return modelRegistry.internSandwiches(
+                                backend.getSandwichPage(offset, limit));
+                    }
+                },
+                callback);
+    }
+
+    /**
+     * Searches the whole menu on the backend, including the pages that have not been fetched.
+     *
+     * @param callback receives up to {@code limit} sandwiches whose names match {@code query},
+     *                 in menu order.
+     */
+    @NonNull
+    public Cancellable searchSandwiches(
+            @NonNull final String query,
+            final int limit,
+            @NonNull final Callback<List<Sandwich>> callback) {
+
+        final String key = "searchSandwiches/" + limit + "/" + query;
+
+        return enqueue(
+                searchSandwichesMetrics,
+                Endpoint.SEARCH_SANDWICHES,
+                key,
+                new Callable<List<Sandwich>>() {
+                    @Override
+                    public List<Sandwich> call() throws RetryableException {
+                        return modelRegistry.internSandwiches(
+                                backend.searchSandwiches(query, limit));
+                    }
+                },
+                callback);
+    }
+
+    /**
+     * Places {@code order}. Placing the same {@link Order} instance (or a copy with the same
+     * idempotency key) again, whether concurrently or later, never creates a second order: every
+     * attempt is answered with the original confirmation number.
+     */
+    @NonNull
+    public Cancellable placeOrder(
+            @NonNull final Customer customer,
+            @NonNull final Order order,
+            @NonNull final Callback<Integer> callback) {
+
+        final String key = "placeOrder/" + order.getIdempotencyKey();
+
+        return enqueue(placeOrderMetrics, Endpoint.PLACE_ORDER, key, new Callable<Integer>() {
+            @Override
+            public Integer call() throws RetryableException {
+                return backend.placeOrder(customer, order);
+            }
+        }, callback);
+    }
+
+    /**
+     * Places many orders at once. Orders are sent in batches of up to
+     * {@value #MAX_ORDERS_PER_BATCH}, all in parallel, so even a large group order costs about
+     * one round trip. Each order succeeds or fails independently; if a whole batch fails, every
+     * order in it is reported as failed with that batch's error.
+     *
+     * @param callback receives one result per order, in the same order as {@code orders}.
+     */
+    @NonNull
+    public Cancellable placeOrders(
+            @NonNull final Customer customer,
+            @NonNull final List<Order> orders,
+            @NonNull final Callback<List<OrderResult>> callback) {
+
+        final int batchCount = (orders.size() + MAX_ORDERS_PER_BATCH - 1) / MAX_ORDERS_PER_BATCH;
+        final OrderResult[] results = new OrderResult[orders.size()];
+        final AtomicInteger remainingBatchCount = new AtomicInteger(batchCount);
+        final List<Cancellable> batchRequests = new ArrayList<>(batchCount);
+
+        if (batchCount == 0) {
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onSuccess(new ArrayList<OrderResult>());
+                }
+            });
+        }
+
+        for (int batchStart = 0; batchStart < orders.size(); batchStart += MAX_ORDERS_PER_BATCH) {
+            final int offset = batchStart;
+            final List<Order> batch = orders.subList(
+                    batchStart,
+                    Math.min(batchStart + MAX_ORDERS_PER_BATCH, orders.size()));
+
+            final Callable<List<OrderResult>> request = new Callable<List<OrderResult>>() {
+                @Override
+                public List<OrderResult> call() throws RetryableException {
+                    return backend.placeOrders(customer, batch);
+                }
+            };
+
+            final Callback<List<OrderResult>> batchCallback = new Callback<List<OrderResult>>() {
+                @Override
+                public void onSuccess(@NonNull final List<OrderResult> batchResults) {
+                    for (int i = 0; i < batchResults.size(); i++) {
+                        results[offset + i] = batchResults.get(i);
+                    }
+
+                    onBatchComplete();
+                }
+
+                @Override
+                public void onError(@NonNull final String errorMessage) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        results[offset + i] = OrderResult.failure(batch.get(i), errorMessage);
+                    }
+
+                    onBatchComplete();
+                }
+
+                private void onBatchComplete() {
+                    // The atomic decrement publishes this batch's writes to results to whichever
+                    // thread completes the final batch.
+                    if (remainingBatchCount.decrementAndGet() == 0) {
+                        final List<OrderResult> allResults = new ArrayList<>(results.length);
+                        Collections.addAll(allResults, results);
+                        callback.onSuccess(allResults);
+                    }
+                }
+            };
+
+            batchRequests.add(enqueue(
+                    placeOrdersMetrics,
+                    Endpoint.PLACE_ORDERS,
+                    null,
+                    request,
+                    batchCallback));
+        }
+
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                for (final Cancellable batchRequest : batchRequests) {
+                    batchRequest.cancel();
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs {@code listener} on the callback executor each time the backend announces that
+     * {@code topic} has changed. Announcements carry no data; listeners fetch what they need.
+     *
+     * @return a handle that stops further announcements reaching {@code listener}.
+     */
+    @NonNull
+    public Cancellable subscribeToChanges(
+            @NonNull final Topic topic,
+            @NonNull final Runnable listener) {
+
+        final AtomicBoolean isSubscribed = new AtomicBoolean(true);
+
+        final FakeOrderingBackend.ChangeListener changeListener =
+                new FakeOrderingBackend.ChangeListener() {
+                    @Override
+                    public void onChanged(@NonNull final Topic changedTopic) {
+                        if (changedTopic != topic) return;
+
+                        callbackExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                // An announcement may already be queued when the caller cancels.
+                                if (isSubscribed.get()) {
+                                    listener.run();
+                                }
+                            }
+                        });
+                    }
+                };
+
+        backend.addChangeListener(changeListener);
+
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                isSubscribed.set(false);
+                backend.removeChangeListener(changeListener);
+            }
+        };
+    }
+
+    /**
+     * @return the total number of requests made through this instance.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of requests that were served by joining an identical request that was
+     * already in flight, rather than by making a new underlying call.
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedRequestCount.get();
+    }
+
+    /**
+     * @return the number of times a request was resent after a retryable failure.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return a snapshot of each endpoint's latency and outcome counts since this instance was
+     * created.
+     */
+    @NonNull
+    public List<EndpointMetrics.Snapshot> getEndpointMetrics() {
+        final List<EndpointMetrics.Snapshot> result = new ArrayList<>(allEndpointMetrics.size());
+
+        for (final EndpointMetrics endpointMetrics : allEndpointMetrics) {
+            result.add(endpointMetrics.snapshot());
+        }
+
+        return result;
+    }
+
+    /**
+     * Hands {@link #getEndpointMetrics()} to {@code exporter} every {@code periodMs}, on the work
+     * executor. Periods in which no calls finished are skipped.
+     */
+    public void startMetricsExport(@NonNull final MetricsExporter exporter, final long periodMs) {
+        workExecutor.scheduleAtFixedRate(new Runnable() {
+            private long lastExportedCallCount;
+
             @Override
             public void run() {
-                final List<CreditCard> creditCards = new ArrayList<CreditCard>() {{
-                    add(new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31)));
-                    add(new CreditCard(2, "Visa 2222", LocalDate.of(2018, 7, 31)));
-                    add(new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
-                }};
+                final List<EndpointMetrics.Snapshot> snapshots = getEndpointMetrics();
+                long callCount = 0;
+
+                for (final EndpointMetrics.Snapshot snapshot : snapshots) {
+                    callCount += snapshot.getSuccessCount()
+                            + snapshot.getErrorCount()
+                            + snapshot.getCancellationCount();
+                }
 
-                callback.onSuccess(new Customer(UUID.randomUUID().toString(), creditCards));
+                if (callCount == lastExportedCallCount) return;
+
+                lastExportedCallCount = callCount;
+                exporter.export(snapshots);
             }
-        }, SECONDS.toMillis(2));
+        }, periodMs, periodMs, MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code request} on the work executor once the backend's response to it is ready, then
+     * hands its outcome to {@code callback} via the callback executor. If {@code key} is non-null
+     * and a request with the same key is already in flight, {@code callback} joins that request
+     * instead.
+     *
+     * <p>Every request must be safe to repeat: one that fails with a {@link RetryableException}
+     * is resent as the {@link RetryPolicy} allows, and only the final outcome is delivered.
+     *
+     * <p>Each underlying request's latency and outcome are recorded in {@code endpointMetrics}.
+     * Latency runs from the first caller's enqueue to the final outcome, including retries. A
+     * request whose callers all cancel is recorded only as a cancellation, even if an attempt was
+     * already running.
+     *
+     * @return a handle that detaches {@code callback}; the underlying work is cancelled once no
+     * callbacks remain attached to it.
+     */
+    @NonNull
+    private <T> Cancellable enqueue(
+            @NonNull final EndpointMetrics endpointMetrics,
+            @NonNull final Endpoint endpoint,
+            @Nullable final String key,
+            @NonNull final Callable<T> request,
+            @NonNull final Callback<T> callback) {
+
+        requestCount.incrementAndGet();
+
+        synchronized (inFlightRequests) {
+            if (key != null) {
+                @SuppressWarnings("unchecked")
+                final InFlightRequest<T> existingRequest =
+                        (InFlightRequest<T>) inFlightRequests.get(key);
+
+                if (existingRequest != null) {
+                    coalescedRequestCount.incrementAndGet();
+                    return attach(existingRequest, callback);
+                }
+            }
+
+            final InFlightRequest<T> inFlightRequest =
+                    new InFlightRequest<>(endpointMetrics, endpoint, key);
+            final PendingCall<T> pendingCall = attach(inFlightRequest, callback);
+
+            if (key != null) {
+                inFlightRequests.put(key, inFlightRequest);
+            }
+
+            scheduleAttempt(inFlightRequest, request, 1, 0);
+
+            return pendingCall;
+        }
     }
 
-    public void getCustomerCreditCards(@NonNull final Callback<List<CreditCard>> callback) {
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+    /**
+     * Must be called while holding the {@link #inFlightRequests} lock.
+     *
+     * @param sendDelayMs how long to wait before sending the attempt, e.g. to back off.
+     */
+    private <T> void scheduleAttempt(
+            @NonNull final InFlightRequest<T> inFlightRequest,
+            @NonNull final Callable<T> request,
+            final int attempt,
+            final long sendDelayMs) {
+
+        final long responseDelayMs =
+                backend.getResponseDelayMs(inFlightRequest.endpoint, sendDelayMs);
+
+        inFlightRequest.future = workExecutor.schedule(new Runnable() {
             @Override
             public void run() {
-                final List<CreditCard> creditCards = new ArrayList<CreditCard>() {{
-                    add(new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31)));
-                    add(new CreditCard(2, "Visa 2222", LocalDate.of(2018, 7, 31)));
-                    add(new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
-                    add(new CreditCard(4, "Visa 4444", LocalDate.of(2019, 5, 31)));
-                }};
-
-                callback.onSuccess(creditCards);
+                T result = null;
+                Exception error = null;
+
+                try {
+                    result = request.call();
+                } catch (final RetryableException e) {
+                    if (retryPolicy.shouldRetry(attempt)) {
+                        retry(inFlightRequest, request, attempt);
+                        return;
+                    }
+
+                    error = e;
+                } catch (final Exception e) {
+                    error = e;
+                }
+
+                final List<PendingCall<T>> pendingCalls = complete(inFlightRequest);
+
+                // Every caller cancelled while this attempt ran, and detach recorded that.
+                if (pendingCalls.isEmpty()) return;
+
+                final long latencyNanos = System.nanoTime() - inFlightRequest.startNanos;
+
+                if (error == null) {
+                    inFlightRequest.endpointMetrics.recordSuccess(latencyNanos);
+                    deliverSuccess(pendingCalls, result);
+                } else {
+                    inFlightRequest.endpointMetrics.recordError(latencyNanos);
+                    deliverError(pendingCalls, error);
+                }
             }
-        }, SECONDS.toMillis(2));
+        }, responseDelayMs, MILLISECONDS);
+    }
+
+    private <T> void retry(
+            @NonNull final InFlightRequest<T> inFlightRequest,
+            @NonNull final Callable<T> request,
+            final int attempt) {
+
+        synchronized (inFlightRequests) {
+            // If every caller has cancelled, the request was already removed by detach.
+            if (inFlightRequest.pendingCalls.isEmpty()) return;
+
+            retryCount.incrementAndGet();
+
+            scheduleAttempt(
+                    inFlightRequest,
+                    request,
+                    attempt + 1,
+                    retryPolicy.getDelayMs(attempt, random));
+        }
+    }
+
+    @NonNull
+    private <T> PendingCall<T> attach(
+            @NonNull final InFlightRequest<T> inFlightRequest,
+            @NonNull final Callback<T> callback) {
+
+        final PendingCall<T> result = new PendingCall<>(inFlightRequest, callback);
+        inFlightRequest.pendingCalls.add(result);
+        return result;
+    }
+
+    @NonNull
+    private <T> List<PendingCall<T>> complete(@NonNull final InFlightRequest<T> inFlightRequest) {
+        synchronized (inFlightRequests) {
+            inFlightRequest.isCompleted = true;
+
+            // If every caller cancelled, a newer request may already hold this key.
+            if (inFlightRequest.key != null
+                    && inFlightRequests.get(inFlightRequest.key) == inFlightRequest) {
+
+                inFlightRequests.remove(inFlightRequest.key);
+            }
+
+            return new ArrayList<>(inFlightRequest.pendingCalls);
+        }
     }
 
-    public void getSandwiches(@NonNull final Callback<List<Sandwich>> callback) {
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+    private <T> void detach(
+            @NonNull final InFlightRequest<T> inFlightRequest,
+            @NonNull final PendingCall<T> pendingCall) {
+
+        synchronized (inFlightRequests) {
+            inFlightRequest.pendingCalls.remove(pendingCall);
+
+            if (!inFlightRequest.pendingCalls.isEmpty()) return;
+
+            if (inFlightRequest.key != null
+                    && inFlightRequests.get(inFlightRequest.key) == inFlightRequest) {
+
+                inFlightRequests.remove(inFlightRequest.key);
+            }
+
+            if (inFlightRequest.future != null) {
+                inFlightRequest.future.cancel(false);
+            }
+
+            if (!inFlightRequest.isCompleted) {
+                inFlightRequest.endpointMetrics.recordCancellation();
+            }
+        }
+    }
+
+    private <T> void deliverSuccess(
+            @NonNull final List<PendingCall<T>> pendingCalls,
+            @NonNull final T result) {
+
+        callbackExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                final List<Sandwich> sandwiches = new ArrayList<Sandwich>() {{
-                    add(new Sandwich(10, "BLT"));
-                    add(new Sandwich(20, "Italian"));
-                    add(new Sandwich(30, "Veggie"));
-                    add(new Sandwich(40, "Philly Cheesesteak"));
-                    add(new Sandwich(50, "Everything"));
-                }};
-
-                callback.onSuccess(sandwiches);
+                for (final PendingCall<T> pendingCall : pendingCalls) {
+                    final Callback<T> callback = pendingCall.release();
+
+                    if (callback != null) {
+                        callback.onSuccess(result);
+                    }
+                }
             }
-        }, SECONDS.toMillis(2));
+        });
     }
 
-    public void placeOrder(
-            @NonNull final Customer customer,
-            @NonNull final Order order,
-            @NonNull final Callback<Integer> callback) {
+    private <T> void deliverError(
+            @NonNull final List<PendingCall<T>> pendingCalls,
+            @NonNull final Exception exception) {
+
+        final String errorMessage = exception.getMessage() != null
+                ? exception.getMessage()
+                : "Request failed";
 
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+        callbackExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                callback.onSuccess(new Random().nextInt() & Integer.MAX_VALUE);
+                for (final PendingCall<T> pendingCall : pendingCalls) {
+                    final Callback<T> callback = pendingCall.release();
+
+                    if (callback != null) {
+                        callback.onError(errorMessage);
+                    }
+                }
             }
-        }, SECONDS.toMillis(2));
+        });
+    }
+
+    private static final class InFlightRequest<T> {
+
+        @NonNull
+        private final EndpointMetrics endpointMetrics;
+
+        @NonNull
+        private final Endpoint endpoint;
+
+        @Nullable
+        private final String key;
+
+        private final long startNanos = System.nanoTime();
+
+        @NonNull
+        private final List<PendingCall<T>> pendingCalls = new ArrayList<>();
+
+        @Nullable
+        private ScheduledFuture<?> future;
+
+        // Guarded by the inFlightRequests lock, like pendingCalls.
+        private boolean isCompleted;
+
+        private InFlightRequest(
+                @NonNull final EndpointMetrics endpointMetrics,
+                @NonNull final Endpoint endpoint,
+                @Nullable final String key) {
+
+            this.endpointMetrics = endpointMetrics;
+            this.endpoint = endpoint;
+            this.key = key;
+        }
+
+    }
+
+    private final class PendingCall<T> implements Cancellable {
+
+        @NonNull
+        private final InFlightRequest<T> inFlightRequest;
+
+        /**
+         * Cleared on delivery or cancellation so that a cancelled caller (and anything its
+         * callback captures) can be garbage-collected while the request is still pending.
+         */
+        @Nullable
+        private volatile Callback<T> callback;
+
+        private PendingCall(
+                @NonNull final InFlightRequest<T> inFlightRequest,
+                @NonNull final Callback<T> callback) {
+
+            this.inFlightRequest = inFlightRequest;
+            this.callback = callback;
+        }
+
+        @Override
+        public void cancel() {
+            callback = null;
+            detach(inFlightRequest, this);
+        }
+
+        @Nullable
+        private Callback<T> release() {
+            final Callback<T> result = callback;
+            callback = null;
+            return result;
+        }
+
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            final Thread thread =
+                    new Thread(runnable, "ordering-api-" + threadCount.incrementAndGet());
+
+            thread.setDaemon(true);
+            return thread;
+        }
+
     }
 
 }
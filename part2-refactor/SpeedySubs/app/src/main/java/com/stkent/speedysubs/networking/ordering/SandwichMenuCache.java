@@ -0,0 +1,239 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.ObservableRepository;
+import com.stkent.speedysubs.networking.ordering.models.ModelRegistry;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.persistence.SandwichMenuSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Serves the first page of the sandwich menu from memory and keeps it up to date. While any
+ * screen is subscribed, the page is fetched again from {@link OrderingApi} whenever the backend
+ * announces a menu change; a subscriber that arrives once the page is older than the configured
+ * time-to-live, and so may have missed changes, also triggers a background refresh. The last
+ * fetched page is saved to a {@link SandwichMenuSnapshot} so that a cold start can show it before
+ * the first fetch completes. {@link SandwichPagingSource} loads the rest of the menu as it is
+ * scrolled to.
+ */
+@MainThread
+public final class SandwichMenuCache extends ObservableRepository<List<Sandwich>> {
+
+    private static final String TAG = "SandwichMenuCache";
+    private static final String SNAPSHOT_FILE_NAME = "sandwich_menu.bin";
+    private static final long DEFAULT_TTL_MS = MINUTES.toMillis(5);
+
+    /**
+     * Enough rows to fill a tall screen and leave some to scroll through while the next page
+     * loads.
+     */
+    public static final int PAGE_SIZE = 50;
+
+    @Nullable
+    private static SandwichMenuCache sharedInstance;
+
+    private static final Object SYNC_LOCK = new Object();
+
+    @NonNull
+    public static SandwichMenuCache getSharedInstance(@NonNull final Context context) {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                sharedInstance = new SandwichMenuCache(
+                        OrderingApi.getSharedInstance(),
+                        new SandwichMenuSnapshot(
+                                new File(context.getFilesDir(), SNAPSHOT_FILE_NAME)),
+                        Executors.newSingleThreadExecutor(),
+                        DEFAULT_TTL_MS);
+            }
+
+            return sharedInstance;
+        }
+    }
+
+    @NonNull
+    private final OrderingApi orderingApi;
+
+    @NonNull
+    private final SandwichMenuSnapshot snapshot;
+
+    @NonNull
+    private final Executor diskExecutor;
+
+    private final long ttlMs;
+
+    @NonNull
+    private final AtomicLong hitCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong missCount = new AtomicLong();
+
+    private long cachedAtMs;
+
+    private boolean hasReadSnapshot;
+
+    public SandwichMenuCache(
+            @NonNull final OrderingApi orderingApi,
+            @NonNull final SandwichMenuSnapshot snapshot,
+            @NonNull final Executor diskExecutor,
+            final long ttlMs) {
+
+        this.orderingApi = orderingApi;
+        this.snapshot = snapshot;
+        this.diskExecutor = diskExecutor;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Delivers the cached first page immediately if there is one, then every change to it until
+     * the returned handle is cancelled. A page shorter than {@link #PAGE_SIZE} is the whole menu.
+     * Errors are only reported when nothing was cached.
+     *
+     * <p>On the first call, a page restored from the on-disk snapshot counts as an expired
+     * cached page.
+     */
+    @NonNull
+    @Override
+    public Cancellable subscribe(@NonNull final Callback<List<Sandwich>> subscriber) {
+        if (!hasReadSnapshot) {
+            readSnapshot();
+        }
+
+        if (getValue() == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        return super.subscribe(subscriber);
+    }
+
+    /**
+     * Starts fetching the first page if there is no fresh cached copy, so that a later
+     * {@link #subscribe} call can be answered from memory. Used to load the menu while the
+     * customer is still logging in.
+     */
+    public void prefetch() {
+        if (!hasReadSnapshot) {
+            readSnapshot();
+        }
+
+        if (isFetchNeededOnSubscribe()) {
+            requestFetch();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @NonNull
+    @Override
+    protected Cancellable subscribeToChanges(@NonNull final Runnable onChanged) {
+        return orderingApi.subscribeToChanges(OrderingApi.Topic.MENU, onChanged);
+    }
+
+    @NonNull
+    @Override
+    protected Cancellable fetch(@NonNull final Callback<List<Sandwich>> callback) {
+        return orderingApi.getSandwichPage(0, PAGE_SIZE, new Callback<List<Sandwich>>() {
+            @Override
+            public void onSuccess(@NonNull final List<Sandwich> sandwiches) {
+                cachedAtMs = SystemClock.elapsedRealtime();
+
+                final List<Sandwich> previousSandwiches = getValue();
+
+                if (previousSandwiches == null || !isSameValue(previousSandwiches, sandwiches)) {
+                    writeSnapshot(sandwiches);
+                }
+
+                callback.onSuccess(sandwiches);
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                callback.onError(errorMessage);
+            }
+        });
+    }
+
+    @Override
+    protected boolean isFetchNeededOnSubscribe() {
+        return getValue() == null || SystemClock.elapsedRealtime() - cachedAtMs >= ttlMs;
+    }
+
+    /**
+     * {@link Sandwich#equals} compares ids only, so names are compared explicitly here.
+     */
+    @Override
+    protected boolean isSameValue(
+            @NonNull final List<Sandwich> first,
+            @NonNull final List<Sandwich> second) {
+
+        if (first.size() != second.size()) return false;
+
+        for (int i = 0; i < first.size(); i++) {
+            if (!first.get(i).hasSameContents(second.get(i))) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the snapshot on the calling thread: it is a single small sequential read, and doing it
+     * here is what lets the first frame show a menu.
+     */
+    private void readSnapshot() {
+        hasReadSnapshot = true;
+
+        final List<Sandwich> sandwiches;
+
+        try {
+            sandwiches = snapshot.read();
+        } catch (final IOException e) {
+            // Includes a corrupt snapshot, which is treated like a missing one and overwritten by
+            // the next fetch.
+            Log.w(TAG, "Could not read sandwich menu snapshot", e);
+            return;
+        }
+
+        if (sandwiches == null) return;
+
+        // Interned so that a refresh with an unchanged menu reuses these instances.
+        publish(ModelRegistry.getSharedInstance().internSandwiches(sandwiches));
+        cachedAtMs = SystemClock.elapsedRealtime() - ttlMs;
+    }
+
+    private void writeSnapshot(@NonNull final List<Sandwich> sandwiches) {
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    snapshot.write(sandwiches);
+                } catch (final IOException e) {
+                    Log.w(TAG, "Could not write sandwich menu snapshot", e);
+                }
+            }
+        });
+    }
+
+}
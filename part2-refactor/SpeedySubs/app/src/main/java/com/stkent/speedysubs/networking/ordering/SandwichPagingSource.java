@@ -0,0 +1,243 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Loads the sandwich menu a page at a time as a list scrolls through it. The first page comes
+ * from {@link SandwichMenuCache}, so it is usually shown immediately, and is replaced whenever the
+ * cache pushes a change to it; later pages are fetched when the list scrolls near the end of what
+ * is loaded.
+ *
+ * <p>At most {@code maxPageCount} pages are held at once. Loading a page past that limit drops
+ * the page at the other end of the window, which is fetched again if the list scrolls back to it,
+ * so memory use does not grow with the size of the menu.
+ */
+@MainThread
+public final class SandwichPagingSource {
+
+    public interface Listener {
+
+        /**
+         * @param sandwiches every loaded sandwich, in menu order. Replaces any previous list.
+         */
+        void onSandwichesLoaded(@NonNull List<Sandwich> sandwiches);
+
+        void onError(@NonNull String errorMessage);
+
+    }
+
+    @NonNull
+    private final SandwichMenuCache menuCache;
+
+    @NonNull
+    private final OrderingApi orderingApi;
+
+    private final int maxPageCount;
+
+    /**
+     * Loads are started once the list is scrolled this close to either end of the window.
+     */
+    private final int prefetchDistance;
+
+    @NonNull
+    private final Listener listener;
+
+    @NonNull
+    private final Deque<List<Sandwich>> pages = new ArrayDeque<>();
+
+    /**
+     * The menu position of the first sandwich in {@link #pages}.
+     */
+    private int windowOffset;
+
+    private int windowSize;
+
+    private boolean hasReachedEnd;
+
+    @Nullable
+    private Cancellable firstPageSubscription;
+
+    @Nullable
+    private Cancellable pageRequest;
+
+    public SandwichPagingSource(
+            @NonNull final SandwichMenuCache menuCache,
+            @NonNull final OrderingApi orderingApi,
+            final int maxPageCount,
+            @NonNull final Listener listener) {
+
+        if (maxPageCount < 2) {
+            throw new IllegalArgumentException("maxPageCount must be at least 2");
+        }
+
+        this.menuCache = menuCache;
+        this.orderingApi = orderingApi;
+        this.maxPageCount = maxPageCount;
+        this.prefetchDistance = SandwichMenuCache.PAGE_SIZE / 2;
+        this.listener = listener;
+    }
+
+    /**
+     * Delivers whatever is already loaded, e.g. when the list is shown again after its view was
+     * destroyed, then the first page and every change to it until {@link #stop()}.
+     */
+    public void start() {
+        if (!pages.isEmpty()) {
+            notifyListener();
+        }
+
+        if (firstPageSubscription != null) return;
+
+        firstPageSubscription = menuCache.subscribe(new Callback<List<Sandwich>>() {
+            @Override
+            public void onSuccess(@NonNull final List<Sandwich> sandwiches) {
+                if (pages.isEmpty()) {
+                    pages.add(sandwiches);
+                    windowSize = sandwiches.size();
+                    hasReachedEnd = sandwiches.size() < SandwichMenuCache.PAGE_SIZE;
+                } else if (windowOffset == 0) {
+                    // A changed first page; later pages are left as they are.
+                    windowSize += sandwiches.size() - pages.removeFirst().size();
+                    pages.addFirst(sandwiches);
+                } else {
+                    // The first page has already scrolled out of the window.
+                    return;
+                }
+
+                notifyListener();
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                listener.onError(errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Call whenever the visible rows change. Loads the next or previous page if the list is
+     * near the end of the window; a load that fails is retried on the next call.
+     *
+     * @param firstVisiblePosition the first visible row, counting from the start of the list
+     *                             last passed to the listener.
+     * @param lastVisiblePosition  the last visible row, counted the same way.
+     */
+    public void onVisibleRangeChanged(
+            final int firstVisiblePosition,
+            final int lastVisiblePosition) {
+
+        if (pages.isEmpty() || pageRequest != null) return;
+
+        if (!hasReachedEnd && lastVisiblePosition >= windowSize - prefetchDistance) {
+            loadNextPage();
+        } else if (windowOffset > 0 && firstVisiblePosition < prefetchDistance) {
+            loadPreviousPage();
+        }
+    }
+
+    public void stop() {
+        if (firstPageSubscription != null) {
+            firstPageSubscription.cancel();
+            firstPageSubscription = null;
+        }
+
+        cancelPageRequest();
+    }
+
+    private void loadNextPage() {
+        final int offset = windowOffset + windowSize;
+
+        pageRequest = orderingApi.getSandwichPage(
+                offset,
+                SandwichMenuCache.PAGE_SIZE,
+                new PageCallback() {
+                    @Override
+                    void onPageLoaded(@NonNull final List<Sandwich> sandwiches) {
+                        hasReachedEnd = sandwiches.size() < SandwichMenuCache.PAGE_SIZE;
+
+                        if (sandwiches.isEmpty()) return;
+
+                        pages.addLast(sandwiches);
+                        windowSize += sandwiches.size();
+
+                        if (pages.size() > maxPageCount) {
+                            final List<Sandwich> droppedPage = pages.removeFirst();
+                            windowOffset += droppedPage.size();
+                            windowSize -= droppedPage.size();
+                        }
+
+                        notifyListener();
+                    }
+                });
+    }
+
+    private void loadPreviousPage() {
+        final int offset = Math.max(0, windowOffset - SandwichMenuCache.PAGE_SIZE);
+
+        pageRequest = orderingApi.getSandwichPage(
+                offset,
+                windowOffset - offset,
+                new PageCallback() {
+                    @Override
+                    void onPageLoaded(@NonNull final List<Sandwich> sandwiches) {
+                        pages.addFirst(sandwiches);
+                        windowOffset -= sandwiches.size();
+                        windowSize += sandwiches.size();
+
+                        if (pages.size() > maxPageCount) {
+                            windowSize -= pages.removeLast().size();
+                            hasReachedEnd = false;
+                        }
+
+                        notifyListener();
+                    }
+                });
+    }
+
+    private void cancelPageRequest() {
+        if (pageRequest != null) {
+            pageRequest.cancel();
+            pageRequest = null;
+        }
+    }
+
+    private void notifyListener() {
+        final List<Sandwich> sandwiches = new ArrayList<>(windowSize);
+
+        for (final List<Sandwich> page : pages) {
+            sandwiches.addAll(page);
+        }
+
+        listener.onSandwichesLoaded(sandwiches);
+    }
+
+    private abstract class PageCallback implements Callback<List<Sandwich>> {
+
+        abstract void onPageLoaded(@NonNull List<Sandwich> sandwiches);
+
+        @Override
+        public void onSuccess(@NonNull final List<Sandwich> sandwiches) {
+            pageRequest = null;
+            onPageLoaded(sandwiches);
+        }
+
+        @Override
+        public void onError(@NonNull final String errorMessage) {
+            pageRequest = null;
+            listener.onError(errorMessage);
+        }
+
+    }
+
+}
@@ -0,0 +1,343 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Finds the sandwiches whose names match a search query. A name matches if every word of the
+ * query is the start of some word of the name, ignoring case, so "ph ch" matches "Philly
+ * Cheesesteak".
+ *
+ * <p>The index is built once per menu. Every word of every name goes into one sorted array, so
+ * the sandwiches with a word starting with a given prefix form one contiguous range, found by
+ * binary search. Typing usually extends the previous query, and in that case only the previous
+ * matches are rechecked.
+ *
+ * <p>The fake backend searches its whole catalog with one, and the sandwich screen searches the
+ * pages it has loaded with another until the backend's matches arrive. An index never changes
+ * once built, so it can be searched from any thread.
+ */
+public final class SandwichSearchIndex {
+
+    /**
+     * Roughly how many index entries can be read in the time it takes to scan one name for a
+     * word. Once fewer candidates than this fraction of a prefix's entries remain, their names
+     * are scanned instead.
+     */
+    private static final int NAME_SCAN_COST = 8;
+
+    /**
+     * The sandwiches that matched one query, in menu order.
+     */
+    public static final class Result {
+
+        @NonNull
+        private final String normalizedQuery;
+
+        @NonNull
+        private final int[] positions;
+
+        /**
+         * True for a query with no words, whose matches are not worth narrowing.
+         */
+        private final boolean isUnfiltered;
+
+        private Result(
+                @NonNull final String normalizedQuery,
+                @NonNull final int[] positions,
+                final boolean isUnfiltered) {
+
+            this.normalizedQuery = normalizedQuery;
+            this.positions = positions;
+            this.isUnfiltered = isUnfiltered;
+        }
+
+        public int getCount() {
+            return positions.length;
+        }
+
+    }
+
+    @NonNull
+    private final List<Sandwich> menu;
+
+    /**
+     * Every word of every name, lower case and sorted. Repeated words share one instance.
+     */
+    @NonNull
+    private final String[] words;
+
+    /**
+     * The menu position of the sandwich each entry of {@link #words} came from.
+     */
+    @NonNull
+    private final int[] wordPositions;
+
+    public SandwichSearchIndex(@NonNull final List<Sandwich> menu) {
+        this.menu = new ArrayList<>(menu);
+
+        final Map<String, String> canonicalWords = new HashMap<>();
+        final List<WordEntry> entries = new ArrayList<>(menu.size() * 2);
+
+        for (int position = 0; position < menu.size(); position++) {
+            for (final String word : splitWords(normalize(menu.get(position).getName()))) {
+                String canonicalWord = canonicalWords.get(word);
+
+                if (canonicalWord == null) {
+                    canonicalWord = word;
+                    canonicalWords.put(word, word);
+                }
+
+                entries.add(new WordEntry(canonicalWord, position));
+            }
+        }
+
+        Collections.sort(entries);
+
+        words = new String[entries.size()];
+        wordPositions = new int[entries.size()];
+
+        for (int i = 0; i < entries.size(); i++) {
+            words[i] = entries.get(i).word;
+            wordPositions[i] = entries.get(i).position;
+        }
+    }
+
+    /**
+     * @param previous the result of the last search on this index, if any. If {@code query}
+     *                 extends that search's query, only its matches are rechecked, and only
+     *                 against the words that changed.
+     */
+    @NonNull
+    public Result search(@NonNull final String query, @Nullable final Result previous) {
+        final String normalizedQuery = normalize(query);
+        final List<String> queryWords = splitWords(normalizedQuery);
+
+        if (queryWords.isEmpty()) {
+            return new Result(normalizedQuery, allPositions(), true);
+        }
+
+        int[] candidates = null;
+        int firstChangedWord = 0;
+
+        if (previous != null
+                && !previous.isUnfiltered
+                && normalizedQuery.startsWith(previous.normalizedQuery)) {
+
+            // Every word but the last of the previous query is unchanged, so already matched.
+            final List<String> previousWords = splitWords(previous.normalizedQuery);
+            final int lastPreviousWord = previousWords.size() - 1;
+
+            candidates = previous.positions;
+            firstChangedWord = lastPreviousWord;
+
+            // A separator typed after the last word leaves it unchanged too.
+            if (queryWords.get(lastPreviousWord).equals(previousWords.get(lastPreviousWord))) {
+                firstChangedWord++;
+            }
+        }
+
+        for (int i = firstChangedWord; i < queryWords.size(); i++) {
+            candidates = findPositionsWithWordPrefix(queryWords.get(i), candidates);
+        }
+
+        return new Result(normalizedQuery, candidates, false);
+    }
+
+    @NonNull
+    public List<Sandwich> getSandwiches(@NonNull final Result result) {
+        return getSandwiches(result, result.positions.length);
+    }
+
+    /**
+     * @return the first {@code limit} of {@code result}'s sandwiches, in menu order.
+     */
+    @NonNull
+    public List<Sandwich> getSandwiches(@NonNull final Result result, final int limit) {
+        final int count = Math.min(limit, result.positions.length);
+        final List<Sandwich> sandwiches = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            sandwiches.add(menu.get(result.positions[i]));
+        }
+
+        return sandwiches;
+    }
+
+    @NonNull
+    private int[] allPositions() {
+        final int[] result = new int[menu.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = i;
+        }
+
+        return result;
+    }
+
+    /**
+     * @param candidates the positions to choose from, in menu order, or null to choose from the
+     *                   whole menu.
+     * @return the candidates whose names have a word starting with {@code prefix}, in menu order.
+     */
+    @NonNull
+    private int[] findPositionsWithWordPrefix(
+            @NonNull final String prefix,
+            @Nullable final int[] candidates) {
+
+        final int rangeStart = findFirstWordAtLeast(prefix);
+        int rangeEnd = rangeStart;
+
+        while (rangeEnd < words.length && words[rangeEnd].startsWith(prefix)) {
+            rangeEnd++;
+        }
+
+        if (candidates != null && candidates.length * NAME_SCAN_COST < rangeEnd - rangeStart) {
+            return filterByNameScan(candidates, prefix);
+        }
+
+        // A set of bits, rather than a sort, puts the matches in menu order and removes
+        // duplicates in time proportional to the number of matching words.
+        final BitSet matches = new BitSet(menu.size());
+
+        for (int i = rangeStart; i < rangeEnd; i++) {
+            matches.set(wordPositions[i]);
+        }
+
+        if (candidates == null) {
+            final int[] result = new int[matches.cardinality()];
+            int count = 0;
+
+            for (int position = matches.nextSetBit(0);
+                 position >= 0;
+                 position = matches.nextSetBit(position + 1)) {
+
+                result[count++] = position;
+            }
+
+            return result;
+        }
+
+        final int[] result = new int[candidates.length];
+        int count = 0;
+
+        for (final int position : candidates) {
+            if (matches.get(position)) {
+                result[count++] = position;
+            }
+        }
+
+        return count == candidates.length ? candidates : Arrays.copyOf(result, count);
+    }
+
+    @NonNull
+    private int[] filterByNameScan(@NonNull final int[] candidates, @NonNull final String prefix) {
+        final int[] result = new int[candidates.length];
+        int count = 0;
+
+        for (final int position : candidates) {
+            if (hasWordStartingWith(menu.get(position).getName(), prefix)) {
+                result[count++] = position;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    private int findFirstWordAtLeast(@NonNull final String value) {
+        int low = 0;
+        int high = words.length;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (words[middle].compareTo(value) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Scans the original name rather than keeping a lower-case copy of every name.
+     */
+    private static boolean hasWordStartingWith(
+            @NonNull final String name,
+            @NonNull final String prefix) {
+
+        final int lastStart = name.length() - prefix.length();
+
+        for (int i = 0; i <= lastStart; i++) {
+            final boolean isWordStart = Character.isLetterOrDigit(name.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(name.charAt(i - 1)));
+
+            if (isWordStart && name.regionMatches(true, i, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @NonNull
+    private static String normalize(@NonNull final String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Words are runs of letters and digits; everything else separates them.
+     */
+    @NonNull
+    private static List<String> splitWords(@NonNull final String text) {
+        final List<String> result = new ArrayList<>(2);
+        int wordStart = -1;
+
+        for (int i = 0; i <= text.length(); i++) {
+            final boolean isWordChar =
+                    i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+
+            if (isWordChar && wordStart == -1) {
+                wordStart = i;
+            } else if (!isWordChar && wordStart != -1) {
+                result.add(text.substring(wordStart, i));
+                wordStart = -1;
+            }
+        }
+
+        return result;
+    }
+
+    private static final class WordEntry implements Comparable<WordEntry> {
+
+        @NonNull
+        private final String word;
+
+        private final int position;
+
+        private WordEntry(@NonNull final String word, final int position) {
+            this.word = word;
+            this.position = position;
+        }
+
+        @Override
+        public int compareTo(@NonNull final WordEntry other) {
+            return word.compareTo(other.word);
+        }
+
+    }
+
+}
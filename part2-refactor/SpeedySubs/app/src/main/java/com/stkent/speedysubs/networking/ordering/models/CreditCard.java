@@ -6,9 +6,18 @@ import org.threeten.bp.LocalDate;
 
 public final class CreditCard {
 
-    private int id;
-    private String displayName;
-    private LocalDate expirationDate;
+    private static final int DAY_OF_MONTH_BITS = 5;
+    private static final int DAY_OF_MONTH_MASK = (1 << DAY_OF_MONTH_BITS) - 1;
+
+    private final int id;
+    private final String displayName;
+
+    /**
+     * The expiration date packed into one int: the year-month (see
+     * {@link #getExpirationYearMonth}) in the high bits and the day of the month in the low
+     * {@value #DAY_OF_MONTH_BITS}, so that packed dates compare in date order.
+     */
+    private final int packedExpirationDate;
 
     public CreditCard(
             final int id,
@@ -17,12 +26,59 @@ public final class CreditCard {
 
         this.id = id;
         this.displayName = displayName;
-        this.expirationDate = expirationDate;
+
+        final int yearMonth = expirationDate.getYear() * 12 + expirationDate.getMonthValue() - 1;
+        this.packedExpirationDate =
+                yearMonth << DAY_OF_MONTH_BITS | expirationDate.getDayOfMonth();
+    }
+
+    public int getId() {
+        return id;
     }
 
+    @NonNull
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Creates a new date on each call; prefer {@link #compareExpirationDate} and
+     * {@link #getExpirationYearMonth} on hot paths.
+     */
     @NonNull
     public LocalDate getExpirationDate() {
-        return expirationDate;
+        final int yearMonth = getExpirationYearMonth();
+
+        return LocalDate.of(
+                yearMonth / 12,
+                yearMonth % 12 + 1,
+                packedExpirationDate & DAY_OF_MONTH_MASK);
+    }
+
+    /**
+     * @return the month this card expires in, as {@code year * 12 + month - 1}, with months
+     * counted from 1.
+     */
+    public int getExpirationYearMonth() {
+        return packedExpirationDate >>> DAY_OF_MONTH_BITS;
+    }
+
+    /**
+     * Orders cards by expiration date without creating any dates.
+     */
+    public int compareExpirationDate(@NonNull final CreditCard other) {
+        return packedExpirationDate < other.packedExpirationDate
+                ? -1
+                : (packedExpirationDate == other.packedExpirationDate ? 0 : 1);
+    }
+
+    /**
+     * @return true if {@code other} has the same id, display name and expiration date.
+     */
+    public boolean hasSameContents(@NonNull final CreditCard other) {
+        return id == other.id
+                && packedExpirationDate == other.packedExpirationDate
+                && displayName.equals(other.displayName);
     }
 
     @Override
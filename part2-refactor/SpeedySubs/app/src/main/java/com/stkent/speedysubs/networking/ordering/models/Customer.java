@@ -2,19 +2,21 @@ package com.stkent.speedysubs.networking.ordering.models;
 
 import android.support.annotation.NonNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public final class Customer {
 
     @NonNull
-    private String id;
+    private final String id;
 
     @NonNull
-    private List<CreditCard> creditCards;
+    private final List<CreditCard> creditCards;
 
     public Customer(@NonNull final String id, @NonNull final List<CreditCard> creditCards) {
         this.id = id;
-        this.creditCards = creditCards;
+        this.creditCards = Collections.unmodifiableList(new ArrayList<>(creditCards));
     }
 
     @NonNull
@@ -27,8 +29,12 @@ public final class Customer {
         return creditCards;
     }
 
-    public void setCreditCards(@NonNull final List<CreditCard> creditCards) {
-        this.creditCards = creditCards;
+    /**
+     * @return a copy of this customer with {@code creditCards} in place of the current cards.
+     */
+    @NonNull
+    public Customer withCreditCards(@NonNull final List<CreditCard> creditCards) {
+        return new Customer(id, creditCards);
     }
 
     @Override
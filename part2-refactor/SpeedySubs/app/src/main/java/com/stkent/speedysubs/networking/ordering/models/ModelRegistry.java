@@ -0,0 +1,167 @@
+package com.stkent.speedysubs.networking.ordering.models;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.util.IntObjectMap;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interns sandwiches and credit cards by id, so that every response and snapshot that describes
+ * the same model shares one instance rather than each holding its own copy. An incoming model
+ * replaces the registered one only if its contents have changed.
+ *
+ * <p>Models are held weakly: once no list refers to one (e.g. a page of the menu dropped by
+ * {@code SandwichPagingSource}), it can be collected and its entry is removed.
+ *
+ * <p>Thread-safe.
+ */
+public final class ModelRegistry {
+
+    @Nullable
+    private static ModelRegistry sharedInstance;
+
+    private static final Object SYNC_LOCK = new Object();
+
+    @NonNull
+    public static ModelRegistry getSharedInstance() {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                sharedInstance = new ModelRegistry();
+            }
+
+            return sharedInstance;
+        }
+    }
+
+    @NonNull
+    private final IntObjectMap<ModelReference<Sandwich>> sandwiches = new IntObjectMap<>();
+
+    @NonNull
+    private final IntObjectMap<ModelReference<CreditCard>> creditCards = new IntObjectMap<>();
+
+    @NonNull
+    private final ReferenceQueue<Object> collectedModels = new ReferenceQueue<>();
+
+    @NonNull
+    public synchronized Sandwich intern(@NonNull final Sandwich sandwich) {
+        removeCollectedModels();
+
+        final Sandwich registered = get(sandwiches, sandwich.getId());
+
+        if (registered != null && registered.hasSameContents(sandwich)) {
+            return registered;
+        }
+
+        sandwiches.put(
+                sandwich.getId(),
+                new ModelReference<>(sandwich, sandwich.getId(), collectedModels));
+
+        return sandwich;
+    }
+
+    @NonNull
+    public synchronized CreditCard intern(@NonNull final CreditCard creditCard) {
+        removeCollectedModels();
+
+        final CreditCard registered = get(creditCards, creditCard.getId());
+
+        if (registered != null && registered.hasSameContents(creditCard)) {
+            return registered;
+        }
+
+        creditCards.put(
+                creditCard.getId(),
+                new ModelReference<>(creditCard, creditCard.getId(), collectedModels));
+
+        return creditCard;
+    }
+
+    /**
+     * @return a new list of the registered equivalents of {@code sandwiches}, in the same order.
+     */
+    @NonNull
+    public synchronized List<Sandwich> internSandwiches(@NonNull final List<Sandwich> sandwiches) {
+        final List<Sandwich> result = new ArrayList<>(sandwiches.size());
+
+        for (final Sandwich sandwich : sandwiches) {
+            result.add(intern(sandwich));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a new list of the registered equivalents of {@code creditCards}, in the same order.
+     */
+    @NonNull
+    public synchronized List<CreditCard> internCreditCards(
+            @NonNull final List<CreditCard> creditCards) {
+
+        final List<CreditCard> result = new ArrayList<>(creditCards.size());
+
+        for (final CreditCard creditCard : creditCards) {
+            result.add(intern(creditCard));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a copy of {@code customer} whose cards are the registered equivalents of its own.
+     */
+    @NonNull
+    public synchronized Customer intern(@NonNull final Customer customer) {
+        return customer.withCreditCards(internCreditCards(customer.getCreditCards()));
+    }
+
+    /**
+     * @return the number of sandwiches and credit cards registered, including any that have been
+     * collected but not yet removed.
+     */
+    public synchronized int size() {
+        return sandwiches.size() + creditCards.size();
+    }
+
+    private void removeCollectedModels() {
+        ModelReference<?> reference;
+
+        while ((reference = (ModelReference<?>) collectedModels.poll()) != null) {
+            // A newer model with the same id may have replaced this one since it was registered.
+            if (sandwiches.get(reference.id) == reference) {
+                sandwiches.remove(reference.id);
+            } else if (creditCards.get(reference.id) == reference) {
+                creditCards.remove(reference.id);
+            }
+        }
+    }
+
+    @Nullable
+    private static <T> T get(@NonNull final IntObjectMap<ModelReference<T>> map, final int id) {
+        final ModelReference<T> reference = map.get(id);
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Remembers the id of its model, which is needed to remove its entry once the model is gone.
+     */
+    private static final class ModelReference<T> extends WeakReference<T> {
+
+        private final int id;
+
+        private ModelReference(
+                @NonNull final T model,
+                final int id,
+                @NonNull final ReferenceQueue<Object> queue) {
+
+            super(model, queue);
+            this.id = id;
+        }
+
+    }
+
+}
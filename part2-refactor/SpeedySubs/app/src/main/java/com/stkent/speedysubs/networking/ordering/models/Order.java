@@ -2,24 +2,44 @@ package com.stkent.speedysubs.networking.ordering.models;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.support.annotation.VisibleForTesting;
+
+import java.util.UUID;
 
 public final class Order {
 
+    /**
+     * Generated once per order and sent with every attempt to place it, so the backend can tell
+     * a resend of this order apart from a new order for the same sandwich.
+     */
+    @NonNull
+    private final String idempotencyKey;
+
     @Nullable
-    private Sandwich sandwich;
+    private final Sandwich sandwich;
 
     @Nullable
-    private CreditCard creditCard;
+    private final CreditCard creditCard;
 
-    public Order() {
-        // This constructor intentionally left blank.
+    public Order(@Nullable final Sandwich sandwich, @Nullable final CreditCard creditCard) {
+        this(sandwich, creditCard, UUID.randomUUID().toString());
     }
 
-    @VisibleForTesting
-    public Order(@Nullable final Sandwich sandwich, @Nullable final CreditCard creditCard) {
+    /**
+     * Recreates a previously created order, e.g. one read back from disk.
+     */
+    public Order(
+            @Nullable final Sandwich sandwich,
+            @Nullable final CreditCard creditCard,
+            @NonNull final String idempotencyKey) {
+
         this.sandwich = sandwich;
         this.creditCard = creditCard;
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    @NonNull
+    public String getIdempotencyKey() {
+        return idempotencyKey;
     }
 
     @Nullable
@@ -32,12 +52,19 @@ public final class Order {
         return creditCard;
     }
 
-    public void setSandwich(@NonNull final Sandwich sandwich) {
-        this.sandwich = sandwich;
-    }
+    /**
+     * @return a copy of this order paid for with {@code creditCard}. The idempotency key is only
+     * kept if no card had been chosen yet or the card is unchanged. An attempt paid for with a
+     * different card may already have reached the backend, which would answer a resend under the
+     * same key with that attempt's confirmation and ignore the new card.
+     */
+    @NonNull
+    public Order withCreditCard(@NonNull final CreditCard creditCard) {
+        if (this.creditCard == null || this.creditCard.hasSameContents(creditCard)) {
+            return new Order(sandwich, creditCard, idempotencyKey);
+        }
 
-    public void setCreditCard(@NonNull final CreditCard creditCard) {
-        this.creditCard = creditCard;
+        return new Order(sandwich, creditCard);
     }
 
 }
@@ -0,0 +1,68 @@
+package com.stkent.speedysubs.networking.ordering.models;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * The outcome of placing one {@link Order} as part of a batch.
+ */
+public final class OrderResult {
+
+    @NonNull
+    public static OrderResult success(@NonNull final Order order, final int confirmationNumber) {
+        return new OrderResult(order, confirmationNumber, null);
+    }
+
+    @NonNull
+    public static OrderResult failure(
+            @NonNull final Order order,
+            @NonNull final String errorMessage) {
+
+        return new OrderResult(order, null, errorMessage);
+    }
+
+    @NonNull
+    private final Order order;
+
+    @Nullable
+    private final Integer confirmationNumber;
+
+    @Nullable
+    private final String errorMessage;
+
+    private OrderResult(
+            @NonNull final Order order,
+            @Nullable final Integer confirmationNumber,
+            @Nullable final String errorMessage) {
+
+        this.order = order;
+        this.confirmationNumber = confirmationNumber;
+        this.errorMessage = errorMessage;
+    }
+
+    @NonNull
+    public Order getOrder() {
+        return order;
+    }
+
+    public boolean isSuccessful() {
+        return confirmationNumber != null;
+    }
+
+    /**
+     * @return the confirmation number, or null if this order failed.
+     */
+    @Nullable
+    public Integer getConfirmationNumber() {
+        return confirmationNumber;
+    }
+
+    /**
+     * @return why this order failed, or null if it succeeded.
+     */
+    @Nullable
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+}
@@ -4,8 +4,8 @@ import android.support.annotation.NonNull;
 
 public final class Sandwich {
 
-    private int id;
-    private String name;
+    private final int id;
+    private final String name;
 
     public Sandwich(final int id, @NonNull final String name) {
         this.id = id;
@@ -21,6 +21,13 @@ public final class Sandwich {
         return name;
     }
 
+    /**
+     * @return true if {@code other} has the same id and name.
+     */
+    public boolean hasSameContents(@NonNull final Sandwich other) {
+        return id == other.id && name.equals(other.name);
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -0,0 +1,53 @@
+package com.stkent.speedysubs.networking.ordering.models;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A reply to a conditional request: either the current value and the version that identifies it,
+ * or just that version if it matches the one the caller already has.
+ */
+public final class Versioned<T> {
+
+    @NonNull
+    public static <T> Versioned<T> modified(@NonNull final String version, @NonNull final T value) {
+        return new Versioned<>(version, value);
+    }
+
+    @NonNull
+    public static <T> Versioned<T> notModified(@NonNull final String version) {
+        return new Versioned<>(version, null);
+    }
+
+    @NonNull
+    private final String version;
+
+    @Nullable
+    private final T value;
+
+    private Versioned(@NonNull final String version, @Nullable final T value) {
+        this.version = version;
+        this.value = value;
+    }
+
+    /**
+     * @return an opaque tag that changes whenever the value does, like an HTTP ETag.
+     */
+    @NonNull
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the value, or null if it has not changed since the version the caller sent.
+     */
+    @Nullable
+    public T getValue() {
+        return value;
+    }
+
+    public boolean isNotModified() {
+        return value == null;
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.stkent.speedysubs.persistence;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Whole-file reads and crash-safe whole-file writes, shared by the small binary formats in this
+ * package.
+ */
+final class BinaryFiles {
+
+    private BinaryFiles() {
+        // This constructor intentionally left blank.
+    }
+
+    /**
+     * Replaces {@code file}'s contents with {@code bytes}. The new contents are written and synced
+     * alongside the old file and then renamed over it, so a crash mid-write leaves the previous
+     * version intact.
+     */
+    static void writeAtomically(@NonNull final File file, @NonNull final byte[] bytes)
+            throws IOException {
+
+        final File tempFile = new File(file.getPath() + ".tmp");
+
+        try (final FileOutputStream fileOutput = new FileOutputStream(tempFile)) {
+            fileOutput.write(bytes);
+            fileOutput.getFD().sync();
+        }
+
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Reads all of {@code file} with a single channel read into a heap buffer, so that strings can
+     * be decoded straight from its backing array with no intermediate copy.
+     *
+     * @return the file's contents, ready to read, or null if the file does not exist.
+     */
+    @Nullable
+    static ByteBuffer readFully(@NonNull final File file) throws IOException {
+        if (!file.exists()) return null;
+
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             final FileChannel channel = randomAccessFile.getChannel()) {
+
+            final ByteBuffer result = ByteBuffer.allocate((int) channel.size());
+
+            while (result.hasRemaining() && channel.read(result) != -1) {
+                // Keep reading until the buffer is full.
+            }
+
+            result.flip();
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+package com.stkent.speedysubs.persistence;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ranks sandwich ids by how often, and how recently, they were ordered. Each order contributes
+ * 1 to its sandwich's score, and that contribution halves every {@code halfLifeMs}.
+ *
+ * <p>Since every score decays at the same rate, decay never changes the ranking. Scores are
+ * therefore stored undecayed, as {@code log(sum(exp(lambda * orderTimeMs)))}. In that form,
+ * recording an order is a single log-add-exp, nothing ever needs rescaling as time passes, and
+ * the values cannot overflow.
+ *
+ * <p>Ids are kept in a binary max-heap on that log-score. An order only ever raises a score, so
+ * recording one sifts a single entry towards the root, and the top k ids can be read from the
+ * heap without disturbing it.
+ *
+ * <p>Not thread-safe.
+ */
+public final class DecayingFrequencyRanking {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final double decayRatePerMs;
+
+    @NonNull
+    private int[] heapIds = new int[INITIAL_CAPACITY];
+
+    @NonNull
+    private double[] heapLogScores = new double[INITIAL_CAPACITY];
+
+    @NonNull
+    private final Map<Integer, Integer> heapIndicesById = new HashMap<>();
+
+    private int size;
+
+    public DecayingFrequencyRanking(final long halfLifeMs) {
+        this.decayRatePerMs = Math.log(2) / halfLifeMs;
+    }
+
+    /**
+     * @return the sandwich's new log-score, suitable for passing to {@link #restore}.
+     */
+    public double recordOrder(final int sandwichId, final long orderTimeMs) {
+        final double orderLogScore = decayRatePerMs * orderTimeMs;
+        final Integer heapIndex = heapIndicesById.get(sandwichId);
+
+        if (heapIndex == null) {
+            return insert(sandwichId, orderLogScore);
+        }
+
+        final double newLogScore = logAddExp(heapLogScores[heapIndex], orderLogScore);
+        heapLogScores[heapIndex] = newLogScore;
+        siftUp(heapIndex);
+        return newLogScore;
+    }
+
+    /**
+     * Sets a sandwich's log-score to a value previously returned by {@link #recordOrder} or
+     * {@link #getLogScore}.
+     */
+    public void restore(final int sandwichId, final double logScore) {
+        final Integer heapIndex = heapIndicesById.get(sandwichId);
+
+        if (heapIndex == null) {
+            insert(sandwichId, logScore);
+            return;
+        }
+
+        final double oldLogScore = heapLogScores[heapIndex];
+        heapLogScores[heapIndex] = logScore;
+
+        if (logScore > oldLogScore) {
+            siftUp(heapIndex);
+        } else {
+            siftDown(heapIndex);
+        }
+    }
+
+    /**
+     * @return the sandwich's log-score, or {@link Double#NEGATIVE_INFINITY} if it was never
+     * ordered.
+     */
+    public double getLogScore(final int sandwichId) {
+        final Integer heapIndex = heapIndicesById.get(sandwichId);
+        return heapIndex != null ? heapLogScores[heapIndex] : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @return the decayed number of orders for the sandwich as of {@code nowMs}.
+     */
+    public double getScore(final int sandwichId, final long nowMs) {
+        return Math.exp(getLogScore(sandwichId) - decayRatePerMs * nowMs);
+    }
+
+    /**
+     * Finds the {@code k} highest-ranked ids in O(k log k) by walking the heap from its root with
+     * a second, small heap of candidates.
+     *
+     * @return up to {@code k} sandwich ids, highest-ranked first.
+     */
+    @NonNull
+    public int[] getTopIds(final int k) {
+        final int resultSize = Math.min(k, size);
+        final int[] result = new int[resultSize];
+
+        if (resultSize == 0) return result;
+
+        // Holds indices into the main heap, ordered by their log-score.
+        final int[] candidates = new int[resultSize + 1];
+        int candidateCount = 0;
+        candidates[candidateCount++] = 0;
+
+        for (int i = 0; i < resultSize; i++) {
+            final int best = candidates[0];
+            result[i] = heapIds[best];
+
+            candidates[0] = candidates[--candidateCount];
+            siftCandidateDown(candidates, candidateCount, 0);
+
+            for (int child = 2 * best + 1; child <= 2 * best + 2 && child < size; child++) {
+                candidates[candidateCount] = child;
+                siftCandidateUp(candidates, candidateCount++);
+            }
+        }
+
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private double insert(final int sandwichId, final double logScore) {
+        if (size == heapIds.length) {
+            heapIds = Arrays.copyOf(heapIds, size * 2);
+            heapLogScores = Arrays.copyOf(heapLogScores, size * 2);
+        }
+
+        heapIds[size] = sandwichId;
+        heapLogScores[size] = logScore;
+        heapIndicesById.put(sandwichId, size);
+        siftUp(size++);
+        return logScore;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            final int parent = (index - 1) / 2;
+
+            if (!ranksAbove(index, parent)) return;
+
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            final int left = 2 * index + 1;
+            final int right = left + 1;
+            int largest = index;
+
+            if (left < size && ranksAbove(left, largest)) largest = left;
+            if (right < size && ranksAbove(right, largest)) largest = right;
+            if (largest == index) return;
+
+            swap(index, largest);
+            index = largest;
+        }
+    }
+
+    private void siftCandidateUp(@NonNull final int[] candidates, int index) {
+        while (index > 0) {
+            final int parent = (index - 1) / 2;
+
+            if (!ranksAbove(candidates[index], candidates[parent])) return;
+
+            swapCandidates(candidates, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftCandidateDown(@NonNull final int[] candidates, final int count, int index) {
+        while (true) {
+            final int left = 2 * index + 1;
+            final int right = left + 1;
+            int largest = index;
+
+            if (left < count && ranksAbove(candidates[left], candidates[largest])) {
+                largest = left;
+            }
+
+            if (right < count && ranksAbove(candidates[right], candidates[largest])) {
+                largest = right;
+            }
+
+            if (largest == index) return;
+
+            swapCandidates(candidates, index, largest);
+            index = largest;
+        }
+    }
+
+    /**
+     * Ties are broken by id so that the ranking is deterministic.
+     */
+    private boolean ranksAbove(final int heapIndex, final int otherHeapIndex) {
+        final double logScore = heapLogScores[heapIndex];
+        final double otherLogScore = heapLogScores[otherHeapIndex];
+
+        if (logScore != otherLogScore) return logScore > otherLogScore;
+
+        return heapIds[heapIndex] < heapIds[otherHeapIndex];
+    }
+
+    private void swap(final int first, final int second) {
+        final int firstId = heapIds[first];
+        final double firstLogScore = heapLogScores[first];
+
+        heapIds[first] = heapIds[second];
+        heapLogScores[first] = heapLogScores[second];
+        heapIds[second] = firstId;
+        heapLogScores[second] = firstLogScore;
+
+        heapIndicesById.put(heapIds[first], first);
+        heapIndicesById.put(heapIds[second], second);
+    }
+
+    private static void swapCandidates(
+            @NonNull final int[] candidates,
+            final int first,
+            final int second) {
+
+        final int temp = candidates[first];
+        candidates[first] = candidates[second];
+        candidates[second] = temp;
+    }
+
+    private static double logAddExp(final double a, final double b) {
+        final double max = Math.max(a, b);
+        final double min = Math.min(a, b);
+
+        if (min == Double.NEGATIVE_INFINITY) return max;
+
+        return max + Math.log1p(Math.exp(min - max));
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.stkent.speedysubs.persistence;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.AnyThread;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Map;
+
+import static android.content.Context.MODE_PRIVATE;
+import static java.util.concurrent.TimeUnit.DAYS;
+
+/**
+ * Remembers which sandwiches the user orders most, favoring recent orders. Backed by a
+ * {@link DecayingFrequencyRanking} that is persisted in the {@code FAVE_STORAGE} preferences, one
+ * entry per sandwich.
+ */
+@MainThread
+public final class FavoritesStore {
+
+    private static final String PREFS_NAME = "FAVE_STORAGE";
+    private static final String LEGACY_FAVE_ID_KEY = "FAVE_ID";
+    private static final String LOG_SCORE_KEY_PREFIX = "LOG_SCORE_";
+    private static final long HALF_LIFE_MS = DAYS.toMillis(14);
+
+    @Nullable
+    private static FavoritesStore sharedInstance;
+
+    private static final Object SYNC_LOCK = new Object();
+
+    /**
+     * May be called from any thread, so that startup can load the stored rankings in the
+     * background. Every other method must be called on the main thread.
+     */
+    @AnyThread
+    @NonNull
+    public static FavoritesStore getSharedInstance(@NonNull final Context context) {
+        synchronized (SYNC_LOCK) {
+            if (sharedInstance == null) {
+                sharedInstance = new FavoritesStore(
+                        context.getSharedPreferences(PREFS_NAME, MODE_PRIVATE));
+            }
+
+            return sharedInstance;
+        }
+    }
+
+    @NonNull
+    private final SharedPreferences sharedPreferences;
+
+    @NonNull
+    private final DecayingFrequencyRanking ranking = new DecayingFrequencyRanking(HALF_LIFE_MS);
+
+    private FavoritesStore(@NonNull final SharedPreferences sharedPreferences) {
+        this.sharedPreferences = sharedPreferences;
+        restore();
+    }
+
+    public void recordOrder(final int sandwichId) {
+        final double logScore = ranking.recordOrder(sandwichId, System.currentTimeMillis());
+
+        sharedPreferences
+                .edit()
+                .putLong(LOG_SCORE_KEY_PREFIX + sandwichId, Double.doubleToLongBits(logScore))
+                .apply();
+    }
+
+    /**
+     * @return up to {@code count} sandwich ids, most favored first.
+     */
+    @NonNull
+    public int[] getFavoriteSandwichIds(final int count) {
+        return ranking.getTopIds(count);
+    }
+
+    private void restore() {
+        for (final Map.Entry<String, ?> entry : sharedPreferences.getAll().entrySet()) {
+            if (!entry.getKey().startsWith(LOG_SCORE_KEY_PREFIX)) continue;
+
+            final int sandwichId =
+                    Integer.parseInt(entry.getKey().substring(LOG_SCORE_KEY_PREFIX.length()));
+
+            ranking.restore(sandwichId, Double.longBitsToDouble((Long) entry.getValue()));
+        }
+
+        // Earlier versions stored only the most recently chosen sandwich. Count it as one order.
+        if (sharedPreferences.contains(LEGACY_FAVE_ID_KEY)) {
+            final int legacyFavoriteId = sharedPreferences.getInt(LEGACY_FAVE_ID_KEY, -1);
+
+            sharedPreferences.edit().remove(LEGACY_FAVE_ID_KEY).apply();
+
+            if (ranking.getLogScore(legacyFavoriteId) == Double.NEGATIVE_INFINITY) {
+                recordOrder(legacyFavoriteId);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.stkent.speedysubs.persistence;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.threeten.bp.LocalDate;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written binary encodings for model types, shared by all on-disk formats. Strings are
+ * stored as a length-prefixed run of UTF-8 bytes.
+ *
+ * <p>Readers check every field, length and count against the bytes that remain, so corrupt or
+ * truncated input fails with an {@link IOException} rather than a huge allocation or a
+ * {@link java.nio.BufferUnderflowException}.
+ */
+public final class ModelCodec {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * An id, an empty display name and an expiration date.
+     */
+    private static final int MIN_CREDIT_CARD_SIZE = 4 + 4 + 8;
+
+    private ModelCodec() {
+        // This constructor intentionally left blank.
+    }
+
+    public static void writeString(
+            @NonNull final DataOutput output,
+            @NonNull final String value) throws IOException {
+
+        final byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @NonNull
+    public static String readString(@NonNull final ByteBuffer input) throws IOException {
+        final int length = readCount(input, 1);
+
+        if (input.hasArray()) {
+            final int start = input.arrayOffset() + input.position();
+            input.position(input.position() + length);
+            return new String(input.array(), start, length, UTF_8);
+        }
+
+        final byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public static void writeSandwich(
+            @NonNull final DataOutput output,
+            @NonNull final Sandwich sandwich) throws IOException {
+
+        output.writeInt(sandwich.getId());
+        writeString(output, sandwich.getName());
+    }
+
+    @NonNull
+    public static Sandwich readSandwich(@NonNull final ByteBuffer input) throws IOException {
+        final int id = readInt(input);
+        return new Sandwich(id, readString(input));
+    }
+
+    public static void writeCreditCard(
+            @NonNull final DataOutput output,
+            @NonNull final CreditCard creditCard) throws IOException {
+
+        output.writeInt(creditCard.getId());
+        writeString(output, creditCard.getDisplayName());
+        output.writeLong(creditCard.getExpirationDate().toEpochDay());
+    }
+
+    @NonNull
+    public static CreditCard readCreditCard(@NonNull final ByteBuffer input) throws IOException {
+        final int id = readInt(input);
+        final String displayName = readString(input);
+        return new CreditCard(id, displayName, LocalDate.ofEpochDay(readLong(input)));
+    }
+
+    public static void writeCustomer(
+            @NonNull final DataOutput output,
+            @NonNull final Customer customer) throws IOException {
+
+        writeString(output, customer.getId());
+
+        final List<CreditCard> creditCards = customer.getCreditCards();
+        output.writeInt(creditCards.size());
+
+        for (int i = 0; i < creditCards.size(); i++) {
+            writeCreditCard(output, creditCards.get(i));
+        }
+    }
+
+    @NonNull
+    public static Customer readCustomer(@NonNull final ByteBuffer input) throws IOException {
+        final String id = readString(input);
+        final int creditCardCount = readCount(input, MIN_CREDIT_CARD_SIZE);
+        final List<CreditCard> creditCards = new ArrayList<>(creditCardCount);
+
+        for (int i = 0; i < creditCardCount; i++) {
+            creditCards.add(readCreditCard(input));
+        }
+
+        return new Customer(id, creditCards);
+    }
+
+    /**
+     * Writes an order's sandwich and credit card, each preceded by a presence flag since either may
+     * not have been chosen yet.
+     */
+    public static void writeOrder(
+            @NonNull final DataOutput output,
+            @NonNull final Order order) throws IOException {
+
+        writeString(output, order.getIdempotencyKey());
+
+        final Sandwich sandwich = order.getSandwich();
+        output.writeBoolean(sandwich != null);
+
+        if (sandwich != null) {
+            writeSandwich(output, sandwich);
+        }
+
+        final CreditCard creditCard = order.getCreditCard();
+        output.writeBoolean(creditCard != null);
+
+        if (creditCard != null) {
+            writeCreditCard(output, creditCard);
+        }
+    }
+
+    @NonNull
+    public static Order readOrder(@NonNull final ByteBuffer input) throws IOException {
+        final String idempotencyKey = readString(input);
+        final Sandwich sandwich = readBoolean(input) ? readSandwich(input) : null;
+        final CreditCard creditCard = readBoolean(input) ? readCreditCard(input) : null;
+        return new Order(sandwich, creditCard, idempotencyKey);
+    }
+
+    /**
+     * Reads a count of items that each take at least {@code minItemSize} bytes.
+     *
+     * @throws IOException if the count is negative or more items than the remaining bytes could
+     *                     hold.
+     */
+    public static int readCount(@NonNull final ByteBuffer input, final int minItemSize)
+            throws IOException {
+
+        final int count = readInt(input);
+
+        if (count < 0 || count > input.remaining() / minItemSize) {
+            throw new IOException("Invalid count " + count + " with " + input.remaining()
+                    + " bytes remaining");
+        }
+
+        return count;
+    }
+
+    private static int readInt(@NonNull final ByteBuffer input) throws IOException {
+        requireRemaining(input, 4);
+        return input.getInt();
+    }
+
+    private static long readLong(@NonNull final ByteBuffer input) throws IOException {
+        requireRemaining(input, 8);
+        return input.getLong();
+    }
+
+    private static boolean readBoolean(@NonNull final ByteBuffer input) throws IOException {
+        requireRemaining(input, 1);
+        return input.get() != 0;
+    }
+
+    private static void requireRemaining(@NonNull final ByteBuffer input, final int byteCount)
+            throws IOException {
+
+        if (input.remaining() < byteCount) {
+            throw new IOException("Truncated data");
+        }
+    }
+
+}
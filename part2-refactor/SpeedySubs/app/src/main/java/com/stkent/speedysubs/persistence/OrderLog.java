@@ -0,0 +1,297 @@
+package com.stkent.speedysubs.persistence;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.networking.ordering.models.Order;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of outbound orders. Each order is appended before it is sent and
+ * acknowledged once the backend confirms it, so any order still pending when the process dies
+ * can be found and replayed on the next launch.
+ *
+ * <p>Layout: magic ({@code int}), format version ({@code int}), first entry id ({@code long}),
+ * then a sequence of records. Each record is a type ({@code byte}), entry id ({@code long}),
+ * payload length ({@code int}), payload, and a CRC32 ({@code int}) of everything before it.
+ * A record cut short by a crash fails its checksum and is discarded, along with anything after
+ * it, when the log is next opened.
+ *
+ * <p>Appends reach the operating system immediately but are only forced to disk by
+ * {@link #sync()}, so callers can batch several appends into one fsync.
+ */
+public final class OrderLog implements Closeable {
+
+    private static final int MAGIC = 0x53534f4c; // "SSOL"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8;
+    private static final int RECORD_HEADER_SIZE = 1 + 8 + 4;
+    private static final int CHECKSUM_SIZE = 4;
+
+    private static final byte RECORD_APPEND = 1;
+    private static final byte RECORD_ACKNOWLEDGE = 2;
+
+    /**
+     * Once this many acknowledged entries accumulate, the log is rewritten without them.
+     */
+    private static final int COMPACTION_THRESHOLD = 64;
+
+    public static final class Entry {
+
+        private final long id;
+
+        @NonNull
+        private final String customerId;
+
+        @NonNull
+        private final Order order;
+
+        private Entry(final long id, @NonNull final String customerId, @NonNull final Order order) {
+            this.id = id;
+            this.customerId = customerId;
+            this.order = order;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        @NonNull
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        @NonNull
+        public Order getOrder() {
+            return order;
+        }
+
+    }
+
+    @NonNull
+    private final File file;
+
+    @NonNull
+    private final Map<Long, Entry> pendingEntries = new LinkedHashMap<>();
+
+    @NonNull
+    private FileChannel channel;
+
+    private long nextId;
+
+    private int acknowledgedCount;
+
+    /**
+     * Opens the log at {@code file}, creating it if needed and recovering any entries that were
+     * never acknowledged.
+     */
+    public OrderLog(@NonNull final File file) throws IOException {
+        this.file = file;
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+
+        if (channel.size() == 0) {
+            writeHeader(channel, 1);
+            nextId = 1;
+        } else {
+            recover();
+        }
+    }
+
+    /**
+     * @return all entries that have been appended but not acknowledged, oldest first.
+     */
+    @NonNull
+    public synchronized List<Entry> getPendingEntries() {
+        return new ArrayList<>(pendingEntries.values());
+    }
+
+    @NonNull
+    public synchronized Entry append(
+            @NonNull final String customerId,
+            @NonNull final Order order) throws IOException {
+
+        final Entry result = new Entry(nextId++, customerId, order);
+        writeRecord(channel, RECORD_APPEND, result.id, encodePayload(result));
+        pendingEntries.put(result.id, result);
+        return result;
+    }
+
+    /**
+     * Marks the entry with {@code id} as confirmed by the backend. Acknowledgements are not
+     * synced on their own: losing one only means the order is replayed, which the backend
+     * must tolerate anyway.
+     */
+    public synchronized void acknowledge(final long id) throws IOException {
+        if (pendingEntries.remove(id) == null) return;
+
+        writeRecord(channel, RECORD_ACKNOWLEDGE, id, new byte[0]);
+        acknowledgedCount++;
+
+        if (pendingEntries.isEmpty() || acknowledgedCount >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Forces all appended records to disk.
+     */
+    public synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Rewrites the log so it contains only pending entries. The new log is written to a temporary
+     * file and renamed over the old one, so a crash leaves one complete version or the other.
+     */
+    private void compact() throws IOException {
+        final File tempFile = new File(file.getPath() + ".tmp");
+
+        try (final RandomAccessFile tempRandomAccessFile = new RandomAccessFile(tempFile, "rw");
+             final FileChannel tempChannel = tempRandomAccessFile.getChannel()) {
+
+            tempChannel.truncate(0);
+            writeHeader(tempChannel, nextId);
+
+            for (final Entry entry : pendingEntries.values()) {
+                writeRecord(tempChannel, RECORD_APPEND, entry.id, encodePayload(entry));
+            }
+
+            tempChannel.force(true);
+        }
+
+        // Renamed while the old log is still open, so that if the rename fails, appends carry on
+        // into the old log and compaction is simply tried again later.
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Could not replace " + file);
+        }
+
+        channel.close();
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        channel.position(channel.size());
+        acknowledgedCount = 0;
+    }
+
+    private void recover() throws IOException {
+        final ByteBuffer input = ByteBuffer.allocate((int) channel.size());
+
+        while (input.hasRemaining() && channel.read(input, input.position()) != -1) {
+            // Keep reading until the buffer is full.
+        }
+
+        input.flip();
+
+        if (input.remaining() < HEADER_SIZE
+                || input.getInt() != MAGIC
+                || input.getInt() != VERSION) {
+
+            throw new IOException("Unrecognized order log format in " + file);
+        }
+
+        nextId = input.getLong();
+        int validLength = input.position();
+
+        while (input.remaining() >= RECORD_HEADER_SIZE + CHECKSUM_SIZE) {
+            final int recordStart = input.position();
+            final byte type = input.get();
+            final long id = input.getLong();
+            final int payloadLength = input.getInt();
+
+            if (payloadLength < 0 || input.remaining() < payloadLength + CHECKSUM_SIZE) break;
+
+            final CRC32 crc = new CRC32();
+            crc.update(input.array(), recordStart, RECORD_HEADER_SIZE + payloadLength);
+
+            final ByteBuffer payload = ByteBuffer.wrap(
+                    input.array(),
+                    recordStart + RECORD_HEADER_SIZE,
+                    payloadLength).slice();
+
+            input.position(input.position() + payloadLength);
+
+            if (input.getInt() != (int) crc.getValue()) break;
+
+            if (type == RECORD_APPEND) {
+                final String customerId = ModelCodec.readString(payload);
+                pendingEntries.put(id, new Entry(id, customerId, ModelCodec.readOrder(payload)));
+                nextId = Math.max(nextId, id + 1);
+            } else if (type == RECORD_ACKNOWLEDGE) {
+                if (pendingEntries.remove(id) != null) {
+                    acknowledgedCount++;
+                }
+            } else {
+                break;
+            }
+
+            validLength = input.position();
+        }
+
+        // Drop any torn or corrupt tail so new records follow the last good one.
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    @NonNull
+    private static byte[] encodePayload(@NonNull final Entry entry) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream payload = new DataOutputStream(bytes);
+        ModelCodec.writeString(payload, entry.customerId);
+        ModelCodec.writeOrder(payload, entry.order);
+        payload.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeHeader(
+            @NonNull final FileChannel channel,
+            final long firstId) throws IOException {
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(firstId).flip();
+        writeFully(channel, header);
+    }
+
+    private static void writeRecord(
+            @NonNull final FileChannel channel,
+            final byte type,
+            final long id,
+            @NonNull final byte[] payload) throws IOException {
+
+        final ByteBuffer record =
+                ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length + CHECKSUM_SIZE);
+
+        record.put(type).putLong(id).putInt(payload.length).put(payload);
+
+        final CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue()).flip();
+
+        writeFully(channel, record);
+    }
+
+    private static void writeFully(
+            @NonNull final FileChannel channel,
+            @NonNull final ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
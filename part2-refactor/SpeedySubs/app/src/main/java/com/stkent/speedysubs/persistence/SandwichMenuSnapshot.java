@@ -0,0 +1,110 @@
+package com.stkent.speedysubs.persistence;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the last known sandwich menu in a compact, versioned binary file so it can be shown on
+ * a cold start before the network responds.
+ *
+ * <p>Layout: magic ({@code int}), format version ({@code int}), sandwich count ({@code int}),
+ * each sandwich as encoded by {@link ModelCodec#writeSandwich}, then a CRC32 ({@code int}) of
+ * everything before it.
+ */
+public final class SandwichMenuSnapshot {
+
+    private static final int MAGIC = 0x53534d4e; // "SSMN"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 4;
+    private static final int CHECKSUM_SIZE = 4;
+
+    /**
+     * An id and an empty name.
+     */
+    private static final int MIN_SANDWICH_SIZE = 4 + 4;
+
+    @NonNull
+    private final File file;
+
+    public SandwichMenuSnapshot(@NonNull final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Replaces the stored snapshot. The new file is written alongside the old one and renamed over
+     * it, so a crash mid-write leaves the previous snapshot intact.
+     */
+    public void write(@NonNull final List<Sandwich> sandwiches) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(sandwiches.size());
+
+        for (final Sandwich sandwich : sandwiches) {
+            ModelCodec.writeSandwich(output, sandwich);
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        output.writeInt((int) crc.getValue());
+        output.flush();
+
+        BinaryFiles.writeAtomically(file, bytes.toByteArray());
+    }
+
+    /**
+     * @return the stored menu, or null if there is no snapshot or it was written by an
+     * incompatible version of this class.
+     * @throws IOException if the snapshot cannot be read, or is truncated or corrupt.
+     */
+    @Nullable
+    public List<Sandwich> read() throws IOException {
+        final ByteBuffer input = BinaryFiles.readFully(file);
+
+        if (input == null
+                || input.remaining() < HEADER_SIZE + CHECKSUM_SIZE
+                || input.getInt() != MAGIC
+                || input.getInt() != VERSION) {
+
+            return null;
+        }
+
+        final int checksumPosition = input.limit() - CHECKSUM_SIZE;
+        final CRC32 crc = new CRC32();
+        crc.update(input.array(), input.arrayOffset(), checksumPosition);
+
+        if (input.getInt(checksumPosition) != (int) crc.getValue()) {
+            throw new IOException("Corrupt sandwich menu snapshot " + file);
+        }
+
+        input.limit(checksumPosition);
+
+        try {
+            final int count = ModelCodec.readCount(input, MIN_SANDWICH_SIZE);
+            final List<Sandwich> result = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                result.add(ModelCodec.readSandwich(input));
+            }
+
+            return result;
+        } catch (final RuntimeException e) {
+            // E.g. a buffer underflow from a snapshot that passed its checksum but is malformed.
+            throw new IOException("Malformed sandwich menu snapshot " + file, e);
+        }
+    }
+
+}
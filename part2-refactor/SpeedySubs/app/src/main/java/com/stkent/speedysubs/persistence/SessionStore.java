@@ -0,0 +1,179 @@
+package com.stkent.speedysubs.persistence;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Stores the signed-in customer and their order in progress so that both survive process death.
+ *
+ * <p>Each field lives in its own small binary file: magic ({@code int}), format version
+ * ({@code int}), then the value as encoded by {@link ModelCodec}. The store remembers which
+ * objects it last wrote or read, and {@link #save} only rewrites the files whose values have
+ * changed since. Because the models are immutable, comparing by identity is enough; picking a
+ * card, for example, rewrites the order file but leaves the (much larger) customer file alone.
+ */
+public final class SessionStore {
+
+    private static final int CUSTOMER_MAGIC = 0x53534355; // "SSCU"
+    private static final int ORDER_MAGIC = 0x53534f52; // "SSOR"
+    private static final int VERSION = 1;
+
+    @NonNull
+    private final File customerFile;
+
+    @NonNull
+    private final File orderFile;
+
+    @Nullable
+    private Customer storedCustomer;
+
+    @Nullable
+    private Order storedOrder;
+
+    /**
+     * @param directory the directory to keep session files in. Created on first save if needed.
+     */
+    public SessionStore(@NonNull final File directory) {
+        this.customerFile = new File(directory, "customer.bin");
+        this.orderFile = new File(directory, "order.bin");
+    }
+
+    /**
+     * @return the stored customer, or null if there is none or it was written by an incompatible
+     * version of this class.
+     * @throws IOException if the file could not be read or does not decode to a customer.
+     */
+    @Nullable
+    public synchronized Customer readCustomer() throws IOException {
+        final ByteBuffer input = readHeader(customerFile, CUSTOMER_MAGIC);
+
+        try {
+            storedCustomer = input != null ? ModelCodec.readCustomer(input) : null;
+        } catch (final IOException | RuntimeException e) {
+            throw new IOException("Malformed customer file " + customerFile, e);
+        }
+
+        return storedCustomer;
+    }
+
+    /**
+     * @return the stored order, or null if there is none or it was written by an incompatible
+     * version of this class.
+     * @throws IOException if the file could not be read or does not decode to an order.
+     */
+    @Nullable
+    public synchronized Order readOrder() throws IOException {
+        final ByteBuffer input = readHeader(orderFile, ORDER_MAGIC);
+
+        try {
+            storedOrder = input != null ? ModelCodec.readOrder(input) : null;
+        } catch (final IOException | RuntimeException e) {
+            throw new IOException("Malformed order file " + orderFile, e);
+        }
+
+        return storedOrder;
+    }
+
+    /**
+     * Deletes the stored session, e.g. because it could not be read.
+     */
+    public synchronized void clear() throws IOException {
+        storedCustomer = null;
+        storedOrder = null;
+        delete(customerFile);
+        delete(orderFile);
+    }
+
+    /**
+     * Brings the stored session up to date with {@code customer} and {@code order}, rewriting
+     * only the fields that have changed. Null values delete their file.
+     */
+    public synchronized void save(@Nullable final Customer customer, @Nullable final Order order)
+            throws IOException {
+
+        if (customer != storedCustomer) {
+            if (customer == null) {
+                delete(customerFile);
+            } else {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final DataOutputStream output = startFile(bytes, CUSTOMER_MAGIC);
+                ModelCodec.writeCustomer(output, customer);
+                finishFile(output, bytes, customerFile);
+            }
+
+            storedCustomer = customer;
+        }
+
+        if (order != storedOrder) {
+            if (order == null) {
+                delete(orderFile);
+            } else {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final DataOutputStream output = startFile(bytes, ORDER_MAGIC);
+                ModelCodec.writeOrder(output, order);
+                finishFile(output, bytes, orderFile);
+            }
+
+            storedOrder = order;
+        }
+    }
+
+    @Nullable
+    private static ByteBuffer readHeader(@NonNull final File file, final int magic)
+            throws IOException {
+
+        final ByteBuffer result = BinaryFiles.readFully(file);
+
+        if (result == null
+                || result.remaining() < 8
+                || result.getInt() != magic
+                || result.getInt() != VERSION) {
+
+            return null;
+        }
+
+        return result;
+    }
+
+    @NonNull
+    private static DataOutputStream startFile(
+            @NonNull final ByteArrayOutputStream bytes,
+            final int magic) throws IOException {
+
+        final DataOutputStream result = new DataOutputStream(bytes);
+        result.writeInt(magic);
+        result.writeInt(VERSION);
+        return result;
+    }
+
+    private static void finishFile(
+            @NonNull final DataOutputStream output,
+            @NonNull final ByteArrayOutputStream bytes,
+            @NonNull final File file) throws IOException {
+
+        final File directory = file.getParentFile();
+
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        output.flush();
+        BinaryFiles.writeAtomically(file, bytes.toByteArray());
+    }
+
+    private static void delete(@NonNull final File file) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not delete " + file);
+        }
+    }
+
+}
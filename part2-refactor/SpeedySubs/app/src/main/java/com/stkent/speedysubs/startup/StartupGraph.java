@@ -0,0 +1,420 @@
+package com.stkent.speedysubs.startup;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs application initialization as a graph of {@link StartupTask}s. Each task starts on the
+ * given executor as soon as all of its dependencies have finished, so independent tasks run in
+ * parallel. The main thread only waits for the tasks that the first screen needs (see
+ * {@link #awaitFirstFrameTasks()}); everything else finishes in the background.
+ *
+ * <p>If a task throws, the tasks that depend on it are skipped, the failure is reported to the
+ * {@link Listener}, and it is rethrown from any later await call that waits for that task. Tasks
+ * are added, and the graph started and awaited, on a single thread (normally the main thread).
+ */
+public final class StartupGraph {
+
+    public interface Listener {
+        /**
+         * Called on the thread that ran the task. Not called for skipped tasks.
+         */
+        void onTaskFinished(@NonNull TaskTiming timing);
+
+        /**
+         * Called on the thread that ran the task, before its dependents are skipped.
+         */
+        void onTaskFailed(@NonNull String taskName, @NonNull Throwable error);
+    }
+
+    public static final class TaskTiming {
+
+        @NonNull
+        private final String name;
+
+        @NonNull
+        private final String threadName;
+
+        private final long startOffsetUs;
+        private final long durationUs;
+
+        TaskTiming(
+                @NonNull final String name,
+                @NonNull final String threadName,
+                final long startOffsetUs,
+                final long durationUs) {
+
+            this.name = name;
+            this.threadName = threadName;
+            this.startOffsetUs = startOffsetUs;
+            this.durationUs = durationUs;
+        }
+
+        @NonNull
+        public String getName() {
+            return name;
+        }
+
+        @NonNull
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * @return when the task started, relative to {@link #start}.
+         */
+        public long getStartOffsetUs() {
+            return startOffsetUs;
+        }
+
+        public long getDurationUs() {
+            return durationUs;
+        }
+
+        @Override
+        @NonNull
+        public String toString() {
+            return name + " on " + threadName + ": started at +" + startOffsetUs / 1000.0
+                    + "ms, took " + durationUs / 1000.0 + "ms";
+        }
+
+    }
+
+    /**
+     * Per-task bookkeeping, created when the graph starts.
+     */
+    private static final class Node {
+
+        @NonNull
+        private final StartupTask task;
+
+        @NonNull
+        private final List<Node> dependents = new ArrayList<>();
+
+        @NonNull
+        private final AtomicInteger remainingDependencyCount;
+
+        private boolean blocksFirstFrame;
+
+        /**
+         * Set by a failed (transitive) dependency before that dependency releases this node.
+         */
+        private volatile boolean isSkipped;
+
+        private Node(@NonNull final StartupTask task) {
+            this.task = task;
+            this.remainingDependencyCount = new AtomicInteger(task.getDependencies().size());
+        }
+
+    }
+
+    @NonNull
+    private final Map<String, StartupTask> tasksByName = new LinkedHashMap<>();
+
+    @NonNull
+    private final List<TaskTiming> timings =
+            Collections.synchronizedList(new ArrayList<TaskTiming>());
+
+    @NonNull
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    /**
+     * The first failure of a task that blocks the first frame. Background task failures must not
+     * stop the first screen from showing.
+     */
+    @NonNull
+    private final AtomicReference<RuntimeException> firstFrameFailure = new AtomicReference<>();
+
+    @Nullable
+    private Listener listener;
+
+    @Nullable
+    private Executor executor;
+
+    @Nullable
+    private CountDownLatch firstFrameLatch;
+
+    @Nullable
+    private CountDownLatch allTasksLatch;
+
+    private long startNanos;
+
+    /**
+     * @throws IllegalArgumentException if a task with the same name has already been added.
+     */
+    public void addTask(@NonNull final StartupTask task) {
+        checkNotStarted();
+
+        if (tasksByName.containsKey(task.getName())) {
+            throw new IllegalArgumentException("Duplicate startup task " + task.getName());
+        }
+
+        tasksByName.put(task.getName(), task);
+    }
+
+    public void setListener(@Nullable final Listener listener) {
+        checkNotStarted();
+        this.listener = listener;
+    }
+
+    /**
+     * Starts every task that has no dependencies. Returns immediately.
+     *
+     * @throws IllegalArgumentException if a task depends on an unknown task, or the dependencies
+     *                                  form a cycle.
+     */
+    public void start(@NonNull final Executor executor) {
+        checkNotStarted();
+
+        final Map<String, Node> nodesByName = new HashMap<>();
+
+        for (final StartupTask task : tasksByName.values()) {
+            nodesByName.put(task.getName(), new Node(task));
+        }
+
+        final List<Node> roots = new ArrayList<>();
+
+        for (final Node node : nodesByName.values()) {
+            if (node.task.getDependencies().isEmpty()) {
+                roots.add(node);
+            }
+
+            for (final String dependencyName : node.task.getDependencies()) {
+                final Node dependency = nodesByName.get(dependencyName);
+
+                if (dependency == null) {
+                    throw new IllegalArgumentException(
+                            node.task.getName() + " depends on unknown task " + dependencyName);
+                }
+
+                dependency.dependents.add(node);
+            }
+        }
+
+        checkAcyclic(nodesByName.values());
+
+        int firstFrameTaskCount = 0;
+
+        for (final Node node : nodesByName.values()) {
+            if (node.task.blocksFirstFrame()) {
+                firstFrameTaskCount += markBlocksFirstFrame(node, nodesByName);
+            }
+        }
+
+        this.executor = executor;
+        this.firstFrameLatch = new CountDownLatch(firstFrameTaskCount);
+        this.allTasksLatch = new CountDownLatch(nodesByName.size());
+        this.startNanos = System.nanoTime();
+
+        for (final Node root : roots) {
+            submit(root);
+        }
+    }
+
+    /**
+     * Blocks until every task that blocks the first frame, and everything those tasks depend on,
+     * has finished.
+     */
+    public void awaitFirstFrameTasks() {
+        await(checkStarted(firstFrameLatch), firstFrameFailure);
+    }
+
+    /**
+     * Blocks until every task has finished.
+     */
+    public void awaitAllTasks() {
+        await(checkStarted(allTasksLatch), failure);
+    }
+
+    /**
+     * @return the timings of every task that has finished so far, in completion order.
+     */
+    @NonNull
+    public List<TaskTiming> getTimings() {
+        synchronized (timings) {
+            return new ArrayList<>(timings);
+        }
+    }
+
+    private void submit(@NonNull final Node node) {
+        //noinspection ConstantConditions: only called once started.
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!node.isSkipped) {
+                    runTask(node);
+                }
+
+                finish(node);
+            }
+        });
+    }
+
+    private void runTask(@NonNull final Node node) {
+        final long taskStartNanos = System.nanoTime();
+
+        try {
+            node.task.run();
+        } catch (final Throwable e) {
+            final RuntimeException taskFailure =
+                    new RuntimeException("Startup task " + node.task.getName() + " failed", e);
+
+            failure.compareAndSet(null, taskFailure);
+
+            // Every dependency of a first-frame task blocks the first frame too, so a first-frame
+            // task can only be skipped because of a failure recorded here.
+            if (node.blocksFirstFrame) {
+                firstFrameFailure.compareAndSet(null, taskFailure);
+            }
+
+            if (listener != null) {
+                listener.onTaskFailed(node.task.getName(), e);
+            }
+
+            skipDependents(node);
+            return;
+        }
+
+        final TaskTiming timing = new TaskTiming(
+                node.task.getName(),
+                Thread.currentThread().getName(),
+                (taskStartNanos - startNanos) / 1000,
+                (System.nanoTime() - taskStartNanos) / 1000);
+
+        timings.add(timing);
+
+        if (listener != null) {
+            listener.onTaskFinished(timing);
+        }
+    }
+
+    private void finish(@NonNull final Node node) {
+        if (node.blocksFirstFrame) {
+            //noinspection ConstantConditions: only called once started.
+            firstFrameLatch.countDown();
+        }
+
+        //noinspection ConstantConditions: only called once started.
+        allTasksLatch.countDown();
+
+        for (final Node dependent : node.dependents) {
+            if (dependent.remainingDependencyCount.decrementAndGet() == 0) {
+                submit(dependent);
+            }
+        }
+    }
+
+    private static void skipDependents(@NonNull final Node node) {
+        for (final Node dependent : node.dependents) {
+            if (!dependent.isSkipped) {
+                dependent.isSkipped = true;
+                skipDependents(dependent);
+            }
+        }
+    }
+
+    /**
+     * Marks {@code node} and its transitive dependencies as blocking the first frame.
+     *
+     * @return the number of nodes newly marked.
+     */
+    private static int markBlocksFirstFrame(
+            @NonNull final Node node,
+            @NonNull final Map<String, Node> nodesByName) {
+
+        if (node.blocksFirstFrame) return 0;
+
+        node.blocksFirstFrame = true;
+        int result = 1;
+
+        for (final String dependencyName : node.task.getDependencies()) {
+            result += markBlocksFirstFrame(nodesByName.get(dependencyName), nodesByName);
+        }
+
+        return result;
+    }
+
+    private static void checkAcyclic(@NonNull final Iterable<Node> nodes) {
+        final Set<Node> visited = new HashSet<>();
+        final Set<Node> inProgress = new HashSet<>();
+
+        for (final Node node : nodes) {
+            checkAcyclic(node, visited, inProgress);
+        }
+    }
+
+    private static void checkAcyclic(
+            @NonNull final Node node,
+            @NonNull final Set<Node> visited,
+            @NonNull final Set<Node> inProgress) {
+
+        if (visited.contains(node)) return;
+
+        if (!inProgress.add(node)) {
+            throw new IllegalArgumentException(
+                    "Startup task " + node.task.getName() + " depends on itself");
+        }
+
+        for (final Node dependent : node.dependents) {
+            checkAcyclic(dependent, visited, inProgress);
+        }
+
+        inProgress.remove(node);
+        visited.add(node);
+    }
+
+    private static void await(
+            @NonNull final CountDownLatch latch,
+            @NonNull final AtomicReference<RuntimeException> failureReference) {
+
+        boolean isInterrupted = false;
+
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (final InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        final RuntimeException failure = failureReference.get();
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void checkNotStarted() {
+        if (executor != null) {
+            throw new IllegalStateException("The startup graph has already been started");
+        }
+    }
+
+    @NonNull
+    private static CountDownLatch checkStarted(@Nullable final CountDownLatch latch) {
+        if (latch == null) {
+            throw new IllegalStateException("The startup graph has not been started");
+        }
+
+        return latch;
+    }
+
+}
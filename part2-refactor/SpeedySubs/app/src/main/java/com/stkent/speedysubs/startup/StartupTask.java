@@ -0,0 +1,56 @@
+package com.stkent.speedysubs.startup;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A unit of application initialization, run once by a {@link StartupGraph}.
+ */
+public abstract class StartupTask {
+
+    @NonNull
+    private final String name;
+
+    private final boolean blocksFirstFrame;
+
+    @NonNull
+    private final List<String> dependencies;
+
+    /**
+     * @param blocksFirstFrame whether the first screen needs this task to have finished before it
+     *                         can be shown. Keep this set as small as possible.
+     * @param dependencies     the names of tasks that must finish before this one starts.
+     */
+    protected StartupTask(
+            @NonNull final String name,
+            final boolean blocksFirstFrame,
+            @NonNull final String... dependencies) {
+
+        this.name = name;
+        this.blocksFirstFrame = blocksFirstFrame;
+        this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies));
+    }
+
+    /**
+     * Called on a background thread.
+     */
+    protected abstract void run();
+
+    @NonNull
+    public final String getName() {
+        return name;
+    }
+
+    public final boolean blocksFirstFrame() {
+        return blocksFirstFrame;
+    }
+
+    @NonNull
+    public final List<String> getDependencies() {
+        return dependencies;
+    }
+
+}
@@ -1,63 +1,303 @@
 package com.stkent.speedysubs.state;
 
+import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
 
 import com.stkent.speedysubs.networking.ordering.models.Customer;
 import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.persistence.SessionStore;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The signed-in customer and their order in progress. State is published as immutable
+ * {@link Snapshot}s: reads never block, and every change is a compare-and-set against the
+ * snapshot it was computed from, so concurrent changes are never lost.
+ *
+ * <p>The shared instance persists its state to a {@link SessionStore} so that it survives process
+ * death. The stored state is restored on first access, and changes are saved in the background;
+ * bursts of changes are coalesced into a single save.
+ */
 public final class Session {
 
+    private static final String TAG = "Session";
+    private static final String STORE_DIRECTORY_NAME = "session";
+
+    /**
+     * Written once, under {@link #SYNC_LOCK}, and read without locking: every screen reads the
+     * session, so {@link #getSharedInstance()} must stay as cheap as a field read.
+     */
     @Nullable
-    private static Session sharedInstance;
+    private static volatile Session sharedInstance;
 
     private static final Object SYNC_LOCK = new Object();
 
-    @NonNull
-    public static Session getSharedInstance() {
+    /**
+     * Creates the shared instance. Must be called from {@code Application.onCreate}, before
+     * {@link #getSharedInstance()} is used.
+     */
+    public static void initialize(@NonNull final Context context) {
         synchronized (SYNC_LOCK) {
             if (sharedInstance == null) {
-                sharedInstance = new Session();
+                sharedInstance = new Session(
+                        new SessionStore(new File(context.getFilesDir(), STORE_DIRECTORY_NAME)),
+                        Executors.newSingleThreadExecutor());
             }
+        }
+    }
+
+    @NonNull
+    public static Session getSharedInstance() {
+        final Session result = sharedInstance;
+
+        if (result == null) {
+            throw new IllegalStateException("Session.initialize has not been called");
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes a new snapshot from the current one. May be called several times per update if
+     * other threads change the session concurrently, so must not have side effects.
+     */
+    public interface Update {
+        @NonNull
+        Snapshot apply(@NonNull Snapshot current);
+    }
+
+    public static final class Snapshot {
+
+        /**
+         * The state of a session with nobody logged in.
+         */
+        public static final Snapshot EMPTY = new Snapshot(null, null);
+
+        @Nullable
+        private final Customer customer;
 
-            return sharedInstance;
+        @Nullable
+        private final Order order;
+
+        private Snapshot(@Nullable final Customer customer, @Nullable final Order order) {
+            this.customer = customer;
+            this.order = order;
+        }
+
+        @Nullable
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        @Nullable
+        public Order getOrder() {
+            return order;
+        }
+
+        @NonNull
+        public Snapshot withCustomer(@Nullable final Customer customer) {
+            return new Snapshot(customer, order);
+        }
+
+        @NonNull
+        public Snapshot withOrder(@Nullable final Order order) {
+            return new Snapshot(customer, order);
         }
+
     }
 
+    @NonNull
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
     @Nullable
-    private Customer customer;
+    private final SessionStore store;
 
     @Nullable
-    private Order order;
+    private final Executor saveExecutor;
+
+    @NonNull
+    private final Object restoreLock = new Object();
 
-    private Session() {
-        // This constructor intentionally left blank.
+    private volatile boolean isRestored;
+
+    @NonNull
+    private final AtomicBoolean isSaveScheduled = new AtomicBoolean();
+
+    /**
+     * Creates a session that is not persisted.
+     */
+    @VisibleForTesting
+    Session() {
+        this(null, null);
+    }
+
+    @VisibleForTesting
+    Session(@Nullable final SessionStore store, @Nullable final Executor saveExecutor) {
+        this.store = store;
+        this.saveExecutor = saveExecutor;
+        this.isRestored = store == null;
+    }
+
+    @NonNull
+    public Snapshot getSnapshot() {
+        ensureRestored();
+        return snapshot.get();
     }
 
     @Nullable
     public Customer getCustomer() {
-        return customer;
+        return getSnapshot().getCustomer();
     }
 
     @Nullable
     public Order getOrder() {
-        return order;
+        return getSnapshot().getOrder();
+    }
+
+    /**
+     * Atomically replaces the current snapshot with {@code update}'s result.
+     *
+     * @return the snapshot that was installed.
+     */
+    @NonNull
+    public Snapshot update(@NonNull final Update update) {
+        ensureRestored();
+
+        while (true) {
+            final Snapshot current = snapshot.get();
+            final Snapshot next = update.apply(current);
+
+            if (next == current) {
+                return next;
+            }
+
+            if (snapshot.compareAndSet(current, next)) {
+                scheduleSave();
+                return next;
+            }
+        }
     }
 
     public void setCustomer(@NonNull final Customer customer) {
-        this.customer = customer;
+        update(new Update() {
+            @NonNull
+            @Override
+            public Snapshot apply(@NonNull final Snapshot current) {
+                return current.withCustomer(customer);
+            }
+        });
     }
 
     public void clearCustomer() {
-        customer = null;
+        update(new Update() {
+            @NonNull
+            @Override
+            public Snapshot apply(@NonNull final Snapshot current) {
+                return current.withCustomer(null);
+            }
+        });
     }
 
     public void setOrder(@NonNull final Order order) {
-        this.order = order;
+        update(new Update() {
+            @NonNull
+            @Override
+            public Snapshot apply(@NonNull final Snapshot current) {
+                return current.withOrder(order);
+            }
+        });
     }
 
-    public void clearOrder() {
-        order = null;
+    /**
+     * Clears the order in progress, but only if it is still {@code order} (or a copy of it with
+     * the same idempotency key), so that finishing one order never discards a newer one.
+     */
+    public void clearOrder(@NonNull final Order order) {
+        update(new Update() {
+            @NonNull
+            @Override
+            public Snapshot apply(@NonNull final Snapshot current) {
+                final Order currentOrder = current.getOrder();
+
+                if (currentOrder == null
+                        || !currentOrder.getIdempotencyKey().equals(order.getIdempotencyKey())) {
+
+                    return current;
+                }
+
+                return current.withOrder(null);
+            }
+        });
+    }
+
+    /**
+     * Loads the stored session the first time any state is accessed. Only the first caller pays
+     * for the (small, single-read) file access; later calls are a volatile read. A stored session
+     * that cannot be read is deleted, and the session starts empty.
+     */
+    private void ensureRestored() {
+        if (isRestored) return;
+
+        synchronized (restoreLock) {
+            if (isRestored) return;
+
+            //noinspection ConstantConditions: store is non-null whenever isRestored starts false.
+            try {
+                final Customer customer = store.readCustomer();
+                final Order order = store.readOrder();
+                snapshot.set(new Snapshot(customer, order));
+            } catch (final IOException e) {
+                Log.w(TAG, "Could not restore the stored session; starting empty.", e);
+                discardStoredSession();
+            } finally {
+                isRestored = true;
+            }
+        }
+    }
+
+    /**
+     * Deletes a stored session that could not be read, so that it is not read again on the next
+     * start. If that fails too, the next start simply discards it again.
+     */
+    private void discardStoredSession() {
+        try {
+            //noinspection ConstantConditions: only called while restoring, when store is non-null.
+            store.clear();
+        } catch (final IOException e) {
+            Log.w(TAG, "Could not delete the unreadable stored session.", e);
+        }
+    }
+
+    /**
+     * Saves the latest snapshot in the background. If a save is already pending, it will pick up
+     * this change too, so no new one is scheduled.
+     */
+    private void scheduleSave() {
+        if (store == null || saveExecutor == null) return;
+        if (!isSaveScheduled.compareAndSet(false, true)) return;
+
+        saveExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                isSaveScheduled.set(false);
+
+                final Snapshot latest = snapshot.get();
+
+                try {
+                    store.save(latest.getCustomer(), latest.getOrder());
+                } catch (final IOException e) {
+                    Log.w(TAG, "Could not save the session.", e);
+                }
+            }
+        });
     }
 
 }
@@ -0,0 +1,157 @@
+package com.stkent.speedysubs.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A map from {@code int} keys to non-null values that never boxes its keys, so lookups do not
+ * allocate. Uses open addressing with linear probing and grows to stay at most half full.
+ *
+ * <p>Not thread-safe.
+ */
+public final class IntObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    @NonNull
+    private int[] keys;
+
+    /**
+     * A null value marks an empty slot.
+     */
+    @NonNull
+    private Object[] values;
+
+    private int size;
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public IntObjectMap(final int expectedSize) {
+        int capacity = MIN_CAPACITY;
+
+        while (capacity < expectedSize * 2) {
+            capacity *= 2;
+        }
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    @Nullable
+    public V get(final int key) {
+        final int mask = keys.length - 1;
+
+        for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                @SuppressWarnings("unchecked")
+                final V result = (V) values[slot];
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the value previously associated with {@code key}, or null if there was none.
+     */
+    @Nullable
+    public V put(final int key, @NonNull final V value) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                @SuppressWarnings("unchecked")
+                final V result = (V) values[slot];
+                values[slot] = value;
+                return result;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the value that was associated with {@code key}, or null if there was none.
+     */
+    @Nullable
+    public V remove(final int key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        if (values[slot] == null) return null;
+
+        @SuppressWarnings("unchecked")
+        final V result = (V) values[slot];
+
+        // Shift later entries of the same probe run back into the gap, so that lookups never
+        // stop early at an empty slot that used to be occupied.
+        int gap = slot;
+
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            final int home = hash(keys[next]) & mask;
+
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+
+        values[gap] = null;
+        size--;
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+
+        final int mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) continue;
+
+            int slot = hash(oldKeys[i]) & mask;
+
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Spreads sequential keys (such as ids or year-months) across the table.
+     */
+    private static int hash(final int key) {
+        final int product = key * 0x9E3779B9;
+        return product ^ (product >>> 16);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.stkent.speedysubs.choosecard;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CreditCardExpiryIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2019, 6, 15);
+
+    private final CreditCard expired =
+            new CreditCard(1, "Visa 1111", LocalDate.of(2018, 7, 31));
+
+    private final CreditCard expiresToday =
+            new CreditCard(2, "Visa 2222", TODAY);
+
+    private final CreditCard expiresSoon =
+            new CreditCard(3, "Visa 3333", LocalDate.of(2019, 6, 30));
+
+    private final CreditCard expiresLater =
+            new CreditCard(4, "Visa 4444", LocalDate.of(2025, 4, 30));
+
+    @Test
+    public void test_onlyCardsExpiringAfterToday_areUsable_inOriginalOrder() {
+        // Given
+        CreditCardExpiryIndex index = new CreditCardExpiryIndex(
+                Arrays.asList(expiresLater, expired, expiresSoon, expiresToday));
+
+        // When
+        List<CreditCard> usableCards = index.getUsableCards(TODAY);
+
+        // Then
+        assertEquals(Arrays.asList(expiresLater, expiresSoon), usableCards);
+    }
+
+    @Test
+    public void test_nextExpirationDate_isEarliestAmongUsableCards() {
+        // Given
+        CreditCardExpiryIndex index = new CreditCardExpiryIndex(
+                Arrays.asList(expiresLater, expired, expiresSoon, expiresToday));
+
+        // When
+        LocalDate nextExpirationDate = index.getNextExpirationDate(TODAY);
+
+        // Then
+        assertEquals(expiresSoon.getExpirationDate(), nextExpirationDate);
+    }
+
+    @Test
+    public void test_nextExpirationDate_isNull_whenNoCardsAreUsable() {
+        // Given
+        CreditCardExpiryIndex index = new CreditCardExpiryIndex(Collections.singletonList(expired));
+
+        // When
+        LocalDate nextExpirationDate = index.getNextExpirationDate(TODAY);
+
+        // Then
+        assertNull(nextExpirationDate);
+    }
+
+}
@@ -2,15 +2,23 @@ package com.stkent.speedysubs.choosecard;
 
 import android.arch.core.executor.testing.InstantTaskExecutorRule;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.ordering.CreditCardPrefetcher;
+import com.stkent.speedysubs.networking.ordering.CreditCardRepository;
+import com.stkent.speedysubs.networking.ordering.IOrderQueue;
 import com.stkent.speedysubs.networking.ordering.IOrderingApi;
+import com.stkent.speedysubs.networking.ordering.OrderingApi;
 import com.stkent.speedysubs.networking.ordering.models.CreditCard;
 import com.stkent.speedysubs.networking.ordering.models.Customer;
 import com.stkent.speedysubs.networking.ordering.models.Order;
 import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.networking.ordering.models.Versioned;
 import com.stkent.speedysubs.state.ISession;
+import com.stkent.speedysubs.state.Session;
 import com.stkent.speedysubs.time.ICalendar;
+import com.stkent.speedysubs.time.IScheduler;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,7 +37,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -47,15 +57,35 @@ public class CreditCardViewModelTest {
     @Mock
     private ISession mockSession;
 
+    @Mock
+    private IOrderQueue mockOrderQueue;
+
     @Mock
     private ICalendar mockCalendar;
 
+    @Mock
+    private IScheduler mockScheduler;
+
     @Captor
     private ArgumentCaptor<Customer> customerCaptor;
 
     @Captor
     private ArgumentCaptor<Order> orderCaptor;
 
+    @Captor
+    private ArgumentCaptor<Runnable> creditCardChangeListenerCaptor;
+
+    /**
+     * Only used by tests that configure the session with {@link #configureSession}.
+     */
+    @NonNull
+    private Session.Snapshot sessionSnapshot = Session.Snapshot.EMPTY;
+
+    /**
+     * Shared with the view model, so that cards prefetched by a test are handed to it.
+     */
+    private CreditCardPrefetcher creditCardPrefetcher;
+
     @Test
     public void test_initialCreditCardsAreEmitted_whenViewModelIsCreated() {
         // Given
@@ -103,8 +133,7 @@ public class CreditCardViewModelTest {
         // Given
         when(mockCalendar.today()).thenReturn(LocalDate.of(2018, 3, 31));
 
-        when(mockSession.getCustomer())
-                .thenReturn(new Customer("test customer", new ArrayList<CreditCard>()));
+        configureSession(new Customer("test customer", new ArrayList<CreditCard>()), null);
 
         CreditCardViewModel viewModel = getInitializedViewModel();
 
@@ -128,8 +157,7 @@ public class CreditCardViewModelTest {
         // Given
         when(mockCalendar.today()).thenReturn(LocalDate.of(2020, 3, 31));
 
-        when(mockSession.getCustomer())
-                .thenReturn(new Customer("test customer", new ArrayList<CreditCard>()));
+        configureSession(new Customer("test customer", new ArrayList<CreditCard>()), null);
 
         CreditCardViewModel viewModel = getInitializedViewModel();
 
@@ -166,10 +194,8 @@ public class CreditCardViewModelTest {
                 new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
 
         Customer customer = new Customer("test-customer", initialCreditCards);
-        when(mockSession.getCustomer()).thenReturn(customer);
-
         Sandwich orderSandwich = new Sandwich(123, "Sandwich 123");
-        when(mockSession.getOrder()).thenReturn(new Order(orderSandwich, null));
+        configureSession(customer, new Order(orderSandwich, null));
 
         CreditCardViewModel viewModel = getInitializedViewModel();
 
@@ -177,7 +203,7 @@ public class CreditCardViewModelTest {
         viewModel.onCreditCardSelected(creditCardToSelect);
 
         // Then
-        verify(mockOrderingApi, times(1)).placeOrder(
+        verify(mockOrderQueue, times(1)).submit(
                 customerCaptor.capture(),
                 orderCaptor.capture(),
                 ArgumentMatchers.<Callback<Integer>>any());
@@ -191,26 +217,119 @@ public class CreditCardViewModelTest {
         assertEquals(creditCardToSelect, actualOrder.getCreditCard());
     }
 
+    @Test
+    public void test_updatedCreditCardsAreEmitted_whenBackendAnnouncesAChange() {
+        // Given
+        when(mockCalendar.today()).thenReturn(LocalDate.of(2018, 3, 31));
+
+        configureSession(new Customer("test customer", new ArrayList<CreditCard>()), null);
+
+        CreditCardViewModel viewModel = getInitializedViewModel();
+
+        verify(mockOrderingApi, times(1)).subscribeToChanges(
+                eq(OrderingApi.Topic.CREDIT_CARDS),
+                creditCardChangeListenerCaptor.capture());
+
+        List<CreditCard> updatedCreditCards = Arrays.asList(
+                new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31)),
+                new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
+
+        configureGetCreditCardsSuccess(updatedCreditCards);
+
+        // When
+        creditCardChangeListenerCaptor.getValue().run();
+
+        // Then
+        assertEquals(updatedCreditCards, viewModel.creditCards().getValue());
+    }
+
+    @Test
+    public void test_prefetchedCreditCardsAreEmitted_whenViewModelIsCreated() {
+        // Given
+        when(mockCalendar.today()).thenReturn(LocalDate.of(2018, 3, 31));
+
+        configureSession(new Customer("test customer", new ArrayList<CreditCard>()), null);
+
+        final List<CreditCard> prefetchedCreditCards = Arrays.asList(
+                new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31)),
+                new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
+
+        doAnswer(new Answer<Callback<List<CreditCard>>>() {
+            @Override
+            public Callback<List<CreditCard>> answer(final InvocationOnMock invocation) {
+                Callback<List<CreditCard>> callback = invocation.getArgument(0);
+                callback.onSuccess(prefetchedCreditCards);
+                return null;
+            }
+        }).when(mockOrderingApi).getCustomerCreditCards(
+                ArgumentMatchers.<Callback<List<CreditCard>>>any());
+
+        creditCardPrefetcher = new CreditCardPrefetcher(mockOrderingApi, SECONDS.toMillis(30));
+        creditCardPrefetcher.prefetch();
+
+        // When
+        CreditCardViewModel viewModel = getInitializedViewModel();
+
+        // Then
+        assertEquals(prefetchedCreditCards, viewModel.creditCards().getValue());
+    }
+
     // Helper methods
 
     @NonNull
     private CreditCardViewModel getInitializedViewModel() {
+        if (creditCardPrefetcher == null) {
+            creditCardPrefetcher = new CreditCardPrefetcher(mockOrderingApi, SECONDS.toMillis(30));
+        }
+
         return new CreditCardViewModel(
                 mockOrderingApi,
                 mockSession,
-                mockCalendar);
+                mockOrderQueue,
+                creditCardPrefetcher,
+                mockCalendar,
+                mockScheduler,
+                new CreditCardRepository(mockOrderingApi, mockSession));
+    }
+
+    /**
+     * Makes {@link #mockSession} hold {@code customer} and {@code order}, and apply updates to
+     * them like a real session does.
+     */
+    private void configureSession(@Nullable final Customer customer, @Nullable final Order order) {
+        sessionSnapshot = Session.Snapshot.EMPTY.withCustomer(customer).withOrder(order);
+
+        when(mockSession.getCustomer()).thenAnswer(new Answer<Customer>() {
+            @Override
+            public Customer answer(final InvocationOnMock invocation) {
+                return sessionSnapshot.getCustomer();
+            }
+        });
+
+        when(mockSession.update(ArgumentMatchers.<Session.Update>any()))
+                .thenAnswer(new Answer<Session.Snapshot>() {
+                    @Override
+                    public Session.Snapshot answer(final InvocationOnMock invocation) {
+                        Session.Update update = invocation.getArgument(0);
+                        sessionSnapshot = update.apply(sessionSnapshot);
+                        return sessionSnapshot;
+                    }
+                });
     }
 
     private void configureGetCreditCardsSuccess(@NonNull final List<CreditCard> creditCards) {
-        doAnswer(new Answer<Callback<List<CreditCard>>>() {
+        doAnswer(new Answer<Callback<Versioned<List<CreditCard>>>>() {
             @Override
-            public Callback<List<CreditCard>> answer(final InvocationOnMock invocation) {
-                Callback<List<CreditCard>> callback = invocation.getArgument(0);
-                callback.onSuccess(creditCards);
+            public Callback<Versioned<List<CreditCard>>> answer(
+                    final InvocationOnMock invocation) {
+
+                Callback<Versioned<List<CreditCard>>> callback = invocation.getArgument(1);
+                callback.onSuccess(Versioned.modified("updated", creditCards));
                 return null;
             }
-        }).when(mockOrderingApi).getCustomerCreditCards(
-                ArgumentMatchers.<Callback<List<CreditCard>>>any());
+        }).when(mockOrderingApi).getCustomerCreditCardsIfModified(
+                ArgumentMatchers.<String>any(),
+                ArgumentMatchers.<Callback<Versioned<List<CreditCard>>>>any());
     }
 
 }
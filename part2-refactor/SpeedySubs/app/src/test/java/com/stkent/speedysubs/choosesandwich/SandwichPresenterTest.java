@@ -5,13 +5,18 @@ import android.support.annotation.NonNull;
 import com.stkent.speedysubs.choosesandwich.ISandwichView.DisplaySandwich;
 import com.stkent.speedysubs.networking.Callback;
 import com.stkent.speedysubs.networking.ordering.IOrderingApi;
+import com.stkent.speedysubs.networking.ordering.OrderingApi;
+import com.stkent.speedysubs.networking.ordering.SandwichMenuCache;
 import com.stkent.speedysubs.networking.ordering.models.Order;
 import com.stkent.speedysubs.networking.ordering.models.Sandwich;
-import com.stkent.speedysubs.persistence.IFaveStorage;
+import com.stkent.speedysubs.persistence.IFavoritesStore;
+import com.stkent.speedysubs.persistence.SandwichMenuSnapshot;
 import com.stkent.speedysubs.state.ISession;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
@@ -21,11 +26,17 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -34,6 +45,16 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class SandwichPresenterTest {
 
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Mock
     private ISandwichView mockSandwichView;
 
@@ -44,7 +65,7 @@ public class SandwichPresenterTest {
     private ISession mockSession;
 
     @Mock
-    private IFaveStorage mockFaveStorage;
+    private IFavoritesStore mockFavoritesStore;
 
     @Captor
     ArgumentCaptor<Order> orderCaptor;
@@ -52,59 +73,75 @@ public class SandwichPresenterTest {
     @Captor
     ArgumentCaptor<List<DisplaySandwich>> sandwichesCaptor;
 
+    @Captor
+    ArgumentCaptor<Runnable> menuChangeListenerCaptor;
+
     private SandwichPresenter presenter;
 
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
+        File menuSnapshotFile = new File(temporaryFolder.newFolder(), "sandwich_menu.bin");
+
         presenter = new SandwichPresenter(
                 mockSandwichView,
                 mockOrderingApi,
                 mockSession,
-                mockFaveStorage);
+                new SandwichMenuCache(
+                        mockOrderingApi,
+                        new SandwichMenuSnapshot(menuSnapshotFile),
+                        DIRECT_EXECUTOR,
+                        MINUTES.toMillis(5)),
+                mockFavoritesStore);
     }
 
     @Test
-    public void test_sandwichLoadCallIsMade_onScreenStart() {
+    public void test_sandwichLoadCallIsMade_whenViewIsCreated() {
         // When
-        presenter.onStart();
+        presenter.onViewCreated();
 
         // Then
-        verify(mockOrderingApi, times(1)).getSandwiches(
+        verify(mockOrderingApi, times(1)).getSandwichPage(
+                eq(0),
+                eq(SandwichMenuCache.PAGE_SIZE),
                 ArgumentMatchers.<Callback<List<Sandwich>>>any());
     }
 
     @Test
-    public void test_storedFaveIsUpdated_whenUserSelectsASandwich() {
+    public void test_orderIsRecordedInFavorites_whenUserSelectsASandwich() {
         // Given
+        when(mockFavoritesStore.getFavoriteSandwichIds(3)).thenReturn(new int[0]);
+
         Sandwich sandwichToSelect = new Sandwich(456, "Test sandwich 456");
 
-        configureGetSandwichesSuccess(
+        configureGetFirstPageSuccess(
                 Arrays.asList(
                         new Sandwich(123, "Test sandwich 123"),
                         sandwichToSelect,
                         new Sandwich(789, "Test sandwich 789")));
 
-        presenter.onStart();
+        presenter.onViewCreated();
 
         // When
         presenter.onSandwichSelected(sandwichToSelect);
 
         // Then
-        verify(mockFaveStorage, times(1)).setFavoriteSandwichId(456);
+        verify(mockFavoritesStore, times(1)).recordOrder(456);
     }
 
     @Test
     public void test_orderIsUpdatedCorrectly_whenUserSelectsASandwich() {
         // Given
+        when(mockFavoritesStore.getFavoriteSandwichIds(3)).thenReturn(new int[0]);
+
         Sandwich sandwichToSelect = new Sandwich(456, "Test sandwich 456");
 
-        configureGetSandwichesSuccess(
+        configureGetFirstPageSuccess(
                 Arrays.asList(
                         new Sandwich(123, "Test sandwich 123"),
                         sandwichToSelect,
                         new Sandwich(789, "Test sandwich 789")));
 
-        presenter.onStart();
+        presenter.onViewCreated();
 
         // When
         presenter.onSandwichSelected(sandwichToSelect);
@@ -118,15 +155,17 @@ public class SandwichPresenterTest {
     @Test
     public void test_navigationOccurs_whenUserSelectsASandwich() {
         // Given
+        when(mockFavoritesStore.getFavoriteSandwichIds(3)).thenReturn(new int[0]);
+
         Sandwich sandwichToSelect = new Sandwich(456, "Test sandwich 456");
 
-        configureGetSandwichesSuccess(
+        configureGetFirstPageSuccess(
                 Arrays.asList(
                         new Sandwich(123, "Test sandwich 123"),
                         sandwichToSelect,
                         new Sandwich(789, "Test sandwich 789")));
 
-        presenter.onStart();
+        presenter.onViewCreated();
 
         // When
         presenter.onSandwichSelected(sandwichToSelect);
@@ -136,18 +175,18 @@ public class SandwichPresenterTest {
     }
 
     @Test
-    public void test_sandwichesAreShownInCorrectOrder_ifNoFaveExists() {
+    public void test_sandwichesAreShownInMenuOrder_ifNoFavoritesExist() {
         // Given
-        configureGetSandwichesSuccess(
+        configureGetFirstPageSuccess(
                 Arrays.asList(
                         new Sandwich(123, "Test sandwich 123"),
                         new Sandwich(456, "Test sandwich 456"),
                         new Sandwich(789, "Test sandwich 789")));
 
-        when(mockFaveStorage.getFavoriteSandwichId()).thenReturn(-1);
+        when(mockFavoritesStore.getFavoriteSandwichIds(3)).thenReturn(new int[0]);
 
         // When
-        presenter.onStart();
+        presenter.onViewCreated();
 
         // Then
         verify(mockSandwichView, times(1)).displaySandwiches(sandwichesCaptor.capture());
@@ -159,18 +198,18 @@ public class SandwichPresenterTest {
     }
 
     @Test
-    public void test_sandwichesAreShownInCorrectOrder_ifFaveExists() {
+    public void test_favoriteIsShownFirst_ifOneFavoriteExists() {
         // Given
-        configureGetSandwichesSuccess(
+        configureGetFirstPageSuccess(
                 Arrays.asList(
                         new Sandwich(123, "Test sandwich 123"),
                         new Sandwich(456, "Test sandwich 456"),
                         new Sandwich(789, "Test sandwich 789")));
 
-        when(mockFaveStorage.getFavoriteSandwichId()).thenReturn(456);
+        when(mockFavoritesStore.getFavoriteSandwichIds(3)).thenReturn(new int[] {456});
 
         // When
-        presenter.onStart();
+        presenter.onViewCreated();
 
         // Then
         verify(mockSandwichView, times(1)).displaySandwiches(sandwichesCaptor.capture());
@@ -181,17 +220,106 @@ public class SandwichPresenterTest {
         assertEquals(expectedIdOrder, actualIdOrder);
     }
 
+    @Test
+    public void test_favoritesAreShownFirstInRankOrder_ifSeveralFavoritesExist() {
+        // Given
+        configureGetFirstPageSuccess(
+                Arrays.asList(
+                        new Sandwich(123, "Test sandwich 123"),
+                        new Sandwich(456, "Test sandwich 456"),
+                        new Sandwich(789, "Test sandwich 789"),
+                        new Sandwich(999, "Test sandwich 999")));
+
+        when(mockFavoritesStore.getFavoriteSandwichIds(3)).thenReturn(new int[] {789, 456});
+
+        // When
+        presenter.onViewCreated();
+
+        // Then
+        verify(mockSandwichView, times(1)).displaySandwiches(sandwichesCaptor.capture());
+
+        List<Integer> expectedIdOrder = Arrays.asList(789, 456, 123, 999);
+        List<Integer> actualIdOrder = extractIds(sandwichesCaptor.getValue());
+
+        assertEquals(expectedIdOrder, actualIdOrder);
+    }
+
+    @Test
+    public void test_changedMenuIsShown_whenBackendAnnouncesAChange() {
+        // Given
+        configureGetFirstPageSuccess(
+                Arrays.asList(
+                        new Sandwich(123, "Test sandwich 123"),
+                        new Sandwich(456, "Test sandwich 456")));
+
+        when(mockFavoritesStore.getFavoriteSandwichIds(3)).thenReturn(new int[0]);
+
+        presenter.onViewCreated();
+
+        verify(mockOrderingApi, times(1)).subscribeToChanges(
+                eq(OrderingApi.Topic.MENU),
+                menuChangeListenerCaptor.capture());
+
+        configureGetFirstPageSuccess(
+                Arrays.asList(
+                        new Sandwich(123, "Test sandwich 123"),
+                        new Sandwich(789, "Test sandwich 789")));
+
+        // When
+        menuChangeListenerCaptor.getValue().run();
+
+        // Then
+        verify(mockSandwichView, times(2)).displaySandwiches(sandwichesCaptor.capture());
+
+        List<Integer> expectedIdOrder = Arrays.asList(123, 789);
+        List<Integer> actualIdOrder = extractIds(sandwichesCaptor.getValue());
+
+        assertEquals(expectedIdOrder, actualIdOrder);
+    }
+
+    @Test
+    public void test_cachedMenuIsShownWithoutRefetching_whenViewIsRecreated() {
+        // Given
+        configureGetFirstPageSuccess(
+                Arrays.asList(
+                        new Sandwich(123, "Test sandwich 123"),
+                        new Sandwich(456, "Test sandwich 456")));
+
+        when(mockFavoritesStore.getFavoriteSandwichIds(3)).thenReturn(new int[0]);
+
+        presenter.onViewCreated();
+        presenter.onDestroyView();
+
+        // When
+        presenter.onViewCreated();
+
+        // Then
+        verify(mockOrderingApi, times(1)).getSandwichPage(
+                eq(0),
+                eq(SandwichMenuCache.PAGE_SIZE),
+                ArgumentMatchers.<Callback<List<Sandwich>>>any());
+
+        verify(mockSandwichView, atLeast(2)).displaySandwiches(sandwichesCaptor.capture());
+
+        List<Integer> expectedIdOrder = Arrays.asList(123, 456);
+        List<Integer> actualIdOrder = extractIds(sandwichesCaptor.getValue());
+
+        assertEquals(expectedIdOrder, actualIdOrder);
+    }
+
     // Helper methods
 
-    private void configureGetSandwichesSuccess(@NonNull final List<Sandwich> sandwiches) {
+    private void configureGetFirstPageSuccess(@NonNull final List<Sandwich> sandwiches) {
         doAnswer(new Answer<Callback<List<Sandwich>>>() {
             @Override
             public Callback<List<Sandwich>> answer(final InvocationOnMock invocation) {
-                Callback<List<Sandwich>> callback = invocation.getArgument(0);
+                Callback<List<Sandwich>> callback = invocation.getArgument(2);
                 callback.onSuccess(sandwiches);
                 return null;
             }
-        }).when(mockOrderingApi).getSandwiches(
+        }).when(mockOrderingApi).getSandwichPage(
+                eq(0),
+                eq(SandwichMenuCache.PAGE_SIZE),
                 ArgumentMatchers.<Callback<List<Sandwich>>>any());
     }
 
@@ -1,13 +1,22 @@
 package com.stkent.speedysubs.login;
 
+import android.support.annotation.NonNull;
+
 import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.ordering.CreditCardPrefetcher;
+import com.stkent.speedysubs.networking.ordering.CreditCardRepository;
 import com.stkent.speedysubs.networking.ordering.IOrderingApi;
+import com.stkent.speedysubs.networking.ordering.SandwichMenuCache;
 import com.stkent.speedysubs.networking.ordering.models.CreditCard;
 import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.persistence.SandwichMenuSnapshot;
 import com.stkent.speedysubs.state.ISession;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
@@ -15,8 +24,13 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
@@ -26,6 +40,16 @@ import static org.mockito.Mockito.verify;
 @RunWith(MockitoJUnitRunner.class)
 public class LoginPresenterTest {
 
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Mock
     private ILoginView mockLoginView;
 
@@ -41,11 +65,20 @@ public class LoginPresenterTest {
     private LoginPresenter presenter;
 
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
+        File menuSnapshotFile = new File(temporaryFolder.newFolder(), "sandwich_menu.bin");
+
         presenter = new LoginPresenter(
                 mockLoginView,
                 mockOrderingApi,
-                mockSession);
+                mockSession,
+                new SandwichMenuCache(
+                        mockOrderingApi,
+                        new SandwichMenuSnapshot(menuSnapshotFile),
+                        DIRECT_EXECUTOR,
+                        MINUTES.toMillis(5)),
+                new CreditCardPrefetcher(mockOrderingApi, MINUTES.toMillis(1)),
+                new CreditCardRepository(mockOrderingApi, mockSession));
     }
 
     @Test
@@ -179,4 +212,62 @@ public class LoginPresenterTest {
         verify(mockSession, times(1)).setCustomer(customer);
     }
 
+    @Test
+    public void test_menuIsPrefetched_whileLoginIsInProgress() {
+        // Given
+        String username = "username";
+        String password = "password";
+
+        // When
+        presenter.onSubmitTapped(username, password);
+
+        // Then
+        verify(mockOrderingApi, times(1)).getSandwichPage(
+                eq(0),
+                eq(SandwichMenuCache.PAGE_SIZE),
+                ArgumentMatchers.<Callback<List<Sandwich>>>any());
+    }
+
+    @Test
+    public void test_creditCardsArePrefetched_ifLoginIsSuccessful() {
+        // Given
+        String username = "username";
+        String password = "password";
+
+        // When
+        presenter.onSubmitTapped(username, password);
+
+        // Then
+        verify(mockOrderingApi, times(1))
+                .logIn(eq(username), eq(password), logInCaptor.capture());
+
+        verify(mockOrderingApi, never()).getCustomerCreditCards(
+                ArgumentMatchers.<Callback<List<CreditCard>>>any());
+
+        Customer dummyCustomer = new Customer("", new ArrayList<CreditCard>());
+        logInCaptor.getValue().onSuccess(dummyCustomer);
+
+        verify(mockOrderingApi, times(1)).getCustomerCreditCards(
+                ArgumentMatchers.<Callback<List<CreditCard>>>any());
+    }
+
+    @Test
+    public void test_creditCardsAreNotPrefetched_ifLoginIsUnsuccessful() {
+        // Given
+        String username = "username";
+        String password = "password";
+
+        // When
+        presenter.onSubmitTapped(username, password);
+
+        // Then
+        verify(mockOrderingApi, times(1))
+                .logIn(eq(username), eq(password), logInCaptor.capture());
+
+        logInCaptor.getValue().onError("User not found");
+
+        verify(mockOrderingApi, never()).getCustomerCreditCards(
+                ArgumentMatchers.<Callback<List<CreditCard>>>any());
+    }
+
 }
@@ -0,0 +1,96 @@
+package com.stkent.speedysubs.metrics;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 16;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void test_everyValueFallsInsideItsBucket() {
+        // Given
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+
+            // When
+            int index = LatencyHistogram.getBucketIndex(value);
+
+            // Then
+            assertTrue(value <= LatencyHistogram.getBucketUpperBound(index));
+            assertTrue(index == 0 || value > LatencyHistogram.getBucketUpperBound(index - 1));
+        }
+    }
+
+    @Test
+    public void test_percentilesAreWithinBucketError() {
+        // Given
+        for (long micros = 1; micros <= 100000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        // When
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // Then
+        assertEquals(100000, snapshot.getCount());
+        assertWithinBucketError(50000000, snapshot.getValueAtPercentile(50));
+        assertWithinBucketError(99000000, snapshot.getValueAtPercentile(99));
+        assertWithinBucketError(99900000, snapshot.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void test_noRecordingsAreLost_whenManyThreadsRecordConcurrently() throws Exception {
+        // Given
+        final int threadCount = 8;
+        final int recordingsPerThread = 100000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (final InterruptedException e) {
+                        return;
+                    }
+
+                    for (int i = 0; i < recordingsPerThread; i++) {
+                        // Every thread hammers the same few buckets.
+                        histogram.record(i % 4);
+                    }
+                }
+            });
+
+            threads[t].start();
+        }
+
+        // When
+        startLatch.countDown();
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertEquals(threadCount * recordingsPerThread, histogram.snapshot().getCount());
+    }
+
+    private static void assertWithinBucketError(final long expected, final long actual) {
+        assertTrue(
+                "Expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected * (1 + MAX_RELATIVE_ERROR));
+    }
+
+}
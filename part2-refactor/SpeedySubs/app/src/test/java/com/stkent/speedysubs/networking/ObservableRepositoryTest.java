@@ -0,0 +1,174 @@
+package com.stkent.speedysubs.networking;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ObservableRepositoryTest {
+
+    private FakeRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new FakeRepository();
+    }
+
+    @Test
+    public void test_lateSubscriberReceivesCurrentValue_withoutAnotherFetch() {
+        // Given
+        RecordingCallback first = new RecordingCallback();
+        repository.subscribe(first);
+        repository.completeFetch("menu v1");
+
+        // When
+        RecordingCallback second = new RecordingCallback();
+        repository.subscribe(second);
+
+        // Then
+        assertEquals(Arrays.asList("menu v1"), second.values);
+        assertEquals(1, repository.fetchCount);
+    }
+
+    @Test
+    public void test_subscribersShareOneChangeSubscription_untilLastOneCancels() {
+        // Given
+        Cancellable first = repository.subscribe(new RecordingCallback());
+        Cancellable second = repository.subscribe(new RecordingCallback());
+
+        // When
+        first.cancel();
+
+        // Then
+        assertEquals(1, repository.changeSubscriptionCount);
+        assertEquals(1, repository.activeChangeSubscriptionCount);
+
+        // When
+        second.cancel();
+
+        // Then
+        assertEquals(0, repository.activeChangeSubscriptionCount);
+    }
+
+    @Test
+    public void test_burstOfChanges_isCoalescedIntoOneFollowUpFetch() {
+        // Given
+        RecordingCallback subscriber = new RecordingCallback();
+        repository.subscribe(subscriber);
+        repository.completeFetch("menu v1");
+
+        // When
+        repository.announceChange();
+        repository.announceChange();
+        repository.announceChange();
+        repository.completeFetch("menu v2");
+        repository.completeFetch("menu v4");
+
+        // Then
+        assertEquals(3, repository.fetchCount);
+        assertNull(repository.pendingFetch);
+        assertEquals(Arrays.asList("menu v1", "menu v2", "menu v4"), subscriber.values);
+    }
+
+    @Test
+    public void test_subscribersAreNotNotified_whenFetchedValueIsUnchanged() {
+        // Given
+        RecordingCallback subscriber = new RecordingCallback();
+        repository.subscribe(subscriber);
+        repository.completeFetch("menu v1");
+
+        // When
+        RecordingCallback refreshCallback = new RecordingCallback();
+        repository.refresh(refreshCallback);
+        repository.completeFetch("menu v1");
+
+        // Then
+        assertEquals(Arrays.asList("menu v1"), subscriber.values);
+        assertEquals(Arrays.asList("menu v1"), refreshCallback.values);
+    }
+
+    // Helper classes
+
+    private static final class FakeRepository extends ObservableRepository<String> {
+
+        @Nullable
+        private Callback<String> pendingFetch;
+
+        @Nullable
+        private Runnable onChanged;
+
+        private int fetchCount;
+
+        private int changeSubscriptionCount;
+
+        private int activeChangeSubscriptionCount;
+
+        @NonNull
+        @Override
+        protected Cancellable subscribeToChanges(@NonNull final Runnable onChanged) {
+            this.onChanged = onChanged;
+            changeSubscriptionCount++;
+            activeChangeSubscriptionCount++;
+
+            return new Cancellable() {
+                @Override
+                public void cancel() {
+                    activeChangeSubscriptionCount--;
+                }
+            };
+        }
+
+        @NonNull
+        @Override
+        protected Cancellable fetch(@NonNull final Callback<String> callback) {
+            pendingFetch = callback;
+            fetchCount++;
+
+            return new Cancellable() {
+                @Override
+                public void cancel() {
+                    // This method intentionally left blank.
+                }
+            };
+        }
+
+        private void announceChange() {
+            //noinspection ConstantConditions
+            onChanged.run();
+        }
+
+        private void completeFetch(@NonNull final String value) {
+            final Callback<String> callback = pendingFetch;
+            pendingFetch = null;
+
+            //noinspection ConstantConditions
+            callback.onSuccess(value);
+        }
+
+    }
+
+    private static final class RecordingCallback implements Callback<String> {
+
+        private final List<String> values = new ArrayList<>();
+
+        @Override
+        public void onSuccess(@NonNull final String value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(@NonNull final String errorMessage) {
+            throw new AssertionError(errorMessage);
+        }
+
+    }
+
+}
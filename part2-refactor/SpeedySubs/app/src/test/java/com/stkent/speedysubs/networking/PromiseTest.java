@@ -0,0 +1,275 @@
+package com.stkent.speedysubs.networking;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PromiseTest {
+
+    private ScheduledThreadPoolExecutor scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void test_mapAndFlatMap_runInOrder_onCompletingThread() {
+        // Given
+        ManualOperation<String> login = new ManualOperation<>();
+        final ManualOperation<Integer> order = new ManualOperation<>();
+        RecordingCallback<String> callback = new RecordingCallback<>();
+
+        Promise.from(login)
+                .flatMap(new Promise.AsyncFunction<String, Integer>() {
+                    @NonNull
+                    @Override
+                    public Promise<Integer> apply(@NonNull String customer) {
+                        return Promise.from(order);
+                    }
+                })
+                .map(new Promise.Function<Integer, String>() {
+                    @NonNull
+                    @Override
+                    public String apply(@NonNull Integer confirmationNumber) {
+                        return "Order " + confirmationNumber;
+                    }
+                })
+                .then(callback);
+
+        // When
+        login.callback.onSuccess("customer");
+        order.callback.onSuccess(42);
+
+        // Then
+        assertEquals("Order 42", callback.value);
+        assertEquals(Thread.currentThread(), callback.thread);
+    }
+
+    @Test
+    public void test_allOf_failsAndCancelsOthers_whenOneFails() {
+        // Given
+        ManualOperation<Integer> first = new ManualOperation<>();
+        ManualOperation<Integer> second = new ManualOperation<>();
+        RecordingCallback<List<Integer>> callback = new RecordingCallback<>();
+
+        Promise.allOf(Arrays.asList(Promise.from(first), Promise.from(second))).then(callback);
+
+        // When
+        first.callback.onError("Menu unavailable");
+
+        // Then
+        assertEquals("Menu unavailable", callback.errorMessage);
+        assertTrue(second.isCancelled);
+    }
+
+    @Test
+    public void test_zip_combinesValues_inEitherCompletionOrder() {
+        // Given
+        ManualOperation<String> menu = new ManualOperation<>();
+        ManualOperation<Integer> cards = new ManualOperation<>();
+        RecordingCallback<String> callback = new RecordingCallback<>();
+
+        Promise.from(menu)
+                .zip(Promise.from(cards), new Promise.Combiner<String, Integer, String>() {
+                    @NonNull
+                    @Override
+                    public String combine(@NonNull String sandwich, @NonNull Integer cardCount) {
+                        return sandwich + " with " + cardCount + " cards";
+                    }
+                })
+                .then(callback);
+
+        // When
+        cards.callback.onSuccess(3);
+        menu.callback.onSuccess("BLT");
+
+        // Then
+        assertEquals("BLT with 3 cards", callback.value);
+    }
+
+    @Test
+    public void test_withTimeout_failsAndCancelsOperation_whenNoResultArrives() throws Exception {
+        // Given
+        ManualOperation<String> operation = new ManualOperation<>();
+        RecordingCallback<String> callback = new RecordingCallback<>();
+
+        // When
+        Promise.from(operation).withTimeout(10, scheduler).then(callback);
+        callback.await();
+
+        // Then
+        assertEquals("Timed out after 10ms", callback.errorMessage);
+        assertTrue(operation.isCancelled);
+    }
+
+    @Test
+    public void test_cancel_stopsOperation_andSuppressesCallbacks() {
+        // Given
+        ManualOperation<String> operation = new ManualOperation<>();
+        RecordingCallback<String> callback = new RecordingCallback<>();
+        Promise<String> promise = Promise.from(operation);
+        promise.then(callback);
+
+        // When
+        promise.cancel();
+        operation.callback.onSuccess("too late");
+
+        // Then
+        assertTrue(operation.isCancelled);
+        assertNull(callback.value);
+        assertFalse(callback.isCompleted);
+    }
+
+    @Test
+    public void test_cancelOneDerivedPromise_leavesSiblingsRunning_untilAllAreCancelled() {
+        // Given
+        ManualOperation<String> operation = new ManualOperation<>();
+        RecordingCallback<String> siblingCallback = new RecordingCallback<>();
+        Promise<String> shared = Promise.from(operation);
+        Promise<String> first = shared.map(new UpperCase());
+        Promise<String> second = shared.map(new UpperCase());
+        second.then(siblingCallback);
+
+        // When
+        first.cancel();
+        boolean isCancelledWhileSiblingRuns = operation.isCancelled;
+        second.cancel();
+
+        // Then
+        assertFalse(isCancelledWhileSiblingRuns);
+        assertTrue(operation.isCancelled);
+        assertFalse(siblingCallback.isCompleted);
+    }
+
+    @Test
+    public void test_cancelOneDerivedPromise_stillCompletesSibling() {
+        // Given
+        ManualOperation<String> operation = new ManualOperation<>();
+        RecordingCallback<String> siblingCallback = new RecordingCallback<>();
+        Promise<String> shared = Promise.from(operation);
+        Promise<String> timed = shared.withTimeout(60_000, scheduler);
+        shared.map(new UpperCase()).then(siblingCallback);
+
+        // When
+        timed.cancel();
+        operation.callback.onSuccess("blt");
+
+        // Then
+        assertFalse(operation.isCancelled);
+        assertEquals("BLT", siblingCallback.value);
+    }
+
+    @Test
+    public void test_mapAndFlatMap_fail_whenFunctionThrows() {
+        // Given
+        RecordingCallback<String> mapCallback = new RecordingCallback<>();
+        RecordingCallback<String> flatMapCallback = new RecordingCallback<>();
+
+        // When
+        Promise.succeeded("blt")
+                .map(new Promise.Function<String, String>() {
+                    @NonNull
+                    @Override
+                    public String apply(@NonNull String value) {
+                        throw new IllegalStateException("Unknown sandwich");
+                    }
+                })
+                .then(mapCallback);
+
+        Promise.succeeded("blt")
+                .flatMap(new Promise.AsyncFunction<String, String>() {
+                    @NonNull
+                    @Override
+                    public Promise<String> apply(@NonNull String value) {
+                        throw new IllegalStateException("No card on file");
+                    }
+                })
+                .then(flatMapCallback);
+
+        // Then
+        assertEquals("Unknown sandwich", mapCallback.errorMessage);
+        assertEquals("No card on file", flatMapCallback.errorMessage);
+    }
+
+    private static final class UpperCase implements Promise.Function<String, String> {
+
+        @NonNull
+        @Override
+        public String apply(@NonNull String value) {
+            return value.toUpperCase(Locale.ROOT);
+        }
+
+    }
+
+    private static final class ManualOperation<T> implements Promise.Operation<T> {
+
+        private Callback<T> callback;
+        private boolean isCancelled;
+
+        @NonNull
+        @Override
+        public Cancellable start(@NonNull Callback<T> callback) {
+            this.callback = callback;
+
+            return new Cancellable() {
+                @Override
+                public void cancel() {
+                    isCancelled = true;
+                }
+            };
+        }
+
+    }
+
+    private static final class RecordingCallback<T> implements Callback<T> {
+
+        private volatile boolean isCompleted;
+        private volatile T value;
+        private volatile String errorMessage;
+        private volatile Thread thread;
+
+        @Override
+        public synchronized void onSuccess(@NonNull T value) {
+            this.value = value;
+            onCompleted();
+        }
+
+        @Override
+        public synchronized void onError(@NonNull String errorMessage) {
+            this.errorMessage = errorMessage;
+            onCompleted();
+        }
+
+        private synchronized void await() throws InterruptedException {
+            while (!isCompleted) {
+                wait();
+            }
+        }
+
+        private void onCompleted() {
+            thread = Thread.currentThread();
+            isCompleted = true;
+            notifyAll();
+        }
+
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Promise;
+import com.stkent.speedysubs.networking.RetryPolicy;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncOrderingApiTest {
+
+    private ScheduledThreadPoolExecutor workExecutor;
+    private AtomicInteger callbackExecutorHops;
+    private OrderingApi orderingApi;
+
+    @Before
+    public void setUp() {
+        workExecutor = new ScheduledThreadPoolExecutor(1);
+        callbackExecutorHops = new AtomicInteger();
+
+        orderingApi = new OrderingApi(
+                workExecutor,
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        callbackExecutorHops.incrementAndGet();
+                        command.run();
+                    }
+                },
+                new FakeOrderingBackend(new Random(), 0),
+                RetryPolicy.DEFAULT);
+    }
+
+    @After
+    public void tearDown() {
+        workExecutor.shutdownNow();
+    }
+
+    @Test
+    public void test_composedPipeline_usesSameHopsAsNestedCallbacks() throws Exception {
+        // Given
+        final CountDownLatch nestedDone = new CountDownLatch(1);
+
+        orderingApi.logIn("user", "password", new FailingCallback<Customer>() {
+            @Override
+            public void onSuccess(@NonNull final Customer customer) {
+                orderingApi.getSandwiches(new FailingCallback<List<Sandwich>>() {
+                    @Override
+                    public void onSuccess(@NonNull final List<Sandwich> sandwiches) {
+                        final Order order = new Order(sandwiches.get(0), null);
+
+                        orderingApi.placeOrder(customer, order, new FailingCallback<Integer>() {
+                            @Override
+                            public void onSuccess(@NonNull final Integer confirmationNumber) {
+                                nestedDone.countDown();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+
+        assertTrue(nestedDone.await(5, SECONDS));
+        final int nestedHops = callbackExecutorHops.getAndSet(0);
+
+        // When
+        final AsyncOrderingApi asyncOrderingApi = new AsyncOrderingApi(orderingApi);
+        final CountDownLatch composedDone = new CountDownLatch(1);
+
+        asyncOrderingApi.logIn("user", "password")
+                .flatMap(new Promise.AsyncFunction<Customer, Integer>() {
+                    @NonNull
+                    @Override
+                    public Promise<Integer> apply(@NonNull final Customer customer) {
+                        return asyncOrderingApi.getSandwiches()
+                                .flatMap(new Promise.AsyncFunction<List<Sandwich>, Integer>() {
+                                    @NonNull
+                                    @Override
+                                    public Promise<Integer> apply(
+                                            @NonNull final List<Sandwich> sandwiches) {
+
+                                        final Order order = new Order(sandwiches.get(0), null);
+                                        return asyncOrderingApi.placeOrder(customer, order);
+                                    }
+                                });
+                    }
+                })
+                .then(new FailingCallback<Integer>() {
+                    @Override
+                    public void onSuccess(@NonNull final Integer confirmationNumber) {
+                        composedDone.countDown();
+                    }
+                });
+
+        // Then
+        assertTrue(composedDone.await(5, SECONDS));
+        assertEquals(3, nestedHops);
+        assertEquals(nestedHops, callbackExecutorHops.get());
+    }
+
+    private abstract static class FailingCallback<T> implements Callback<T> {
+
+        @Override
+        public void onError(@NonNull final String errorMessage) {
+            throw new AssertionError(errorMessage);
+        }
+
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import com.stkent.speedysubs.networking.RetryableException;
+import com.stkent.speedysubs.networking.ordering.FakeBackendConfig.Endpoint;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.networking.ordering.models.Versioned;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FakeOrderingBackendTest {
+
+    @Test
+    public void test_responseDelayIncludesQueueing_whenServerIsSaturated() {
+        // Given
+        FakeOrderingBackend backend = new FakeOrderingBackend(
+                new Random(42),
+                new FakeBackendConfig.Builder()
+                        .setLatency(LatencyModel.fixed(1000))
+                        .setMaxConcurrentRequests(2)
+                        .build());
+
+        // When
+        long firstDelayMs = backend.getResponseDelayMs(Endpoint.GET_SANDWICHES, 0);
+        long secondDelayMs = backend.getResponseDelayMs(Endpoint.GET_SANDWICHES, 0);
+        long thirdDelayMs = backend.getResponseDelayMs(Endpoint.GET_SANDWICHES, 0);
+        long lateDelayMs = backend.getResponseDelayMs(Endpoint.GET_SANDWICHES, 5000);
+
+        // Then
+        assertEquals(1000, firstDelayMs);
+        assertEquals(1000, secondDelayMs);
+        assertTrue(thirdDelayMs > 1900 && thirdDelayMs <= 2000);
+        assertEquals(6000, lateDelayMs);
+    }
+
+    @Test
+    public void test_errorsAreInjectedOnlyIntoConfiguredEndpoints() throws Exception {
+        // Given
+        FakeOrderingBackend backend = new FakeOrderingBackend(
+                new Random(42),
+                new FakeBackendConfig.Builder()
+                        .setErrorRate(Endpoint.GET_CUSTOMER_CREDIT_CARDS, 1)
+                        .build());
+
+        // When
+        backend.getSandwiches();
+
+        // Then
+        try {
+            backend.getCustomerCreditCards();
+            fail("Expected the configured error");
+        } catch (final RetryableException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void test_pagesCoverTheWholeCatalogInOrder_andTheLastPageIsShort() throws Exception {
+        // Given
+        FakeOrderingBackend backend = new FakeOrderingBackend(
+                new Random(42),
+                new FakeBackendConfig.Builder().setCatalogSize(125).build());
+
+        List<Sandwich> pagedSandwiches = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+
+        // When
+        List<Sandwich> page;
+
+        do {
+            page = backend.getSandwichPage(pagedSandwiches.size(), 50);
+            pagedSandwiches.addAll(page);
+            pageSizes.add(page.size());
+        } while (page.size() == 50);
+
+        // Then
+        List<Sandwich> allSandwiches = backend.getSandwiches();
+
+        assertEquals(125, allSandwiches.size());
+        assertEquals(allSandwiches, pagedSandwiches);
+        assertEquals("BLT", pagedSandwiches.get(0).getName());
+        assertEquals(Arrays.asList(50, 50, 25), pageSizes);
+    }
+
+    @Test
+    public void test_searchFindsSandwichesBeyondTheFirstPages_upToTheLimit() throws Exception {
+        // Given
+        FakeOrderingBackend backend = new FakeOrderingBackend(
+                new Random(42),
+                new FakeBackendConfig.Builder().setCatalogSize(2000).build());
+
+        // When
+        List<Sandwich> specialResults = backend.searchSandwiches("SPEC 1234", 50);
+        List<Sandwich> phillyResults = backend.searchSandwiches("ph ch", 50);
+        List<Sandwich> limitedResults = backend.searchSandwiches("daily", 3);
+
+        // Then
+        assertEquals(1, specialResults.size());
+        assertEquals("Daily Special #1234", specialResults.get(0).getName());
+        assertEquals(1, phillyResults.size());
+        assertEquals("Philly Cheesesteak", phillyResults.get(0).getName());
+        assertEquals(3, limitedResults.size());
+        assertEquals("Daily Special #3", limitedResults.get(2).getName());
+    }
+
+    @Test
+    public void test_searchMatchesWholeQuery_whenItNoLongerExtendsThePreviousOne()
+            throws Exception {
+
+        // Given
+        FakeOrderingBackend backend = new FakeOrderingBackend(
+                new Random(42),
+                new FakeBackendConfig.Builder().setCatalogSize(2000).build());
+
+        backend.searchSandwiches("ph", 50);
+        backend.searchSandwiches("phi", 50);
+
+        // When
+        List<Sandwich> shortenedResults = backend.searchSandwiches("e", 50);
+        List<Sandwich> extendedResults = backend.searchSandwiches("ev", 50);
+
+        // Then
+        assertEquals(1, shortenedResults.size());
+        assertEquals("Everything", shortenedResults.get(0).getName());
+        assertEquals(shortenedResults, extendedResults);
+    }
+
+    @Test
+    public void test_creditCardsAreOnlyResent_whenTheirVersionHasChanged() throws Exception {
+        // Given
+        FakeOrderingBackend backend = new FakeOrderingBackend(new Random(42), 0);
+        Versioned<List<CreditCard>> first = backend.getCustomerCreditCards(null);
+
+        // When
+        Versioned<List<CreditCard>> unchanged = backend.getCustomerCreditCards(first.getVersion());
+        backend.setCustomerCreditCards(new ArrayList<CreditCard>());
+        Versioned<List<CreditCard>> changed = backend.getCustomerCreditCards(first.getVersion());
+
+        // Then
+        assertTrue(unchanged.isNotModified());
+        assertEquals(first.getVersion(), unchanged.getVersion());
+        assertEquals(new ArrayList<CreditCard>(), changed.getValue());
+        assertNotEquals(first.getVersion(), changed.getVersion());
+    }
+
+}
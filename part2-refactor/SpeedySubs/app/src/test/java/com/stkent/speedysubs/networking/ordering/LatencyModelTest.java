@@ -0,0 +1,57 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyModelTest {
+
+    private static final int SAMPLE_COUNT = 100000;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void test_uniformSamplesCoverTheWholeRange() {
+        // Given
+        LatencyModel latencyModel = LatencyModel.uniform(100, 200);
+
+        // When
+        long[] samples = sample(latencyModel);
+
+        // Then
+        assertEquals(100, samples[0]);
+        assertEquals(200, samples[SAMPLE_COUNT - 1]);
+    }
+
+    @Test
+    public void test_logNormalSamplesHaveTheRequestedMedianAndAHeavyTail() {
+        // Given
+        LatencyModel latencyModel = LatencyModel.logNormal(200, 1);
+
+        // When
+        long[] samples = sample(latencyModel);
+
+        // Then
+        long median = samples[SAMPLE_COUNT / 2];
+        long p99 = samples[SAMPLE_COUNT * 99 / 100];
+
+        assertTrue(Math.abs(median - 200) <= 10);
+        assertTrue(p99 > 8 * median && p99 < 12 * median);
+    }
+
+    private long[] sample(final LatencyModel latencyModel) {
+        long[] result = new long[SAMPLE_COUNT];
+
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            result[i] = latencyModel.sampleDelayMs(random);
+        }
+
+        Arrays.sort(result);
+        return result;
+    }
+
+}
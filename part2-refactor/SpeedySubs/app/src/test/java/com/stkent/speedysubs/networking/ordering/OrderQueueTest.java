@@ -0,0 +1,171 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.RetryPolicy;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.threeten.bp.LocalDate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderQueueTest {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<ScheduledExecutorService> executors = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (final ScheduledExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_orderInFlightWhenProcessDies_isReplayedOnceAfterRestart() throws Exception {
+        // Given
+        File logFile = new File(temporaryFolder.newFolder(), "order_queue.log");
+        Customer customer = new Customer("customer", new ArrayList<CreditCard>());
+        Order order = new Order(
+                new Sandwich(10, "BLT"),
+                new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
+
+        // The first process sends the order to a backend that never answers before it dies.
+        ScheduledExecutorService dyingWorkExecutor = newExecutor();
+        ScheduledExecutorService dyingDiskExecutor = newExecutor();
+
+        OrderingApi unresponsiveOrderingApi = newOrderingApi(
+                dyingWorkExecutor,
+                new FakeOrderingBackend(
+                        new Random(42),
+                        new FakeBackendConfig.Builder()
+                                .setLatency(LatencyModel.fixed(MINUTES.toMillis(1)))
+                                .build()));
+
+        new OrderQueue(unresponsiveOrderingApi, logFile, dyingDiskExecutor, DIRECT_EXECUTOR)
+                .submit(customer, order, new IgnoringCallback());
+
+        awaitRequestCount(unresponsiveOrderingApi, 1);
+        dyingWorkExecutor.shutdownNow();
+        dyingDiskExecutor.shutdownNow();
+        assertTrue(dyingDiskExecutor.awaitTermination(5, SECONDS));
+
+        FakeOrderingBackend backend = new FakeOrderingBackend(new Random(42), 0);
+        OrderingApi orderingApi = newOrderingApi(newExecutor(), backend);
+        ScheduledExecutorService diskExecutor = newExecutor();
+        OrderQueue restartedQueue =
+                new OrderQueue(orderingApi, logFile, diskExecutor, DIRECT_EXECUTOR);
+
+        // When
+        restartedQueue.replayPending();
+        restartedQueue.replayPending();
+        awaitPlacedOrderCount(backend, 1);
+        drain(diskExecutor);
+
+        restartedQueue.replayPending();
+        drain(diskExecutor);
+
+        // Then
+        assertEquals(1, orderingApi.getRequestCount());
+        assertEquals(1, backend.getPlacedOrderCount());
+    }
+
+    // Helper methods
+
+    @NonNull
+    private ScheduledExecutorService newExecutor() {
+        final ScheduledExecutorService result = new ScheduledThreadPoolExecutor(1);
+        executors.add(result);
+        return result;
+    }
+
+    @NonNull
+    private static OrderingApi newOrderingApi(
+            @NonNull final ScheduledExecutorService workExecutor,
+            @NonNull final FakeOrderingBackend backend) {
+
+        return new OrderingApi(workExecutor, DIRECT_EXECUTOR, backend, RetryPolicy.NEVER);
+    }
+
+    /**
+     * Waits for the disk thread to finish everything queued so far, and what that work queues in
+     * turn.
+     */
+    private static void drain(@NonNull final ScheduledExecutorService executor) throws Exception {
+        for (int i = 0; i < 3; i++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // This method intentionally left blank.
+                }
+            }).get(5, SECONDS);
+        }
+    }
+
+    private static void awaitRequestCount(
+            @NonNull final OrderingApi orderingApi,
+            final long count) throws InterruptedException {
+
+        final long deadlineMs = System.currentTimeMillis() + SECONDS.toMillis(5);
+
+        while (orderingApi.getRequestCount() < count) {
+            assertTrue(System.currentTimeMillis() < deadlineMs);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitPlacedOrderCount(
+            @NonNull final FakeOrderingBackend backend,
+            final int count) throws InterruptedException {
+
+        final long deadlineMs = System.currentTimeMillis() + SECONDS.toMillis(5);
+
+        while (backend.getPlacedOrderCount() < count) {
+            assertTrue(System.currentTimeMillis() < deadlineMs);
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class IgnoringCallback implements Callback<Integer> {
+
+        @Override
+        public void onSuccess(@NonNull final Integer confirmationNumber) {
+            // This method intentionally left blank.
+        }
+
+        @Override
+        public void onError(@NonNull final String errorMessage) {
+            // This method intentionally left blank.
+        }
+
+    }
+
+}
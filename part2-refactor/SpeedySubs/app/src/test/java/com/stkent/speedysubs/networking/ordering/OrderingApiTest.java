@@ -0,0 +1,484 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.metrics.EndpointMetrics;
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.Cancellable;
+import com.stkent.speedysubs.networking.RetryPolicy;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.OrderResult;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.networking.ordering.models.Versioned;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OrderingApiTest {
+
+    private ScheduledThreadPoolExecutor workExecutor;
+    private OrderingApi orderingApi;
+
+    @Before
+    public void setUp() {
+        workExecutor = new ScheduledThreadPoolExecutor(1);
+        workExecutor.setRemoveOnCancelPolicy(true);
+
+        orderingApi = new OrderingApi(workExecutor, new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                command.run();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        workExecutor.shutdownNow();
+    }
+
+    @Test
+    public void test_identicalRequestsShareOneCall_whileInFlight() {
+        // When
+        orderingApi.getSandwiches(new ScreenCallback(new Object()));
+        orderingApi.getSandwiches(new ScreenCallback(new Object()));
+
+        // Then
+        assertEquals(1, workExecutor.getQueue().size());
+        assertEquals(2, orderingApi.getRequestCount());
+        assertEquals(1, orderingApi.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void test_sharedCallIsNotCancelled_whileAnotherCallerIsWaiting() {
+        // Given
+        final Cancellable first = orderingApi.getSandwiches(new ScreenCallback(new Object()));
+        orderingApi.getSandwiches(new ScreenCallback(new Object()));
+
+        // When
+        first.cancel();
+
+        // Then
+        assertEquals(1, workExecutor.getQueue().size());
+    }
+
+    @Test
+    public void test_underlyingWorkIsCancelled_whenAllCallersCancel() {
+        // Given
+        final Cancellable first = orderingApi.getSandwiches(new ScreenCallback(new Object()));
+        final Cancellable second = orderingApi.getSandwiches(new ScreenCallback(new Object()));
+
+        // When
+        first.cancel();
+        second.cancel();
+
+        // Then
+        assertEquals(0, workExecutor.getQueue().size());
+    }
+
+    @Test
+    public void test_callerCanBeGarbageCollected_whileCancelledRequestIsPending() throws Exception {
+        // Given
+        Object screen = new Object();
+        final WeakReference<Object> screenReference = new WeakReference<>(screen);
+
+        // Keep a second caller attached so the underlying request stays pending.
+        orderingApi.getSandwiches(new ScreenCallback(new Object()));
+        final Cancellable request = orderingApi.getSandwiches(new ScreenCallback(screen));
+
+        // When
+        request.cancel();
+        //noinspection UnusedAssignment
+        screen = null;
+
+        // Then
+        for (int attempt = 0; attempt < 20 && screenReference.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, workExecutor.getQueue().size());
+        assertNull(screenReference.get());
+    }
+
+    @Test
+    public void test_groupOrderIsSentInBatches_ratherThanOneRequestPerOrder() {
+        // Given
+        CreditCard creditCard = new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31));
+        List<Order> orders = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            orders.add(new Order(new Sandwich(i, "Sandwich " + i), creditCard));
+        }
+
+        // When
+        orderingApi.placeOrders(
+                new Customer("test customer", new ArrayList<CreditCard>()),
+                orders,
+                new Callback<List<OrderResult>>() {
+                    @Override
+                    public void onSuccess(@NonNull final List<OrderResult> value) {
+                    }
+
+                    @Override
+                    public void onError(@NonNull final String errorMessage) {
+                    }
+                });
+
+        // Then
+        assertEquals(2, workExecutor.getQueue().size());
+    }
+
+    @Test
+    public void test_repeatedOrderSubmissionsShareOneCall_whileInFlight() {
+        // Given
+        Customer customer = new Customer("test customer", new ArrayList<CreditCard>());
+        Order order = new Order(
+                new Sandwich(10, "BLT"),
+                new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
+
+        // When
+        orderingApi.placeOrder(customer, order, new ConfirmationCallback());
+        orderingApi.placeOrder(customer, order, new ConfirmationCallback());
+
+        // Then
+        assertEquals(1, workExecutor.getQueue().size());
+        assertEquals(1, orderingApi.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void test_orderIsPlacedOnlyOnce_whenResentAfterTransientFailures() throws Exception {
+        // Given
+        FakeOrderingBackend backend = new FakeOrderingBackend(new Random(42), 0.5);
+
+        OrderingApi flakyOrderingApi = new OrderingApi(
+                workExecutor,
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        command.run();
+                    }
+                },
+                backend,
+                new RetryPolicy(50, 0, 0));
+
+        Customer customer = new Customer("test customer", new ArrayList<CreditCard>());
+        Order order = new Order(
+                new Sandwich(10, "BLT"),
+                new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
+
+        List<ConfirmationCallback> callbacks = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            ConfirmationCallback callback = new ConfirmationCallback();
+            flakyOrderingApi.placeOrder(customer, order, callback);
+            callback.await();
+            callbacks.add(callback);
+        }
+
+        // Then
+        for (final ConfirmationCallback callback : callbacks) {
+            assertEquals(callbacks.get(0).confirmationNumber, callback.confirmationNumber);
+        }
+
+        assertTrue(flakyOrderingApi.getRetryCount() > 0);
+        assertEquals(1, backend.getPlacedOrderCount());
+    }
+
+    @Test
+    public void test_endpointMetricsRecordOutcomeAndLatency_whenOrderIsPlaced() throws Exception {
+        // Given
+        OrderingApi instantOrderingApi = new OrderingApi(
+                workExecutor,
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        command.run();
+                    }
+                },
+                new FakeOrderingBackend(new Random(42), 0),
+                RetryPolicy.NEVER);
+
+        Customer customer = new Customer("test customer", new ArrayList<CreditCard>());
+        Order order = new Order(
+                new Sandwich(10, "BLT"),
+                new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30)));
+
+        // When
+        ConfirmationCallback callback = new ConfirmationCallback();
+        instantOrderingApi.placeOrder(customer, order, callback);
+        callback.await();
+
+        // Then
+        EndpointMetrics.Snapshot metrics = findEndpointMetrics(instantOrderingApi, "placeOrder");
+        assertEquals(1, metrics.getSuccessCount());
+        assertEquals(0, metrics.getErrorCount());
+        assertEquals(1, metrics.getLatency().getCount());
+    }
+
+    @Test
+    public void test_endpointMetricsRecordOneCancellation_whenAllCallersCancel() {
+        // Given
+        final Cancellable first = orderingApi.getSandwiches(new ScreenCallback(new Object()));
+        final Cancellable second = orderingApi.getSandwiches(new ScreenCallback(new Object()));
+
+        // When
+        first.cancel();
+        second.cancel();
+
+        // Then
+        EndpointMetrics.Snapshot metrics = findEndpointMetrics(orderingApi, "getSandwiches");
+        assertEquals(1, metrics.getCancellationCount());
+        assertEquals(0, metrics.getLatency().getCount());
+    }
+
+    @Test
+    public void test_endpointMetricsRecordOnlyTheCancellation_whenAllCallersCancelMidAttempt() {
+        // Given
+        AttemptCapturingExecutor capturingExecutor = new AttemptCapturingExecutor();
+
+        OrderingApi capturingOrderingApi = new OrderingApi(
+                capturingExecutor,
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        command.run();
+                    }
+                },
+                new FakeOrderingBackend(new Random(42), 0),
+                RetryPolicy.NEVER);
+
+        Cancellable call = capturingOrderingApi.getSandwiches(new ScreenCallback(new Object()));
+
+        // When
+        call.cancel();
+        capturingExecutor.runAttempt();
+
+        // Then
+        EndpointMetrics.Snapshot metrics =
+                findEndpointMetrics(capturingOrderingApi, "getSandwiches");
+
+        assertEquals(1, metrics.getCancellationCount());
+        assertEquals(0, metrics.getLatency().getCount());
+        capturingExecutor.shutdownNow();
+    }
+
+    @Test
+    public void test_endpointMetricsCountNotModifiedReplies_whenCardsAreUnchanged()
+            throws Exception {
+
+        // Given
+        OrderingApi instantOrderingApi = new OrderingApi(
+                workExecutor,
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        command.run();
+                    }
+                },
+                new FakeOrderingBackend(new Random(42), 0),
+                RetryPolicy.NEVER);
+
+        VersionedCardsCallback first = new VersionedCardsCallback();
+        instantOrderingApi.getCustomerCreditCardsIfModified(null, first);
+        Versioned<List<CreditCard>> firstResponse = first.await();
+
+        // When
+        VersionedCardsCallback second = new VersionedCardsCallback();
+        instantOrderingApi.getCustomerCreditCardsIfModified(firstResponse.getVersion(), second);
+        Versioned<List<CreditCard>> secondResponse = second.await();
+
+        // Then
+        assertNotNull(firstResponse.getValue());
+        assertTrue(secondResponse.isNotModified());
+
+        EndpointMetrics.Snapshot metrics =
+                findEndpointMetrics(instantOrderingApi, "getCustomerCreditCards");
+        assertEquals(2, metrics.getSuccessCount());
+        assertEquals(1, metrics.getNotModifiedCount());
+    }
+
+    @Test
+    public void test_changeListenerRunsForItsTopicOnly_untilCancelled() {
+        // Given
+        FakeOrderingBackend backend = new FakeOrderingBackend(new Random(42), 0);
+        OrderingApi pushingOrderingApi = new OrderingApi(
+                workExecutor,
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        command.run();
+                    }
+                },
+                backend,
+                RetryPolicy.NEVER);
+
+        final AtomicInteger announcementCount = new AtomicInteger();
+        Cancellable subscription = pushingOrderingApi.subscribeToChanges(
+                OrderingApi.Topic.CREDIT_CARDS,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        announcementCount.incrementAndGet();
+                    }
+                });
+
+        // When
+        backend.setCustomerCreditCards(new ArrayList<CreditCard>());
+        backend.publishChange(OrderingApi.Topic.MENU);
+        subscription.cancel();
+        backend.publishChange(OrderingApi.Topic.CREDIT_CARDS);
+
+        // Then
+        assertEquals(1, announcementCount.get());
+    }
+
+    // Helper methods
+
+    @NonNull
+    private static EndpointMetrics.Snapshot findEndpointMetrics(
+            @NonNull final OrderingApi orderingApi,
+            @NonNull final String name) {
+
+        for (final EndpointMetrics.Snapshot snapshot : orderingApi.getEndpointMetrics()) {
+            if (snapshot.getName().equals(name)) return snapshot;
+        }
+
+        throw new AssertionError("No metrics for " + name);
+    }
+
+    // Helper classes
+
+    /**
+     * Stands in for a fragment or view model callback, which strongly references its screen.
+     */
+    private static final class ScreenCallback implements Callback<List<Sandwich>> {
+
+        @NonNull
+        private final Object screen;
+
+        private ScreenCallback(@NonNull final Object screen) {
+            this.screen = screen;
+        }
+
+        @Override
+        public void onSuccess(@NonNull final List<Sandwich> value) {
+            screen.toString();
+        }
+
+        @Override
+        public void onError(@NonNull final String errorMessage) {
+            screen.toString();
+        }
+
+    }
+
+    /**
+     * Holds on to each scheduled attempt instead of running it, so a test can run it after its
+     * caller has cancelled, as if the cancellation arrived once the attempt had already started.
+     */
+    private static final class AttemptCapturingExecutor extends ScheduledThreadPoolExecutor {
+
+        private Runnable attempt;
+
+        private AttemptCapturingExecutor() {
+            super(1);
+        }
+
+        @NonNull
+        @Override
+        public ScheduledFuture<?> schedule(
+                @NonNull final Runnable command,
+                final long delay,
+                @NonNull final TimeUnit unit) {
+
+            attempt = command;
+
+            return super.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // This method intentionally left blank.
+                }
+            }, 1, TimeUnit.HOURS);
+        }
+
+        private void runAttempt() {
+            assertNotNull(attempt);
+            attempt.run();
+        }
+
+    }
+
+    private static final class VersionedCardsCallback
+            implements Callback<Versioned<List<CreditCard>>> {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private volatile Versioned<List<CreditCard>> response;
+
+        @Override
+        public void onSuccess(@NonNull final Versioned<List<CreditCard>> value) {
+            response = value;
+            latch.countDown();
+        }
+
+        @Override
+        public void onError(@NonNull final String errorMessage) {
+            latch.countDown();
+        }
+
+        @NonNull
+        private Versioned<List<CreditCard>> await() throws InterruptedException {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertNotNull(response);
+            return response;
+        }
+
+    }
+
+    private static final class ConfirmationCallback implements Callback<Integer> {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private volatile Integer confirmationNumber;
+
+        @Override
+        public void onSuccess(@NonNull final Integer value) {
+            confirmationNumber = value;
+            latch.countDown();
+        }
+
+        @Override
+        public void onError(@NonNull final String errorMessage) {
+            latch.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertNotNull(confirmationNumber);
+        }
+
+    }
+
+}
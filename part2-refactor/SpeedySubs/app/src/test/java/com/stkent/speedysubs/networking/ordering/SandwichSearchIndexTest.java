@@ -0,0 +1,94 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class SandwichSearchIndexTest {
+
+    private final Sandwich blt = new Sandwich(10, "BLT");
+    private final Sandwich italian = new Sandwich(20, "Italian");
+    private final Sandwich phillyCheesesteak = new Sandwich(30, "Philly Cheesesteak");
+    private final Sandwich chickenPhilly = new Sandwich(40, "Chicken Philly");
+    private final Sandwich cheeseToastie = new Sandwich(50, "Cheese-Toastie");
+
+    private final List<Sandwich> menu =
+            Arrays.asList(blt, italian, phillyCheesesteak, chickenPhilly, cheeseToastie);
+
+    @Test
+    public void test_search_matchesStartsOfWords_ignoringCase() {
+        // Given
+        SandwichSearchIndex index = new SandwichSearchIndex(menu);
+
+        // When
+        SandwichSearchIndex.Result result = index.search("PHI", null);
+
+        // Then
+        assertEquals(
+                Arrays.asList(phillyCheesesteak, chickenPhilly),
+                index.getSandwiches(result));
+    }
+
+    @Test
+    public void test_search_requiresEveryQueryWord_whenQueryHasSeveralWords() {
+        // Given
+        SandwichSearchIndex index = new SandwichSearchIndex(menu);
+
+        // When
+        SandwichSearchIndex.Result result = index.search("ph ch", null);
+
+        // Then
+        assertEquals(
+                Arrays.asList(phillyCheesesteak, chickenPhilly),
+                index.getSandwiches(result));
+    }
+
+    @Test
+    public void test_search_doesNotMatchMiddlesOfWords() {
+        // Given
+        SandwichSearchIndex index = new SandwichSearchIndex(menu);
+
+        // When
+        SandwichSearchIndex.Result result = index.search("toast", null);
+
+        // Then
+        assertEquals(Collections.singletonList(cheeseToastie), index.getSandwiches(result));
+        assertEquals(0, index.search("hilly", null).getCount());
+    }
+
+    @Test
+    public void test_search_matchesFreshSearch_whenNarrowingPreviousResults() {
+        // Given
+        SandwichSearchIndex index = new SandwichSearchIndex(menu);
+        SandwichSearchIndex.Result previous = null;
+
+        for (String keystrokes : Arrays.asList("", "c", "ch", "che", "chee", "chees", "cheese t")) {
+            // When
+            previous = index.search(keystrokes, previous);
+
+            // Then
+            assertEquals(
+                    index.getSandwiches(index.search(keystrokes, null)),
+                    index.getSandwiches(previous));
+        }
+    }
+
+    @Test
+    public void test_search_returnsWholeMenu_whenQueryIsBlank() {
+        // Given
+        SandwichSearchIndex index = new SandwichSearchIndex(menu);
+
+        // When
+        SandwichSearchIndex.Result result = index.search("  ", null);
+
+        // Then
+        assertEquals(menu, index.getSandwiches(result));
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.stkent.speedysubs.networking.ordering.models;
+
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CreditCardTest {
+
+    @Test
+    public void test_expirationDate_isPreservedByPacking() {
+        // Given
+        LocalDate expirationDate = LocalDate.of(2025, 12, 31);
+
+        // When
+        CreditCard creditCard = new CreditCard(1, "Visa 1111", expirationDate);
+
+        // Then
+        assertEquals(expirationDate, creditCard.getExpirationDate());
+        assertEquals(2025 * 12 + 11, creditCard.getExpirationYearMonth());
+    }
+
+    @Test
+    public void test_compareExpirationDate_ordersByDate() {
+        // Given
+        CreditCard endOfMonth = new CreditCard(1, "Visa 1111", LocalDate.of(2019, 6, 30));
+        CreditCard startOfNextMonth = new CreditCard(2, "Visa 2222", LocalDate.of(2019, 7, 1));
+        CreditCard nextYear = new CreditCard(3, "Visa 3333", LocalDate.of(2020, 1, 1));
+
+        // When
+        int endOfMonthVsNextMonth = endOfMonth.compareExpirationDate(startOfNextMonth);
+        int nextYearVsNextMonth = nextYear.compareExpirationDate(startOfNextMonth);
+
+        // Then
+        assertTrue(endOfMonthVsNextMonth < 0);
+        assertTrue(nextYearVsNextMonth > 0);
+        assertEquals(0, endOfMonth.compareExpirationDate(endOfMonth));
+    }
+
+}
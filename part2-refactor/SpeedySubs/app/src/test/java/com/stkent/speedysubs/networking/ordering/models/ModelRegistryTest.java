@@ -0,0 +1,62 @@
+package com.stkent.speedysubs.networking.ordering.models;
+
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ModelRegistryTest {
+
+    @Test
+    public void test_internReturnsRegisteredInstance_whenContentsAreUnchanged() {
+        // Given
+        ModelRegistry registry = new ModelRegistry();
+        List<Sandwich> firstMenu = registry.internSandwiches(
+                Arrays.asList(new Sandwich(10, "BLT"), new Sandwich(20, "Italian")));
+
+        // When
+        List<Sandwich> refreshedMenu = registry.internSandwiches(
+                Arrays.asList(new Sandwich(20, "Italian"), new Sandwich(10, "BLT")));
+
+        // Then
+        assertSame(firstMenu.get(0), refreshedMenu.get(1));
+        assertSame(firstMenu.get(1), refreshedMenu.get(0));
+    }
+
+    @Test
+    public void test_internReplacesRegisteredInstance_whenContentsHaveChanged() {
+        // Given
+        ModelRegistry registry = new ModelRegistry();
+        registry.intern(new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31)));
+        CreditCard renewedCard = new CreditCard(1, "Visa 1111", LocalDate.of(2024, 10, 31));
+
+        // When
+        CreditCard result = registry.intern(renewedCard);
+
+        // Then
+        assertSame(renewedCard, result);
+        assertSame(renewedCard, registry.intern(
+                new CreditCard(1, "Visa 1111", LocalDate.of(2024, 10, 31))));
+    }
+
+    @Test
+    public void test_internSharesCards_betweenCustomerAndCardList() {
+        // Given
+        ModelRegistry registry = new ModelRegistry();
+        CreditCard card = new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31));
+        Customer customer = registry.intern(new Customer("customer", Arrays.asList(card)));
+
+        // When
+        List<CreditCard> creditCards = registry.internCreditCards(Arrays.asList(
+                new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31))));
+
+        // Then
+        assertSame(customer.getCreditCards().get(0), creditCards.get(0));
+        assertEquals(1, registry.size());
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.stkent.speedysubs.networking.ordering.models;
+
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class OrderTest {
+
+    @Test
+    public void test_withCreditCard_keepsIdempotencyKey_whenCardIsUnchanged() {
+        // Given
+        CreditCard creditCard = new CreditCard(1, "Visa 1111", LocalDate.of(2025, 4, 30));
+        Order order = new Order(new Sandwich(10, "BLT"), creditCard);
+
+        // When
+        Order resentOrder = order.withCreditCard(
+                new CreditCard(1, "Visa 1111", LocalDate.of(2025, 4, 30)));
+
+        // Then
+        assertEquals(order.getIdempotencyKey(), resentOrder.getIdempotencyKey());
+    }
+
+    @Test
+    public void test_withCreditCard_generatesNewIdempotencyKey_whenCardChanges() {
+        // Given
+        Order order = new Order(
+                new Sandwich(10, "BLT"),
+                new CreditCard(1, "Visa 1111", LocalDate.of(2025, 4, 30)));
+
+        // When
+        Order repaidOrder = order.withCreditCard(
+                new CreditCard(2, "Visa 2222", LocalDate.of(2026, 4, 30)));
+
+        // Then
+        assertNotEquals(order.getIdempotencyKey(), repaidOrder.getIdempotencyKey());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.stkent.speedysubs.persistence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DecayingFrequencyRankingTest {
+
+    private static final long HALF_LIFE_MS = DAYS.toMillis(14);
+    private static final long NOW_MS = 1_500_000_000_000L;
+
+    @Test
+    public void test_recentOrderRanksFirst_whenOrderCountsAreEqual() {
+        // Given
+        DecayingFrequencyRanking ranking = new DecayingFrequencyRanking(HALF_LIFE_MS);
+
+        // When
+        ranking.recordOrder(10, NOW_MS - DAYS.toMillis(30));
+        ranking.recordOrder(20, NOW_MS);
+
+        // Then
+        assertArrayEquals(new int[]{20, 10}, ranking.getTopIds(2));
+    }
+
+    @Test
+    public void test_scoreHalves_afterOneHalfLife() {
+        // Given
+        DecayingFrequencyRanking ranking = new DecayingFrequencyRanking(HALF_LIFE_MS);
+
+        // When
+        ranking.recordOrder(10, NOW_MS);
+        ranking.recordOrder(10, NOW_MS);
+
+        // Then
+        assertEquals(1.0, ranking.getScore(10, NOW_MS + HALF_LIFE_MS), 1e-9);
+    }
+
+    @Test
+    public void test_topIdsMatchFullSort_forManyRandomOrders() {
+        // Given
+        final DecayingFrequencyRanking ranking = new DecayingFrequencyRanking(HALF_LIFE_MS);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            ranking.recordOrder(random.nextInt(500), NOW_MS + random.nextInt((int) HALF_LIFE_MS));
+        }
+
+        List<Integer> allIds = new ArrayList<>();
+
+        for (int id = 0; id < 500; id++) {
+            allIds.add(id);
+        }
+
+        Collections.sort(allIds, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer first, final Integer second) {
+                return Double.compare(ranking.getLogScore(second), ranking.getLogScore(first));
+            }
+        });
+
+        int[] expectedTopIds = new int[25];
+
+        for (int i = 0; i < expectedTopIds.length; i++) {
+            expectedTopIds[i] = allIds.get(i);
+        }
+
+        // When
+        int[] actualTopIds = ranking.getTopIds(25);
+
+        // Then
+        assertArrayEquals(expectedTopIds, actualTopIds);
+    }
+
+}
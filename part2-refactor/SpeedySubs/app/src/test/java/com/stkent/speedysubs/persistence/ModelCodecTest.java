@@ -0,0 +1,63 @@
+package com.stkent.speedysubs.persistence;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ModelCodecTest {
+
+    @Test
+    public void test_writtenOrderIsRead() throws Exception {
+        // Given
+        Order order = new Order(
+                new Sandwich(10, "BLT"),
+                new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31)));
+
+        // When
+        Order restoredOrder = ModelCodec.readOrder(ByteBuffer.wrap(encode(order)));
+
+        // Then
+        assertEquals(order.getIdempotencyKey(), restoredOrder.getIdempotencyKey());
+        assertEquals(order.getSandwich(), restoredOrder.getSandwich());
+        assertEquals(order.getCreditCard(), restoredOrder.getCreditCard());
+    }
+
+    @Test
+    public void test_everyTruncationOfAnOrderFailsWithIOException() throws Exception {
+        // Given
+        byte[] bytes = encode(new Order(
+                new Sandwich(10, "BLT"),
+                new CreditCard(1, "Visa 1111", LocalDate.of(2020, 10, 31))));
+
+        for (int length = 0; length < bytes.length; length++) {
+            // When
+            try {
+                ModelCodec.readOrder(ByteBuffer.wrap(Arrays.copyOf(bytes, length)));
+
+                // Then
+                fail("Expected an IOException for " + length + " of " + bytes.length + " bytes");
+            } catch (final IOException e) {
+                // Expected.
+            }
+        }
+    }
+
+    private static byte[] encode(final Order order) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ModelCodec.writeOrder(new DataOutputStream(bytes), order);
+        return bytes.toByteArray();
+    }
+
+}
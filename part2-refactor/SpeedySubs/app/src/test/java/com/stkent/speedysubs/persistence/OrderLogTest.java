@@ -0,0 +1,186 @@
+package com.stkent.speedysubs.persistence;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.threeten.bp.LocalDate;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderLogTest {
+
+    private static final int ORDERS_BEFORE_KILL = 50;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void test_pendingEntriesAreRecovered_afterReopen() throws Exception {
+        // Given
+        File file = temporaryFolder.newFile();
+        OrderLog log = new OrderLog(file);
+        log.append("customer", createOrder(1));
+        log.append("customer", createOrder(2));
+
+        // When
+        OrderLog reopenedLog = new OrderLog(file);
+
+        // Then
+        List<OrderLog.Entry> pendingEntries = reopenedLog.getPendingEntries();
+        assertEquals(2, pendingEntries.size());
+        assertEquals("customer", pendingEntries.get(0).getCustomerId());
+        assertEquals(1, pendingEntries.get(0).getOrder().getSandwich().getId());
+        assertEquals(2, pendingEntries.get(1).getOrder().getSandwich().getId());
+        assertEquals(
+                createOrder(2).getCreditCard(),
+                pendingEntries.get(1).getOrder().getCreditCard());
+    }
+
+    @Test
+    public void test_acknowledgedEntriesAreNotRecovered_afterReopen() throws Exception {
+        // Given
+        File file = temporaryFolder.newFile();
+        OrderLog log = new OrderLog(file);
+        OrderLog.Entry first = log.append("customer", createOrder(1));
+        log.append("customer", createOrder(2));
+
+        // When
+        log.acknowledge(first.getId());
+
+        // Then
+        List<OrderLog.Entry> pendingEntries = new OrderLog(file).getPendingEntries();
+        assertEquals(1, pendingEntries.size());
+        assertEquals(2, pendingEntries.get(0).getOrder().getSandwich().getId());
+    }
+
+    @Test
+    public void test_tornRecordIsDiscarded_afterCrashMidWrite() throws Exception {
+        // Given
+        File file = temporaryFolder.newFile();
+        OrderLog log = new OrderLog(file);
+        log.append("customer", createOrder(1));
+        log.append("customer", createOrder(2));
+        log.close();
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - 3);
+        }
+
+        // When
+        OrderLog reopenedLog = new OrderLog(file);
+        reopenedLog.append("customer", createOrder(3));
+
+        // Then
+        List<OrderLog.Entry> pendingEntries = new OrderLog(file).getPendingEntries();
+        assertEquals(2, pendingEntries.size());
+        assertEquals(1, pendingEntries.get(0).getOrder().getSandwich().getId());
+        assertEquals(3, pendingEntries.get(1).getOrder().getSandwich().getId());
+    }
+
+    @Test
+    public void test_logIsCompacted_onceAllEntriesAreAcknowledged() throws Exception {
+        // Given
+        File file = temporaryFolder.newFile();
+        OrderLog log = new OrderLog(file);
+        long emptyLength = file.length();
+        OrderLog.Entry first = log.append("customer", createOrder(1));
+        OrderLog.Entry second = log.append("customer", createOrder(2));
+
+        // When
+        log.acknowledge(first.getId());
+        log.acknowledge(second.getId());
+
+        // Then
+        assertEquals(emptyLength, file.length());
+
+        OrderLog.Entry third = log.append("customer", createOrder(3));
+        assertTrue(third.getId() > second.getId());
+    }
+
+    @Test
+    public void test_noOrderIsLostOrDuplicated_whenProcessIsKilledWhileAppending()
+            throws Exception {
+
+        // Given
+        File file = temporaryFolder.newFile();
+
+        Process process = new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp",
+                System.getProperty("java.class.path"),
+                AppendingProcess.class.getName(),
+                file.getPath())
+                .redirectErrorStream(true)
+                .start();
+
+        BufferedReader output =
+                new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+
+        List<Long> reportedIds = new ArrayList<>();
+
+        while (reportedIds.size() < ORDERS_BEFORE_KILL) {
+            reportedIds.add(Long.parseLong(output.readLine()));
+        }
+
+        // When
+        process.destroyForcibly().waitFor();
+
+        // Then
+        List<OrderLog.Entry> pendingEntries = new OrderLog(file).getPendingEntries();
+        Set<Long> pendingIds = new HashSet<>();
+
+        for (OrderLog.Entry entry : pendingEntries) {
+            assertTrue("Duplicate entry " + entry.getId(), pendingIds.add(entry.getId()));
+            assertEquals(entry.getId(), entry.getOrder().getSandwich().getId());
+        }
+
+        assertTrue("Lost a completed append", pendingIds.containsAll(reportedIds));
+
+        // Entries are numbered from 1 in append order, so any gap would be a lost order.
+        for (long id = 1; id <= pendingIds.size(); id++) {
+            assertTrue("Lost entry " + id, pendingIds.contains(id));
+        }
+    }
+
+    // Helper methods
+
+    private static Order createOrder(final int sandwichId) {
+        return new Order(
+                new Sandwich(sandwichId, "Sandwich " + sandwichId),
+                new CreditCard(sandwichId, "Visa " + sandwichId, LocalDate.of(2030, 1, 31)));
+    }
+
+    /**
+     * Appends orders as fast as it can, reporting each entry id once its append has returned,
+     * until it is killed.
+     */
+    public static final class AppendingProcess {
+
+        public static void main(final String[] args) throws Exception {
+            OrderLog log = new OrderLog(new File(args[0]));
+
+            //noinspection InfiniteLoopStatement
+            for (int i = 1; ; i++) {
+                OrderLog.Entry entry = log.append("customer", createOrder(i));
+                System.out.println(entry.getId());
+                System.out.flush();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.stkent.speedysubs.persistence;
+
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SandwichMenuSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void test_writtenMenuIsRead_byNewSnapshot() throws Exception {
+        // Given
+        File file = new File(temporaryFolder.newFolder(), "menu.bin");
+        List<Sandwich> sandwiches = Arrays.asList(new Sandwich(10, "BLT"), new Sandwich(20, ""));
+        new SandwichMenuSnapshot(file).write(sandwiches);
+
+        // When
+        List<Sandwich> restoredSandwiches = new SandwichMenuSnapshot(file).read();
+
+        // Then
+        assertEquals(sandwiches, restoredSandwiches);
+        assertEquals("BLT", restoredSandwiches.get(0).getName());
+    }
+
+    @Test
+    public void test_readFailsWithIOException_whenSnapshotIsCorruptOrTruncated() throws Exception {
+        // Given
+        File file = new File(temporaryFolder.newFolder(), "menu.bin");
+        SandwichMenuSnapshot snapshot = new SandwichMenuSnapshot(file);
+        snapshot.write(Arrays.asList(new Sandwich(10, "BLT")));
+
+        // When
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            // A huge sandwich count.
+            randomAccessFile.seek(8);
+            randomAccessFile.writeInt(Integer.MAX_VALUE);
+        }
+
+        // Then
+        assertReadFails(snapshot);
+
+        // When
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - 3);
+        }
+
+        // Then
+        assertReadFails(snapshot);
+    }
+
+    // Helper methods
+
+    private static void assertReadFails(final SandwichMenuSnapshot snapshot) {
+        try {
+            snapshot.read();
+            fail("Expected an IOException");
+        } catch (final IOException e) {
+            assertTrue(e.getMessage().contains("menu snapshot"));
+        }
+    }
+
+}
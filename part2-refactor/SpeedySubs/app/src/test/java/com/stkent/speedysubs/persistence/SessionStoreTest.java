@@ -0,0 +1,126 @@
+package com.stkent.speedysubs.persistence;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.threeten.bp.LocalDate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SessionStoreTest {
+
+    private static final CreditCard CREDIT_CARD =
+            new CreditCard(1, "Visa ending 1234", LocalDate.of(2030, 1, 31));
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void test_savedSessionIsRestored_byNewStore() throws Exception {
+        // Given
+        File directory = temporaryFolder.newFolder();
+        Customer customer = new Customer("customer", Arrays.asList(CREDIT_CARD));
+        Order order = new Order(new Sandwich(7, "BLT"), CREDIT_CARD);
+        new SessionStore(directory).save(customer, order);
+
+        // When
+        SessionStore reopenedStore = new SessionStore(directory);
+        Customer restoredCustomer = reopenedStore.readCustomer();
+        Order restoredOrder = reopenedStore.readOrder();
+
+        // Then
+        assertEquals("customer", restoredCustomer.getId());
+        assertEquals(Arrays.asList(CREDIT_CARD), restoredCustomer.getCreditCards());
+        assertEquals(order.getIdempotencyKey(), restoredOrder.getIdempotencyKey());
+        assertEquals(7, restoredOrder.getSandwich().getId());
+        assertEquals(CREDIT_CARD, restoredOrder.getCreditCard());
+    }
+
+    @Test
+    public void test_unchangedFieldIsNotRewritten_whenOtherFieldChanges() throws Exception {
+        // Given
+        File directory = temporaryFolder.newFolder();
+        SessionStore store = new SessionStore(directory);
+        Customer customer = new Customer("customer", Arrays.asList(CREDIT_CARD));
+        Order order = new Order(new Sandwich(7, "BLT"), null);
+        store.save(customer, order);
+
+        File customerFile = new File(directory, "customer.bin");
+        assertTrue(customerFile.delete());
+
+        // When
+        store.save(customer, order.withCreditCard(CREDIT_CARD));
+
+        // Then
+        assertFalse(customerFile.exists());
+        assertEquals(CREDIT_CARD, new SessionStore(directory).readOrder().getCreditCard());
+    }
+
+    @Test
+    public void test_clearedFieldIsNotRestored() throws Exception {
+        // Given
+        File directory = temporaryFolder.newFolder();
+        SessionStore store = new SessionStore(directory);
+        Customer customer = new Customer("customer", Arrays.asList(CREDIT_CARD));
+        store.save(customer, new Order(new Sandwich(7, "BLT"), null));
+
+        // When
+        store.save(customer, null);
+
+        // Then
+        SessionStore reopenedStore = new SessionStore(directory);
+        assertEquals("customer", reopenedStore.readCustomer().getId());
+        assertNull(reopenedStore.readOrder());
+    }
+
+    @Test
+    public void test_truncatedCustomerFailsWithIOException_andIsDeletedByClear()
+            throws Exception {
+
+        // Given
+        File directory = temporaryFolder.newFolder();
+        new SessionStore(directory).save(
+                new Customer("customer", Arrays.asList(CREDIT_CARD)),
+                new Order(new Sandwich(7, "BLT"), null));
+
+        File customerFile = new File(directory, "customer.bin");
+
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(customerFile, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - 3);
+        }
+
+        SessionStore reopenedStore = new SessionStore(directory);
+
+        // When
+        try {
+            reopenedStore.readCustomer();
+            fail("Expected an IOException");
+        } catch (final IOException e) {
+            // Then
+            assertTrue(e.getMessage().contains("customer"));
+        }
+
+        // When
+        reopenedStore.clear();
+
+        // Then
+        assertFalse(customerFile.exists());
+        assertFalse(new File(directory, "order.bin").exists());
+        assertNull(reopenedStore.readCustomer());
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.stkent.speedysubs.startup;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StartupGraphTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private final StartupGraph graph = new StartupGraph();
+
+    private final List<String> completedTaskNames =
+            Collections.synchronizedList(new ArrayList<String>());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_tasksRunAfterTheirDependencies() {
+        // Given
+        graph.addTask(new RecordingTask("c", false, "a", "b"));
+        graph.addTask(new RecordingTask("a", false));
+        graph.addTask(new RecordingTask("b", false, "a"));
+        graph.addTask(new RecordingTask("d", false, "c"));
+
+        // When
+        graph.start(executor);
+        graph.awaitAllTasks();
+
+        // Then
+        assertEquals(4, graph.getTimings().size());
+        assertEquals(Arrays.asList("a", "b", "c", "d"), completedTaskNames);
+    }
+
+    @Test
+    public void test_firstFrameAwaitSkipsBackgroundTasks_butIncludesTheirDependencies() {
+        // Given
+        final CountDownLatch releaseBackgroundTask = new CountDownLatch(1);
+        final AtomicBoolean hasBackgroundTaskFinished = new AtomicBoolean();
+
+        graph.addTask(new RecordingTask("dependency", false));
+        graph.addTask(new RecordingTask("firstFrame", true, "dependency"));
+        graph.addTask(new StartupTask("background", false) {
+            @Override
+            protected void run() {
+                awaitUninterruptibly(releaseBackgroundTask);
+                hasBackgroundTaskFinished.set(true);
+            }
+        });
+
+        // When
+        graph.start(executor);
+        graph.awaitFirstFrameTasks();
+
+        // Then
+        assertTrue(completedTaskNames.contains("dependency"));
+        assertTrue(completedTaskNames.contains("firstFrame"));
+        assertFalse(hasBackgroundTaskFinished.get());
+
+        releaseBackgroundTask.countDown();
+        graph.awaitAllTasks();
+        assertTrue(hasBackgroundTaskFinished.get());
+    }
+
+    @Test
+    public void test_dependentsAreSkippedAndFailureIsRethrown_whenTaskThrows() {
+        // Given
+        graph.addTask(new StartupTask("broken", false) {
+            @Override
+            protected void run() {
+                throw new IllegalStateException("Boom");
+            }
+        });
+
+        graph.addTask(new RecordingTask("dependent", false, "broken"));
+        graph.addTask(new RecordingTask("transitiveDependent", false, "dependent"));
+        graph.addTask(new RecordingTask("independent", false));
+
+        // When
+        graph.start(executor);
+
+        // Then
+        try {
+            graph.awaitAllTasks();
+            fail("Expected the task failure to be rethrown");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(Collections.singletonList("independent"), completedTaskNames);
+    }
+
+    @Test
+    public void test_backgroundFailureIsReported_butOnlyRethrownWhenAwaitingIt() {
+        // Given
+        final List<String> failedTaskNames = Collections.synchronizedList(new ArrayList<String>());
+
+        graph.addTask(new StartupTask("broken", false) {
+            @Override
+            protected void run() {
+                throw new IllegalStateException("Boom");
+            }
+        });
+
+        graph.addTask(new RecordingTask("firstFrame", true));
+
+        graph.setListener(new StartupGraph.Listener() {
+            @Override
+            public void onTaskFinished(@NonNull final StartupGraph.TaskTiming timing) {
+                // This method intentionally left blank.
+            }
+
+            @Override
+            public void onTaskFailed(
+                    @NonNull final String taskName,
+                    @NonNull final Throwable error) {
+
+                failedTaskNames.add(taskName);
+            }
+        });
+
+        // When
+        graph.start(executor);
+        graph.awaitFirstFrameTasks();
+
+        // Then
+        assertEquals(Collections.singletonList("firstFrame"), completedTaskNames);
+
+        try {
+            graph.awaitAllTasks();
+            fail("Expected the task failure to be rethrown");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(Collections.singletonList("broken"), failedTaskNames);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_startThrows_whenDependenciesFormACycle() {
+        // Given
+        graph.addTask(new RecordingTask("root", false));
+        graph.addTask(new RecordingTask("a", false, "root", "b"));
+        graph.addTask(new RecordingTask("b", false, "a"));
+
+        // When
+        graph.start(executor);
+    }
+
+    private final class RecordingTask extends StartupTask {
+
+        private RecordingTask(
+                final String name,
+                final boolean blocksFirstFrame,
+                final String... dependencies) {
+
+            super(name, blocksFirstFrame, dependencies);
+        }
+
+        @Override
+        protected void run() {
+            completedTaskNames.add(getName());
+        }
+
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.stkent.speedysubs.state;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SessionTest {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int UPDATES_PER_THREAD = 500;
+
+    private final Session session = new Session();
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    @Test
+    public void test_noUpdatesAreLost_whenManyThreadsUpdateConcurrently() throws Exception {
+        // Given
+        session.setCustomer(new Customer("customer", new ArrayList<CreditCard>()));
+
+        // When
+        runConcurrently(new Callable<Void>() {
+            @Override
+            public Void call() {
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    final int cardId = nextId.getAndIncrement();
+
+                    session.update(new Session.Update() {
+                        @NonNull
+                        @Override
+                        public Session.Snapshot apply(@NonNull final Session.Snapshot current) {
+                            final Customer customer = current.getCustomer();
+                            final List<CreditCard> cards =
+                                    new ArrayList<>(customer.getCreditCards());
+
+                            cards.add(new CreditCard(cardId, "Card", LocalDate.of(2030, 1, 31)));
+                            return current.withCustomer(customer.withCreditCards(cards));
+                        }
+                    });
+                }
+
+                return null;
+            }
+        });
+
+        // Then
+        List<CreditCard> cards = session.getCustomer().getCreditCards();
+        assertEquals(THREAD_COUNT * UPDATES_PER_THREAD, cards.size());
+        assertEquals(THREAD_COUNT * UPDATES_PER_THREAD, new HashSet<>(cards).size());
+    }
+
+    @Test
+    public void test_readersNeverSeeHalfAppliedUpdates_whileWritersRun() throws Exception {
+        // Given
+        final AtomicBoolean writersDone = new AtomicBoolean();
+        final Set<String> tornReads = new HashSet<>();
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+        List<Future<?>> readerResults = new ArrayList<>();
+
+        for (int r = 0; r < 2; r++) {
+            readerResults.add(readers.submit(new Runnable() {
+                @Override
+                public void run() {
+                    while (!writersDone.get()) {
+                        final Session.Snapshot snapshot = session.getSnapshot();
+                        final Customer customer = snapshot.getCustomer();
+                        final Order order = snapshot.getOrder();
+
+                        if (customer == null && order == null) continue;
+
+                        // Writers always set both fields together, with matching ids.
+                        if (customer == null || order == null || !customer.getId().equals(
+                                String.valueOf(order.getSandwich().getId()))) {
+
+                            synchronized (tornReads) {
+                                tornReads.add(String.valueOf(customer) + "/" + order);
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+
+        // When
+        try {
+            runConcurrently(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        final int id = nextId.getAndIncrement();
+
+                        session.update(new Session.Update() {
+                            @NonNull
+                            @Override
+                            public Session.Snapshot apply(@NonNull final Session.Snapshot current) {
+                                return current
+                                        .withCustomer(new Customer(
+                                                String.valueOf(id),
+                                                new ArrayList<CreditCard>()))
+                                        .withOrder(new Order(new Sandwich(id, "Sandwich"), null));
+                            }
+                        });
+                    }
+
+                    return null;
+                }
+            });
+        } finally {
+            writersDone.set(true);
+        }
+
+        for (final Future<?> readerResult : readerResults) {
+            readerResult.get(10, TimeUnit.SECONDS);
+        }
+
+        readers.shutdown();
+
+        // Then
+        assertTrue(tornReads.toString(), tornReads.isEmpty());
+    }
+
+    @Test
+    public void test_finishingAnOrder_doesNotClearANewerOrder() {
+        // Given
+        Order finishedOrder = new Order(new Sandwich(10, "BLT"), null);
+        Order newerOrder = new Order(new Sandwich(20, "Italian"), null);
+        session.setOrder(newerOrder);
+
+        // When
+        session.clearOrder(finishedOrder);
+
+        // Then
+        assertNotNull(session.getOrder());
+        assertEquals(newerOrder.getIdempotencyKey(), session.getOrder().getIdempotencyKey());
+
+        // When
+        session.clearOrder(newerOrder.withCreditCard(
+                new CreditCard(3, "Visa 3333", LocalDate.of(2025, 4, 30))));
+
+        // Then
+        assertNull(session.getOrder());
+    }
+
+    // Helper methods
+
+    /**
+     * Runs {@code task} on {@link #THREAD_COUNT} threads, released at the same moment to
+     * maximize contention, and rethrows the first failure.
+     */
+    private static void runConcurrently(@NonNull final Callable<Void> task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final List<Future<Void>> results = new ArrayList<>();
+
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            results.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    startSignal.await();
+                    return task.call();
+                }
+            }));
+        }
+
+        startSignal.countDown();
+
+        try {
+            for (final Future<Void> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
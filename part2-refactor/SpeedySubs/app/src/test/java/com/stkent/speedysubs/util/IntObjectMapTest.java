@@ -0,0 +1,77 @@
+package com.stkent.speedysubs.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IntObjectMapTest {
+
+    @Test
+    public void test_mapAgreesWithHashMap_acrossManyRandomPuts() {
+        // Given
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            String value = "value " + i;
+
+            assertEquals(expected.put(key, value), map.put(key, value));
+        }
+
+        // Then
+        assertEquals(expected.size(), map.size());
+
+        for (int key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void test_getReturnsNull_forMissingKey() {
+        // Given
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(0, "zero");
+
+        // When
+        String value = map.get(16);
+
+        // Then
+        assertNull(value);
+    }
+
+    @Test
+    public void test_mapAgreesWithHashMap_acrossManyRandomPutsAndRemoves() {
+        // Given
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(200) - 100;
+
+            if (random.nextBoolean()) {
+                String value = "value " + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), map.size());
+
+        for (int key = -100; key < 100; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.stkent.speedysubs.choosecard;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding a customer's usable cards by scanning every card, as the card screen used to,
+ * with a lookup in a prebuilt {@link CreditCardExpiryIndex}. Card pools of this size are typical
+ * for corporate accounts. {@link #buildIndex} shows the one-off cost paid on each refresh, and
+ * {@link #indexedLookup} the cost of each {@code CreditCardViewModel.displayCreditCards} call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CreditCardExpiryIndexBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int cardCount;
+
+    private List<CreditCard> creditCards;
+    private CreditCardExpiryIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        final LocalDate today = LocalDate.now();
+
+        creditCards = new ArrayList<>(cardCount);
+
+        for (int i = 0; i < cardCount; i++) {
+            // Expiration dates spread from four years ago to four years from now.
+            final LocalDate expirationDate = today.plusDays(random.nextInt(8 * 365) - 4 * 365);
+            creditCards.add(new CreditCard(i, "Card " + i, expirationDate));
+        }
+
+        index = new CreditCardExpiryIndex(creditCards);
+    }
+
+    @Benchmark
+    public List<CreditCard> linearScan() {
+        final List<CreditCard> result = new ArrayList<>();
+
+        for (final CreditCard creditCard : creditCards) {
+            if (creditCard.getExpirationDate().isAfter(LocalDate.now())) {
+                result.add(creditCard);
+            }
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public List<CreditCard> indexedLookup() {
+        return index.getUsableCards(LocalDate.now());
+    }
+
+    @Benchmark
+    public CreditCardExpiryIndex buildIndex() {
+        return new CreditCardExpiryIndex(creditCards);
+    }
+
+}
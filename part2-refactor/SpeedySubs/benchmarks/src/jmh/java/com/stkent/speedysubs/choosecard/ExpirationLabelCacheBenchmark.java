@@ -0,0 +1,75 @@
+package com.stkent.speedysubs.choosecard;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.format.DateTimeFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates binding the expiration label of one row after another while scrolling through a long
+ * card list. Each invocation binds the next row. With the {@code gc} profiler (the module
+ * default), {@code gc.alloc.rate.norm} for {@link #cachedLabel} should be ~0 B/op once warmed
+ * up, compared with several objects per row for {@link #formatOnEveryBind}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExpirationLabelCacheBenchmark {
+
+    private static final String FORMAT_STRING = "Expires %s";
+
+    @Param({"10000"})
+    public int cardCount;
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy");
+
+    private List<CreditCard> creditCards;
+    private ExpirationLabelCache cache;
+    private int position;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        final LocalDate today = LocalDate.now();
+
+        creditCards = new ArrayList<>(cardCount);
+
+        for (int i = 0; i < cardCount; i++) {
+            final LocalDate expirationDate = today.plusDays(random.nextInt(8 * 365));
+            creditCards.add(new CreditCard(i, "Card " + i, expirationDate));
+        }
+
+        cache = new ExpirationLabelCache(FORMAT_STRING);
+    }
+
+    @Benchmark
+    public String cachedLabel() {
+        return cache.getLabel(nextCard().getExpirationYearMonth());
+    }
+
+    @Benchmark
+    public String formatOnEveryBind() {
+        return String.format(FORMAT_STRING, formatter.format(nextCard().getExpirationDate()));
+    }
+
+    private CreditCard nextCard() {
+        final CreditCard result = creditCards.get(position);
+        position = position + 1 == creditCards.size() ? 0 : position + 1;
+        return result;
+    }
+
+}
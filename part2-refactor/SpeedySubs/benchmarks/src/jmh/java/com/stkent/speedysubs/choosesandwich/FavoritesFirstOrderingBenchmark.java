@@ -0,0 +1,87 @@
+package com.stkent.speedysubs.choosesandwich;
+
+import com.stkent.speedysubs.choosesandwich.ISandwichView.DisplaySandwich;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+import com.stkent.speedysubs.persistence.DecayingFrequencyRanking;
+import com.stkent.speedysubs.util.IntObjectMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+
+/**
+ * Measures the work {@code SandwichPresenter.processSandwiches} does each time the menu loads:
+ * picking the top favorites from the ranking, then moving them to the front of the menu. Every
+ * sandwich on the menu has been ordered at least once, which is the worst case for the ranking.
+ *
+ * <p>{@link #reprocessSandwiches} renders the same menu again, as after a refresh that changed
+ * nothing, so every row from the previous render is reused.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FavoritesFirstOrderingBenchmark {
+
+    private static final int FAVORITE_COUNT = 3;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int menuSize;
+
+    private List<Sandwich> menu;
+    private DecayingFrequencyRanking ranking;
+    private IntObjectMap<DisplaySandwich> previousSandwiches;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+
+        menu = new ArrayList<>(menuSize);
+        ranking = new DecayingFrequencyRanking(DAYS.toMillis(14));
+
+        for (int i = 0; i < menuSize; i++) {
+            menu.add(new Sandwich(i, "Sandwich number " + i));
+            ranking.recordOrder(i, DAYS.toMillis(random.nextInt(90)));
+        }
+
+        previousSandwiches = new IntObjectMap<>(menuSize);
+
+        for (final DisplaySandwich displaySandwich : processSandwiches()) {
+            previousSandwiches.put(displaySandwich.getId(), displaySandwich);
+        }
+    }
+
+    @Benchmark
+    public int[] getTopIds() {
+        return ranking.getTopIds(FAVORITE_COUNT);
+    }
+
+    @Benchmark
+    public List<DisplaySandwich> processSandwiches() {
+        return FavoritesFirstOrdering.apply(
+                menu,
+                ranking.getTopIds(FAVORITE_COUNT),
+                new IntObjectMap<DisplaySandwich>());
+    }
+
+    @Benchmark
+    public List<DisplaySandwich> reprocessSandwiches() {
+        return FavoritesFirstOrdering.apply(
+                menu,
+                ranking.getTopIds(FAVORITE_COUNT),
+                previousSandwiches);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.stkent.speedysubs.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-call cost of the ordering API's instrumentation: two clock reads plus one
+ * {@link EndpointMetrics#recordSuccess}. The budget is under a microsecond per call; the
+ * contended variant has every worker thread recording into the same endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EndpointMetricsBenchmark {
+
+    private final EndpointMetrics endpointMetrics = new EndpointMetrics("benchmark");
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private long nextValue;
+
+    @Benchmark
+    public void recordHistogramValue() {
+        // Sweeps a wide range of buckets without calling into a random number generator.
+        nextValue = nextValue * 6364136223846793005L + 1442695040888963407L;
+        histogram.record(nextValue >>> 34);
+    }
+
+    @Benchmark
+    public void recordCall() {
+        final long startNanos = System.nanoTime();
+        endpointMetrics.recordSuccess(System.nanoTime() - startNanos);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordCallContended() {
+        final long startNanos = System.nanoTime();
+        endpointMetrics.recordSuccess(System.nanoTime() - startNanos);
+    }
+
+    @Benchmark
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+}
@@ -0,0 +1,309 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import android.support.annotation.NonNull;
+
+import com.stkent.speedysubs.metrics.EndpointMetrics;
+import com.stkent.speedysubs.metrics.LatencyHistogram;
+import com.stkent.speedysubs.networking.Callback;
+import com.stkent.speedysubs.networking.RetryPolicy;
+import com.stkent.speedysubs.networking.ordering.FakeBackendConfig.Endpoint;
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Drives simulated customers through the app's ordering journey (log in, load the menu, load
+ * saved cards, place an order) against a {@link FakeOrderingBackend}, then prints throughput and
+ * latency percentiles for each step and for whole journeys.
+ *
+ * <p>Each customer gets its own {@link OrderingApi}, as if on its own device, so coalescing and
+ * retries behave as they do in the app. All customers share one backend and one small worker
+ * pool, and start a new journey as soon as the last one ends until the run is over.
+ *
+ * <p>Run with {@code ./gradlew :benchmarks:loadTest}, optionally passing
+ * {@code -PloadTestArgs="<customers> <seconds>"}.
+ */
+public final class LoadGenerator {
+
+    private static final int DEFAULT_CUSTOMER_COUNT = 2000;
+    private static final int DEFAULT_DURATION_SECONDS = 30;
+    private static final int WORKER_THREAD_COUNT = 4;
+    private static final double NANOS_PER_MILLI = MILLISECONDS.toNanos(1);
+
+    /**
+     * A backend with a median journey of about half a second, slow outliers at every step, 1% of
+     * requests failing, and room for 1000 requests at once.
+     */
+    @NonNull
+    static FakeBackendConfig createRealisticConfig() {
+        return new FakeBackendConfig.Builder()
+                .setLatency(Endpoint.LOG_IN, LatencyModel.logNormal(150, 0.5))
+                .setLatency(Endpoint.GET_SANDWICHES, LatencyModel.uniform(40, 120))
+                .setLatency(Endpoint.GET_CUSTOMER_CREDIT_CARDS, LatencyModel.logNormal(80, 0.5))
+                .setLatency(Endpoint.PLACE_ORDER, LatencyModel.logNormal(200, 1))
+                .setErrorRate(0.01)
+                .setMaxConcurrentRequests(1000)
+                .build();
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        final int customerCount = args.length > 0
+                ? Integer.parseInt(args[0])
+                : DEFAULT_CUSTOMER_COUNT;
+
+        final int durationSeconds = args.length > 1
+                ? Integer.parseInt(args[1])
+                : DEFAULT_DURATION_SECONDS;
+
+        new LoadGenerator(createRealisticConfig(), customerCount)
+                .run(SECONDS.toMillis(durationSeconds));
+    }
+
+    @NonNull
+    private final ScheduledExecutorService workExecutor =
+            Executors.newScheduledThreadPool(WORKER_THREAD_COUNT);
+
+    @NonNull
+    private final List<SimulatedCustomer> customers;
+
+    @NonNull
+    private final EndpointMetrics logInMetrics = new EndpointMetrics("logIn");
+
+    @NonNull
+    private final EndpointMetrics getSandwichesMetrics = new EndpointMetrics("getSandwiches");
+
+    @NonNull
+    private final EndpointMetrics getCustomerCreditCardsMetrics =
+            new EndpointMetrics("getCustomerCreditCards");
+
+    @NonNull
+    private final EndpointMetrics placeOrderMetrics = new EndpointMetrics("placeOrder");
+
+    @NonNull
+    private final EndpointMetrics journeyMetrics = new EndpointMetrics("journey");
+
+    private volatile long endNanos;
+
+    @NonNull
+    private CountDownLatch finishedCustomers = new CountDownLatch(0);
+
+    LoadGenerator(@NonNull final FakeBackendConfig config, final int customerCount) {
+        final FakeOrderingBackend backend = new FakeOrderingBackend(new Random(), config);
+
+        // Results are handled on the worker thread that produced them; there is no main thread.
+        final Executor directExecutor = new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                command.run();
+            }
+        };
+
+        customers = new ArrayList<>(customerCount);
+
+        for (int i = 0; i < customerCount; i++) {
+            final OrderingApi orderingApi =
+                    new OrderingApi(workExecutor, directExecutor, backend, RetryPolicy.DEFAULT);
+
+            customers.add(new SimulatedCustomer("customer" + i, orderingApi));
+        }
+    }
+
+    /**
+     * Starts every customer at once, stops starting new journeys after {@code durationMs}, and
+     * prints the results once every journey in progress has finished. Rates are over the whole
+     * run, including that final wait.
+     */
+    void run(final long durationMs) throws InterruptedException {
+        final long startNanos = System.nanoTime();
+        endNanos = startNanos + MILLISECONDS.toNanos(durationMs);
+        finishedCustomers = new CountDownLatch(customers.size());
+
+        for (final SimulatedCustomer customer : customers) {
+            customer.startJourney();
+        }
+
+        finishedCustomers.await();
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        workExecutor.shutdown();
+
+        printResults(elapsedNanos);
+    }
+
+    private void printResults(final long elapsedNanos) {
+        final double elapsedSeconds = elapsedNanos / (double) SECONDS.toNanos(1);
+        long requestCount = 0;
+        long retryCount = 0;
+
+        for (final SimulatedCustomer customer : customers) {
+            requestCount += customer.orderingApi.getRequestCount();
+            retryCount += customer.orderingApi.getRetryCount();
+        }
+
+        final EndpointMetrics.Snapshot journeys = journeyMetrics.snapshot();
+
+        System.out.println(String.format(
+                Locale.US,
+                "%d customers for %.1fs: %d orders placed (%.1f/s), %d requests (%.1f/s), "
+                        + "%d retries",
+                customers.size(),
+                elapsedSeconds,
+                journeys.getSuccessCount(),
+                journeys.getSuccessCount() / elapsedSeconds,
+                requestCount,
+                requestCount / elapsedSeconds,
+                retryCount));
+
+        final List<EndpointMetrics> allMetrics = Arrays.asList(
+                logInMetrics,
+                getSandwichesMetrics,
+                getCustomerCreditCardsMetrics,
+                placeOrderMetrics,
+                journeyMetrics);
+
+        for (final EndpointMetrics metrics : allMetrics) {
+            final EndpointMetrics.Snapshot snapshot = metrics.snapshot();
+            final LatencyHistogram.Snapshot latency = snapshot.getLatency();
+
+            System.out.println(String.format(
+                    Locale.US,
+                    "%-22s %7d ok %5d failed   p50 %7.1fms   p99 %7.1fms   p99.9 %7.1fms",
+                    snapshot.getName(),
+                    snapshot.getSuccessCount(),
+                    snapshot.getErrorCount(),
+                    latency.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(99.9) / NANOS_PER_MILLI));
+        }
+    }
+
+    /**
+     * Walks one customer through the journey, one request at a time. Each step's latency is what
+     * the customer waits, including any retries. A failed step ends the journey early.
+     */
+    private final class SimulatedCustomer {
+
+        @NonNull
+        private final String username;
+
+        @NonNull
+        private final OrderingApi orderingApi;
+
+        private long journeyStartNanos;
+
+        private SimulatedCustomer(
+                @NonNull final String username,
+                @NonNull final OrderingApi orderingApi) {
+
+            this.username = username;
+            this.orderingApi = orderingApi;
+        }
+
+        private void startJourney() {
+            if (System.nanoTime() - endNanos >= 0) {
+                finishedCustomers.countDown();
+                return;
+            }
+
+            journeyStartNanos = System.nanoTime();
+
+            orderingApi.logIn(username, "password", new Step<Customer>(logInMetrics) {
+                @Override
+                void onStepSuccess(@NonNull final Customer customer) {
+                    loadMenu(customer);
+                }
+            });
+        }
+
+        private void loadMenu(@NonNull final Customer customer) {
+            orderingApi.getSandwiches(new Step<List<Sandwich>>(getSandwichesMetrics) {
+                @Override
+                void onStepSuccess(@NonNull final List<Sandwich> sandwiches) {
+                    loadCreditCards(customer, pickRandom(sandwiches));
+                }
+            });
+        }
+
+        private void loadCreditCards(
+                @NonNull final Customer customer,
+                @NonNull final Sandwich sandwich) {
+
+            orderingApi.getCustomerCreditCards(
+                    new Step<List<CreditCard>>(getCustomerCreditCardsMetrics) {
+                        @Override
+                        void onStepSuccess(@NonNull final List<CreditCard> creditCards) {
+                            placeOrder(customer, new Order(sandwich, pickRandom(creditCards)));
+                        }
+                    });
+        }
+
+        private void placeOrder(@NonNull final Customer customer, @NonNull final Order order) {
+            orderingApi.placeOrder(customer, order, new Step<Integer>(placeOrderMetrics) {
+                @Override
+                void onStepSuccess(@NonNull final Integer confirmationNumber) {
+                    finishJourney(true);
+                }
+            });
+        }
+
+        private void finishJourney(final boolean succeeded) {
+            final long latencyNanos = System.nanoTime() - journeyStartNanos;
+
+            if (succeeded) {
+                journeyMetrics.recordSuccess(latencyNanos);
+            } else {
+                journeyMetrics.recordError(latencyNanos);
+            }
+
+            startJourney();
+        }
+
+        private abstract class Step<T> implements Callback<T> {
+
+            @NonNull
+            private final EndpointMetrics metrics;
+
+            private final long startNanos = System.nanoTime();
+
+            private Step(@NonNull final EndpointMetrics metrics) {
+                this.metrics = metrics;
+            }
+
+            abstract void onStepSuccess(@NonNull T result);
+
+            @Override
+            public void onSuccess(@NonNull final T result) {
+                metrics.recordSuccess(System.nanoTime() - startNanos);
+                onStepSuccess(result);
+            }
+
+            @Override
+            public void onError(@NonNull final String errorMessage) {
+                metrics.recordError(System.nanoTime() - startNanos);
+                finishJourney(false);
+            }
+
+        }
+
+    }
+
+    @NonNull
+    private static <T> T pickRandom(@NonNull final List<T> items) {
+        return items.get(ThreadLocalRandom.current().nextInt(items.size()));
+    }
+
+}
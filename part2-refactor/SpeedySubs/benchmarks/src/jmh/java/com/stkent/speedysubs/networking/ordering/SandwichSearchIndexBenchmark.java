@@ -0,0 +1,97 @@
+package com.stkent.speedysubs.networking.ordering;
+
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the search index for a menu, and the search run for each keystroke as a
+ * customer types "chicken bacon". Names are three words drawn from a small vocabulary, so each
+ * prefix matches a large share of the menu, as on a real sandwich menu.
+ *
+ * <p>Run with {@code -prof gc} to see the memory allocated to build an index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SandwichSearchIndexBenchmark {
+
+    private static final String[] VOCABULARY = {
+            "Bacon", "Beef", "Buffalo", "Cheese", "Cheesesteak", "Chicken", "Chipotle", "Club",
+            "Cuban", "Egg", "Gouda", "Ham", "Italian", "Meatball", "Melt", "Pastrami", "Pesto",
+            "Philly", "Ranch", "Reuben", "Roast", "Salami", "Spicy", "Steak", "Swiss", "Teriyaki",
+            "Toasted", "Tuna", "Turkey", "Veggie"
+    };
+
+    private static final String[] KEYSTROKES = {
+            "c", "ch", "chi", "chic", "chick", "chicke", "chicken", "chicken ", "chicken b",
+            "chicken ba", "chicken bac", "chicken baco", "chicken bacon"
+    };
+
+    @Param({"1000", "100000"})
+    public int menuSize;
+
+    private List<Sandwich> menu;
+    private SandwichSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+
+        menu = new ArrayList<>(menuSize);
+
+        for (int i = 0; i < menuSize; i++) {
+            final String name = pickWord(random) + " " + pickWord(random) + " " + pickWord(random);
+            menu.add(new Sandwich(i, name));
+        }
+
+        index = new SandwichSearchIndex(menu);
+    }
+
+    @Benchmark
+    public SandwichSearchIndex buildIndex() {
+        return new SandwichSearchIndex(menu);
+    }
+
+    /**
+     * One keystroke on its own, searched from scratch.
+     */
+    @Benchmark
+    public SandwichSearchIndex.Result searchFromScratch() {
+        return index.search("chicken b", null);
+    }
+
+    /**
+     * Every keystroke in turn, each narrowing the previous result.
+     */
+    @Benchmark
+    @OperationsPerInvocation(13)
+    public SandwichSearchIndex.Result typeQuery() {
+        SandwichSearchIndex.Result result = null;
+
+        for (final String query : KEYSTROKES) {
+            result = index.search(query, result);
+        }
+
+        return result;
+    }
+
+    private static String pickWord(final Random random) {
+        return VOCABULARY[random.nextInt(VOCABULARY.length)];
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.stkent.speedysubs.networking.ordering.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Sandwich} and {@link CreditCard} equality and hashing in the collection
+ * operations the app performs on them: building hash sets (diffing, de-duplication) and probing
+ * them with equal but distinct instances, as happens when a refreshed list replaces an old one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelEqualityBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int itemCount;
+
+    private List<Sandwich> sandwiches;
+    private List<Sandwich> refreshedSandwiches;
+    private Set<Sandwich> sandwichSet;
+
+    private List<CreditCard> creditCards;
+    private List<CreditCard> refreshedCreditCards;
+    private Set<CreditCard> creditCardSet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final LocalDate expirationDate = LocalDate.of(2030, 1, 31);
+
+        sandwiches = new ArrayList<>(itemCount);
+        refreshedSandwiches = new ArrayList<>(itemCount);
+        creditCards = new ArrayList<>(itemCount);
+        refreshedCreditCards = new ArrayList<>(itemCount);
+
+        for (int i = 0; i < itemCount; i++) {
+            sandwiches.add(new Sandwich(i, "Sandwich number " + i));
+            refreshedSandwiches.add(new Sandwich(i, "Sandwich number " + i));
+            creditCards.add(new CreditCard(i, "Card " + i, expirationDate));
+            refreshedCreditCards.add(new CreditCard(i, "Card " + i, expirationDate));
+        }
+
+        sandwichSet = new HashSet<>(sandwiches);
+        creditCardSet = new HashSet<>(creditCards);
+    }
+
+    @Benchmark
+    public Set<Sandwich> buildSandwichSet() {
+        return new HashSet<>(sandwiches);
+    }
+
+    @Benchmark
+    public int probeSandwichSet() {
+        int result = 0;
+
+        for (final Sandwich sandwich : refreshedSandwiches) {
+            if (sandwichSet.contains(sandwich)) result++;
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public Set<CreditCard> buildCreditCardSet() {
+        return new HashSet<>(creditCards);
+    }
+
+    @Benchmark
+    public int probeCreditCardSet() {
+        int result = 0;
+
+        for (final CreditCard creditCard : refreshedCreditCards) {
+            if (creditCardSet.contains(creditCard)) result++;
+        }
+
+        return result;
+    }
+
+}
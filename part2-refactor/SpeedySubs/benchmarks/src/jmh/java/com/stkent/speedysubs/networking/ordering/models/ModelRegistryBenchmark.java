@@ -0,0 +1,56 @@
+package com.stkent.speedysubs.networking.ordering.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures interning a refreshed menu whose sandwiches are all already registered, which is what
+ * every refresh of an unchanged menu costs on top of the request itself. The registry holds
+ * models weakly, so {@link #registeredMenu} is kept here to keep them registered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelRegistryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int menuSize;
+
+    private ModelRegistry registry;
+    private List<Sandwich> registeredMenu;
+    private List<Sandwich> refreshedMenu;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new ModelRegistry();
+        registeredMenu = registry.internSandwiches(createMenu());
+        refreshedMenu = createMenu();
+    }
+
+    @Benchmark
+    public List<Sandwich> internRefreshedMenu() {
+        return registry.internSandwiches(refreshedMenu);
+    }
+
+    private List<Sandwich> createMenu() {
+        final List<Sandwich> result = new ArrayList<>(menuSize);
+
+        for (int i = 0; i < menuSize; i++) {
+            result.add(new Sandwich((i + 1) * 10, "Daily Special #" + i));
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.stkent.speedysubs.persistence;
+
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a menu snapshot with decoding the same menu stored as JSON. Run with the
+ * {@code gc} profiler (the module default) to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SandwichMenuSnapshotBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Param({"10", "1000", "100000"})
+    public int menuSize;
+
+    private File snapshotFile;
+    private File jsonFile;
+    private SandwichMenuSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final List<Sandwich> sandwiches = new ArrayList<>(menuSize);
+        final JSONArray json = new JSONArray();
+
+        for (int i = 0; i < menuSize; i++) {
+            final Sandwich sandwich = new Sandwich(i, "Sandwich number " + i);
+            sandwiches.add(sandwich);
+            json.put(new JSONObject().put("id", sandwich.getId()).put("name", sandwich.getName()));
+        }
+
+        snapshotFile = File.createTempFile("menu", ".bin");
+        snapshot = new SandwichMenuSnapshot(snapshotFile);
+        snapshot.write(sandwiches);
+
+        jsonFile = File.createTempFile("menu", ".json");
+
+        try (final FileOutputStream output = new FileOutputStream(jsonFile)) {
+            output.write(json.toString().getBytes(UTF_8));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        snapshotFile.delete();
+        //noinspection ResultOfMethodCallIgnored
+        jsonFile.delete();
+    }
+
+    @Benchmark
+    public List<Sandwich> decodeSnapshot() throws IOException {
+        return snapshot.read();
+    }
+
+    @Benchmark
+    public List<Sandwich> decodeJson() throws IOException {
+        final JSONArray json = new JSONArray(new String(readFully(jsonFile), UTF_8));
+        final List<Sandwich> result = new ArrayList<>(json.length());
+
+        for (int i = 0; i < json.length(); i++) {
+            final JSONObject item = json.getJSONObject(i);
+            result.add(new Sandwich(item.getInt("id"), item.getString("name")));
+        }
+
+        return result;
+    }
+
+    private static byte[] readFully(final File file) throws IOException {
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             final FileChannel channel = randomAccessFile.getChannel()) {
+
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // Keep reading until the buffer is full.
+            }
+
+            return buffer.array();
+        }
+    }
+
+}
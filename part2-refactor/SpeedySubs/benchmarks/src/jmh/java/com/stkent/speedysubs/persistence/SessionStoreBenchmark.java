@@ -0,0 +1,116 @@
+package com.stkent.speedysubs.persistence;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.threeten.bp.LocalDate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures restoring a stored session, saving a whole session, and the common incremental save
+ * where only the order changed. Every save is fsynced, so save timings depend heavily on the
+ * device's storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionStoreBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int creditCardCount;
+
+    private File directory;
+    private Customer customer;
+    private Order order;
+    private Order otherOrder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final List<CreditCard> creditCards = new ArrayList<>(creditCardCount);
+        final LocalDate firstExpiry = LocalDate.of(2030, 1, 31);
+
+        for (int i = 0; i < creditCardCount; i++) {
+            creditCards.add(
+                    new CreditCard(i, "Card ending " + (1000 + i), firstExpiry.plusDays(i)));
+        }
+
+        directory = Files.createTempDirectory("session").toFile();
+        customer = new Customer("customer", creditCards);
+        order = new Order(new Sandwich(1, "BLT"), creditCards.get(0));
+        otherOrder = order.withCreditCard(creditCards.get(creditCardCount - 1));
+
+        new SessionStore(directory).save(customer, order);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (final File file : directory.listFiles()) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+
+    @Benchmark
+    public Customer restore() throws IOException {
+        final SessionStore store = new SessionStore(directory);
+        store.readOrder();
+        return store.readCustomer();
+    }
+
+    @Benchmark
+    public SessionStore saveAll() throws IOException {
+        final SessionStore store = new SessionStore(directory);
+        store.save(customer, order);
+        return store;
+    }
+
+    /**
+     * Switches the order's card and back, so each op is two order-only saves.
+     */
+    @Benchmark
+    public SessionStore saveChangedOrder(final RestoredStore restoredStore) throws IOException {
+        final SessionStore store = restoredStore.store;
+        store.save(customer, otherOrder);
+        store.save(customer, order);
+        return store;
+    }
+
+    /**
+     * A store whose last-saved values are the benchmark's customer and order, so that saving only
+     * rewrites the fields that actually changed.
+     */
+    @State(Scope.Thread)
+    public static class RestoredStore {
+
+        SessionStore store;
+
+        @Setup(Level.Trial)
+        public void setUp(final SessionStoreBenchmark benchmark) throws IOException {
+            store = new SessionStore(benchmark.directory);
+            store.save(benchmark.customer, benchmark.order);
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.stkent.speedysubs.state;
+
+import com.stkent.speedysubs.networking.ordering.models.CreditCard;
+import com.stkent.speedysubs.networking.ordering.models.Customer;
+import com.stkent.speedysubs.networking.ordering.models.Order;
+import com.stkent.speedysubs.networking.ordering.models.Sandwich;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.LocalDate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Session} reads and the two updates the card screen makes: selecting a card
+ * (replaces the order) and refreshing the card list (copies the customer's cards). The session is
+ * not persisted, so these are the in-memory costs only; see {@code SessionStoreBenchmark} for
+ * disk costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int creditCardCount;
+
+    private Session session;
+    private List<CreditCard> creditCards;
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final LocalDate expirationDate = LocalDate.of(2030, 1, 31);
+
+        creditCards = new ArrayList<>(creditCardCount);
+
+        for (int i = 0; i < creditCardCount; i++) {
+            creditCards.add(new CreditCard(i, "Card " + i, expirationDate));
+        }
+
+        order = new Order(new Sandwich(1, "BLT"), null);
+
+        session = new Session();
+        session.setCustomer(new Customer("customer", creditCards));
+        session.setOrder(order);
+    }
+
+    @Benchmark
+    public Customer getCustomer() {
+        return session.getCustomer();
+    }
+
+    @Benchmark
+    public Session.Snapshot selectCreditCard() {
+        return session.update(new Session.Update() {
+            @Override
+            public Session.Snapshot apply(final Session.Snapshot current) {
+                return current.withOrder(order.withCreditCard(creditCards.get(0)));
+            }
+        });
+    }
+
+    @Benchmark
+    public Session.Snapshot refreshCreditCards() {
+        return session.update(new Session.Update() {
+            @Override
+            public Session.Snapshot apply(final Session.Snapshot current) {
+                return current.withCustomer(current.getCustomer().withCreditCards(creditCards));
+            }
+        });
+    }
+
+}